@@ -0,0 +1,82 @@
+package pl.domzal.junit.docker.rule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.domzal.junit.docker.rule.fake.FakeDockerEngine;
+import pl.domzal.junit.docker.rule.fake.FakeDockerEngine.Operation;
+
+/**
+ * Full container lifecycle (create, start, log attach, inspect, wait for log message, stop, remove)
+ * against in-process {@link FakeDockerEngine}, so measured time is overhead of the rule itself
+ * plus configured api latency. Run with <code>-t</code> to simulate many containers started in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleLifecycleBenchmark {
+
+    private static final String IMAGE = "fake/service:1.0";
+
+    /**
+     * Latency of every container api call [ms].
+     */
+    @Param({"0", "2"})
+    public int apiLatencyMillis;
+
+    @Param({"10"})
+    public int logLines;
+
+    private final PrintStream discard = new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM);
+
+    private FakeDockerEngine engine;
+
+    @Setup
+    public void setup() throws IOException {
+        engine = new FakeDockerEngine().image(IMAGE);
+        engine.container(IMAGE).stdoutLines("starting", logLines).stdout("started");
+        for (Operation operation : new Operation[] {Operation.CREATE, Operation.START, Operation.INSPECT, Operation.STOP, Operation.REMOVE}) {
+            engine.latency(operation, apiLatencyMillis);
+        }
+        engine.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public String lifecycle() throws Throwable {
+        DockerRule rule = DockerRule.builder()
+                .imageName(IMAGE)
+                .dockerUri(engine.getUri())
+                .stdoutWriter(discard)
+                .stderrWriter(discard)
+                .waitFor(WaitFor.logMessage("started"))
+                .build();
+        rule.before();
+        String containerId = rule.getContainerId();
+        rule.after();
+        return containerId;
+    }
+
+}
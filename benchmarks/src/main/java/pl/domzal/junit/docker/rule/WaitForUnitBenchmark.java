@@ -0,0 +1,73 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.domzal.junit.docker.rule.wait.LogPattern;
+import pl.domzal.junit.docker.rule.wait.LogPatternChecker;
+
+/**
+ * Wait loop latency: condition polled by {@link WaitForUnit} (met on third check, with default poll intervals)
+ * and log condition signaled from other thread (as log printer thread does) while waiting with long poll interval.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitForUnitBenchmark {
+
+    private ExecutorService logThread;
+
+    @Setup
+    public void setup() {
+        logThread = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        logThread.shutdownNow();
+    }
+
+    @Benchmark
+    public int polledCondition() throws TimeoutException, InterruptedException {
+        final int[] checks = new int[1];
+        new WaitForUnit(TimeUnit.SECONDS, 10, TimeUnit.MILLISECONDS,
+                WaitForContainer.DEFAULT_MIN_POLL_MS, WaitForContainer.DEFAULT_MAX_POLL_MS, new WaitForUnit.WaitForCondition() {
+            @Override
+            public boolean isConditionMet() {
+                return ++checks[0] >= 3;
+            }
+        }).startWaiting();
+        return checks[0];
+    }
+
+    @Benchmark
+    public void signaledCondition() throws TimeoutException {
+        final LogPatternChecker checker = new LogPatternChecker(Collections.singletonList(LogPattern.substring("ready")));
+        logThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                checker.nextLine("server ready");
+            }
+        });
+        WaitForContainer.waitForCondition(checker, 10, 1000, 1000, "benchmark");
+    }
+
+}
@@ -0,0 +1,59 @@
+package pl.domzal.junit.docker.rule.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of container-like log lines (timestamp, level, logger, message) with fixed seed,
+ * so every benchmark run processes the same log.
+ */
+public class SyntheticLog {
+
+    private static final String[] LEVELS = {"DEBUG", "INFO ", "INFO ", "INFO ", "WARN ", "ERROR"};
+    private static final String[] LOGGERS = {"o.a.catalina.core.StandardService", "o.s.b.w.embedded.tomcat.TomcatWebServer",
+            "com.zaxxer.hikari.HikariDataSource", "o.h.engine.jdbc.env.internal.LobCreatorBuilderImpl", "main"};
+    private static final String WORDS = "lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod tempor "
+            + "incididunt ut labore et dolore magna aliqua connection pool request handler started initialized";
+
+    private SyntheticLog() {
+    }
+
+    /**
+     * @param lineCount Number of lines.
+     * @param lineLength Approximate line length (without line separator).
+     */
+    public static List<String> lines(int lineCount, int lineLength) {
+        Random random = new Random(42);
+        String[] words = WORDS.split(" ");
+        List<String> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            StringBuilder line = new StringBuilder(lineLength + 16);
+            line.append(String.format("2021-03-01 10:%02d:%02d.%03d ", (i / 60000) % 60, (i / 1000) % 60, i % 1000));
+            line.append(LEVELS[random.nextInt(LEVELS.length)]).append(' ');
+            line.append(LOGGERS[random.nextInt(LOGGERS.length)]).append(" - ");
+            while (line.length() < lineLength) {
+                line.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            line.setLength(lineLength);
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Lines joined with <code>\n</code>, as container writes them.
+     */
+    public static byte[] bytes(List<String> lines) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (String line : lines) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            output.write(bytes, 0, bytes.length);
+            output.write('\n');
+        }
+        return output.toByteArray();
+    }
+
+}
@@ -0,0 +1,105 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.domzal.junit.docker.rule.benchmark.SyntheticLog;
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+/**
+ * Line throughput of log pipeline: bytes split to lines alone ({@link LineSplitter}) and log written
+ * to {@link LogSplitter} read by {@link LogPrinter}s (as {@link pl.domzal.junit.docker.rule.DockerRule} does
+ * with stdout, stderr and combined log listener).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogPipelineBenchmark {
+
+    static final int LINES = 10000;
+
+    /** Size of chunks log is written in (docker log frames are usually smaller). */
+    static final int WRITE_CHUNK = 4096;
+
+    @Param({"80", "400"})
+    int lineLength;
+
+    /** Number of log readers - 1: listener only, 3: listener with stdout and stderr printers. */
+    @Param({"1", "3"})
+    int readers;
+
+    private byte[] log;
+    private final PrintStream nullOutput = new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM);
+
+    @Setup
+    public void setup() {
+        log = SyntheticLog.bytes(SyntheticLog.lines(LINES, lineLength));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long lineSplitter() throws IOException {
+        final long[] lengths = new long[1];
+        new LineSplitter().split(new ByteArrayInputStream(log), new LineSplitter.LineConsumer() {
+            @Override
+            public void line(byte[] bytes, int offset, int length) {
+                lengths[0] += length;
+            }
+        });
+        return lengths[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long splitterToPrinters() throws Exception {
+        LogSplitter splitter = new LogSplitter();
+        final AtomicLong listened = new AtomicLong();
+        List<Thread> printers = new ArrayList<>();
+        printers.add(new Thread(new LogPrinter("", splitter.getCombinedInput(), null, new LineListener() {
+            @Override
+            public void nextLine(String line) {
+                listened.incrementAndGet();
+            }
+        })));
+        if (readers > 1) {
+            printers.add(new Thread(new LogPrinter("0123456789ab-stdout> ", splitter.getStdoutInput(), nullOutput, null)));
+            printers.add(new Thread(new LogPrinter("0123456789ab-stderr> ", splitter.getStderrInput(), nullOutput, null)));
+        }
+        for (Thread printer : printers) {
+            printer.start();
+        }
+        OutputStream stdout = splitter.getStdoutOutput();
+        for (int offset = 0; offset < log.length; offset += WRITE_CHUNK) {
+            stdout.write(log, offset, Math.min(WRITE_CHUNK, log.length - offset));
+        }
+        splitter.close();
+        for (Thread printer : printers) {
+            printer.join();
+        }
+        return listened.get();
+    }
+
+}
@@ -0,0 +1,81 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.domzal.junit.docker.rule.benchmark.SyntheticLog;
+
+/**
+ * {@link LineListenerProxy} line fan-out to registered listeners and history replay
+ * to listener registered late (as {@link pl.domzal.junit.docker.rule.DockerRule#waitForLogMessage(String, int)} does).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineListenerProxyBenchmark {
+
+    static final int LINES = 10000;
+
+    @Param({"1", "4", "16"})
+    int listeners;
+
+    private List<String> lines;
+    private LineListenerProxy fanOutProxy;
+    private LineListenerProxy fullHistoryProxy;
+    private LineListener lateListener;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        lines = SyntheticLog.lines(LINES, 120);
+        LineListener consumer = new LineListener() {
+            @Override
+            public void nextLine(String line) {
+                blackhole.consume(line);
+            }
+        };
+        fanOutProxy = new LineListenerProxy();
+        for (int i = 0; i < listeners; i++) {
+            fanOutProxy.add(consumer);
+        }
+        fullHistoryProxy = new LineListenerProxy();
+        for (String line : lines) {
+            fullHistoryProxy.nextLine(line);
+        }
+        lateListener = consumer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void fanOut() {
+        for (String line : lines) {
+            fanOutProxy.nextLine(line);
+        }
+    }
+
+    /**
+     * Registration of listener replaying full history, followed by its removal.
+     */
+    @Benchmark
+    public void historyReplay() {
+        fullHistoryProxy.add(lateListener);
+        fullHistoryProxy.remove(lateListener);
+    }
+
+}
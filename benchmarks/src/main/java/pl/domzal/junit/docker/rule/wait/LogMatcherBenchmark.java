@@ -0,0 +1,102 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.domzal.junit.docker.rule.benchmark.SyntheticLog;
+
+/**
+ * Lines matched against many log patterns (never found, so every line is fully scanned):
+ * single pass {@link LogMatcher} compared with separate {@link LogChecker} per pattern.
+ * Log sequence of three steps is waited for in addition to patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogMatcherBenchmark {
+
+    static final int LINES = 10000;
+
+    @Param({"1", "8", "32"})
+    int patterns;
+
+    private List<String> lines;
+    private LogMatcher logMatcher;
+    private List<LineListener> separateCheckers;
+
+    @Setup
+    public void setup() {
+        lines = SyntheticLog.lines(LINES, 120);
+        List<LogPattern> logPatterns = new ArrayList<>();
+        separateCheckers = new ArrayList<>();
+        for (int i = 0; i < patterns; i++) {
+            String text = "server listening on port " + (8000 + i);
+            logPatterns.add(LogPattern.substring(text));
+            separateCheckers.add(new LogChecker(text));
+        }
+        List<String> sequence = Arrays.asList("database migrated", "cache warmed up", "accepting connections");
+        separateCheckers.add(new LogSequenceChecker(sequence));
+        logMatcher = new LogMatcher(Arrays.asList(new LogPatternChecker(logPatterns), new LogSequenceChecker(sequence)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void logMatcher() {
+        for (String line : lines) {
+            logMatcher.nextLine(line);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void separateCheckers() {
+        for (String line : lines) {
+            for (LineListener checker : separateCheckers) {
+                checker.nextLine(line);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void regexLogMatcher(RegexState state) {
+        for (String line : lines) {
+            state.logMatcher.nextLine(line);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RegexState {
+
+        LogMatcher logMatcher;
+
+        @Setup
+        public void setup(LogMatcherBenchmark benchmark) {
+            List<LogPattern> logPatterns = new ArrayList<>();
+            for (int i = 0; i < benchmark.patterns; i++) {
+                logPatterns.add(LogPattern.regex("listening on port " + (8000 + i) + "\\b"));
+            }
+            logMatcher = new LogMatcher(Collections.singletonList(new LogPatternChecker(logPatterns)));
+        }
+    }
+
+}
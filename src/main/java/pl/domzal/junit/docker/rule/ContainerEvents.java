@@ -0,0 +1,104 @@
+package pl.domzal.junit.docker.rule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Container lifecycle and wait events for JDK Flight Recorder.
+ * <p>
+ * Events are emitted only when JFR is available in running JVM (<code>jdk.jfr</code> module on java 11+,
+ * java 8u262+) - otherwise no-op implementation is used. When no recording is active (or event is disabled
+ * in recording settings) no-op {@link Span} is returned, so instrumented code pays only for single enabled check.
+ * <p>
+ * Event types (category <i>JUnit Docker Rule</i>) are defined in {@link JfrContainerEvents}.
+ */
+abstract class ContainerEvents {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerEvents.class);
+
+    static final String JFR_EVENTS_CLASS = "pl.domzal.junit.docker.rule.JfrContainerEvents";
+
+    /**
+     * Timed event. Ended exactly once.
+     */
+    interface Span {
+
+        /**
+         * Set id of container (when it was not known at span start).
+         */
+        Span container(String containerId);
+
+        /**
+         * End span.
+         *
+         * @param success Outcome - whether operation succeeded (or condition was met).
+         */
+        void end(boolean success);
+    }
+
+    static final Span NOOP_SPAN = new Span() {
+        @Override
+        public Span container(String containerId) {
+            return this;
+        }
+        @Override
+        public void end(boolean success) {
+        }
+    };
+
+    private static final ContainerEvents INSTANCE = create();
+
+    /**
+     * Process wide instance.
+     */
+    static ContainerEvents shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Container lifecycle phase (rule before/after, log attach/detach).
+     */
+    abstract Span lifecycle(String phase, String containerId, String image);
+
+    /**
+     * Waiting for condition ({@link WaitForUnit#startWaiting()}).
+     */
+    abstract Span waitFor(String condition, long timeoutMs);
+
+    /**
+     * Single check of start condition.
+     */
+    abstract Span check(String container, String condition);
+
+    private static ContainerEvents create() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            // loaded reflectively so jdk.jfr classes are never touched when not available
+            return (ContainerEvents) Class.forName(JFR_EVENTS_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            log.debug("JDK Flight Recorder not available, container events disabled");
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            log.debug("JDK Flight Recorder events not available", e);
+        }
+        return new NoopContainerEvents();
+    }
+
+    static class NoopContainerEvents extends ContainerEvents {
+
+        @Override
+        Span lifecycle(String phase, String containerId, String image) {
+            return NOOP_SPAN;
+        }
+
+        @Override
+        Span waitFor(String condition, long timeoutMs) {
+            return NOOP_SPAN;
+        }
+
+        @Override
+        Span check(String container, String condition) {
+            return NOOP_SPAN;
+        }
+    }
+
+}
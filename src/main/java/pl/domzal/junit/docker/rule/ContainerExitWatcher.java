@@ -0,0 +1,194 @@
+package pl.domzal.junit.docker.rule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.LogsParam;
+import org.mandas.docker.client.LogStream;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.exceptions.DockerTimeoutException;
+import org.mandas.docker.client.messages.ContainerState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.domzal.junit.docker.rule.ex.ContainerExitedException;
+
+/**
+ * Watches container for exit while rule waits for start conditions, so waiting is aborted
+ * with {@link ContainerExitedException} right away instead of running into wait timeout.
+ * <p>
+ * Exit is detected with blocking {@link DockerClient#waitContainer(String)} call on background thread.
+ * Before waiting is aborted, followed log of exited container is given time to be fully processed
+ * (so log conditions met just before exit still pass), then exit code, OOM kill flag
+ * and log tail are collected for exception.
+ * <p>
+ * Blocking wait is not always interrupted by {@link #close()}, so exit seen after close (container stopped
+ * by rule itself once waiting ended) is ignored - closed container is not inspected any more.
+ */
+class ContainerExitWatcher implements WaitForContainer.AbortCondition, Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerExitWatcher.class);
+
+    /**
+     * Number of last log lines reported with exit.
+     */
+    static final int LOG_TAIL_LINES = 20;
+
+    /**
+     * Max time for followed log of exited container to be processed [ms].
+     */
+    static final long LOG_PROCESSED_TIMEOUT_MS = DockerLogs.CLOSE_GRACE_MS;
+
+    private static final int SHORT_ID_LEN = 12;
+
+    private static final ThreadFactory EXIT_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger id = new AtomicInteger(0);
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, String.format("dockerexit-%d", id.incrementAndGet()));
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    private final DockerClient dockerClient;
+    private final String containerId;
+    private final String containerShortId;
+    private final String containerDescription;
+    private final DockerLogs dockerLogs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(EXIT_THREAD_FACTORY);
+
+    private final Object lock = new Object();
+    private boolean exited = false;
+    private boolean closed = false;
+    private Long exitCode;
+    private boolean oomKilled;
+    private String logTail;
+
+    /**
+     * @param dockerLogs Followed container log (to wait for before abort), optional.
+     */
+    ContainerExitWatcher(DockerClient dockerClient, String containerId, String containerDescription, DockerLogs dockerLogs) {
+        this.dockerClient = dockerClient;
+        this.containerId = containerId;
+        this.containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
+        this.containerDescription = containerDescription;
+        this.dockerLogs = dockerLogs;
+    }
+
+    void start() {
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        });
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                try {
+                    dockerClient.waitContainer(containerId);
+                    break;
+                } catch (DockerTimeoutException e) {
+                    // read timeout of client, container is still running
+                    log.trace("{} still running", containerShortId);
+                }
+                if (isClosed()) {
+                    return;
+                }
+            }
+            if (isClosed()) {
+                return;
+            }
+            log.debug("{} exited while waiting for start conditions", containerShortId);
+            if (dockerLogs != null) {
+                dockerLogs.awaitProcessed(LOG_PROCESSED_TIMEOUT_MS);
+            }
+            if (isClosed()) {
+                return;
+            }
+            Long code = null;
+            boolean oom = false;
+            try {
+                ContainerState state = dockerClient.inspectContainer(containerId).state();
+                code = state.exitCode();
+                oom = Boolean.TRUE.equals(state.oomKilled());
+            } catch (DockerException e) {
+                log.debug("{} inspect of exited container failed", containerShortId, e);
+            }
+            String tail = logTail();
+            synchronized (lock) {
+                exitCode = code;
+                oomKilled = oom;
+                logTail = tail;
+                exited = true;
+                lock.notifyAll();
+            }
+        } catch (DockerException e) {
+            log.debug("{} exit watch failed", containerShortId, e);
+        } catch (InterruptedException e) {
+            log.trace("{} exit watch stopped", containerShortId);
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    private String logTail() throws InterruptedException {
+        try (LogStream stream = dockerClient.logs(containerId, LogsParam.stdout(), LogsParam.stderr(), LogsParam.tail(LOG_TAIL_LINES))) {
+            return stream.readFully();
+        } catch (DockerException | IOException | RuntimeException e) {
+            log.debug("{} log tail of exited container not available", containerShortId, e);
+            return "";
+        }
+    }
+
+    /**
+     * @throws ContainerExitedException If container exited.
+     */
+    @Override
+    public void check() {
+        synchronized (lock) {
+            if (exited) {
+                String message = String.format("container %s exited with code %s%s while waiting for start conditions, last log lines:%n%s",
+                        containerDescription, exitCode, oomKilled ? " (killed by OOM killer)" : "", logTail);
+                throw new ContainerExitedException(message, exitCode, oomKilled, logTail);
+            }
+        }
+    }
+
+    @Override
+    public boolean await(long waitMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMs;
+        synchronized (lock) {
+            long remaining;
+            while (!exited && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                lock.wait(remaining);
+            }
+            return exited;
+        }
+    }
+
+    /**
+     * Stop watching, exit noticed from now on is ignored.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,241 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.exceptions.ContainerNotFoundException;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.messages.ContainerState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background container teardown (see {@link StopOption#ASYNC}).
+ * <p>
+ * Containers queued for teardown are stopped (or killed) and removed by small pool of daemon threads,
+ * so queued teardowns are processed concurrently while tests go on. Teardown of containers still queued
+ * when JVM exits is completed by shutdown hook (waiting at most {@link #SHUTDOWN_TIMEOUT_SECONDS}).
+ * <p>
+ * Every queued container may hold resources (container name, static host ports) - rule about to
+ * use them waits with {@link #awaitReleased(Collection, long)} until teardown releasing them is done.
+ */
+class ContainerReaper {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerReaper.class);
+
+    static final int REAPER_THREADS = 4;
+    static final int SHUTDOWN_TIMEOUT_SECONDS = 60;
+    static final int RELEASE_TIMEOUT_SECONDS = 60;
+
+    private static final ContainerReaper INSTANCE = new ContainerReaper(REAPER_THREADS);
+
+    /**
+     * Container to tear down.
+     */
+    static class Teardown {
+
+        private final DockerClient dockerClient;
+        private final String containerId;
+        private final boolean kill;
+        private final int stopTimeoutSeconds;
+        private final boolean remove;
+        private final Set<String> heldResources;
+        private final Runnable afterStop;
+
+        /**
+         * @param kill Kill instead of stop.
+         * @param remove Remove after stop.
+         * @param heldResources Resources held by container until its teardown is finished.
+         * @param afterStop Called when container is stopped (also when stop failed).
+         */
+        Teardown(DockerClient dockerClient, String containerId, boolean kill, int stopTimeoutSeconds, boolean remove, Set<String> heldResources, Runnable afterStop) {
+            this.dockerClient = dockerClient;
+            this.containerId = containerId;
+            this.kill = kill;
+            this.stopTimeoutSeconds = stopTimeoutSeconds;
+            this.remove = remove;
+            this.heldResources = heldResources;
+            this.afterStop = afterStop;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final List<Teardown> pending = new ArrayList<>();
+    private boolean shutdownHookRegistered = false;
+
+    ContainerReaper(int threads) {
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger(0);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format("dockerreaper-%d", id.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        threadPool.allowCoreThreadTimeOut(true);
+        this.executor = threadPool;
+    }
+
+    /**
+     * Process wide instance.
+     */
+    static ContainerReaper shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Resources (container name, static host ports) given container configuration holds.
+     */
+    static Set<String> heldResources(String containerName, Collection<String> staticHostPorts) {
+        Set<String> resources = new HashSet<>();
+        if (StringUtils.isNotBlank(containerName)) {
+            resources.add("name:" + containerName);
+        }
+        for (String hostPort : staticHostPorts) {
+            resources.add("port:" + hostPort);
+        }
+        return resources;
+    }
+
+    /**
+     * Queue container teardown.
+     */
+    void submit(final Teardown teardown) {
+        synchronized (this) {
+            registerShutdownHook();
+            pending.add(teardown);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tearDown(teardown);
+                } finally {
+                    synchronized (ContainerReaper.this) {
+                        pending.remove(teardown);
+                        ContainerReaper.this.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Number of queued (or in progress) teardowns.
+     */
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Wait till none of queued teardowns holds any of given resources.
+     *
+     * @return <code>false</code> on timeout.
+     */
+    synchronized boolean awaitReleased(Collection<String> resources, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (holdsAny(resources)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Wait till all queued teardowns are done.
+     *
+     * @return <code>false</code> on timeout.
+     */
+    synchronized boolean awaitAll(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!pending.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    private boolean holdsAny(Collection<String> resources) {
+        for (Teardown teardown : pending) {
+            if (!Collections.disjoint(teardown.heldResources, resources)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void tearDown(Teardown teardown) {
+        String containerShortId = StringUtils.left(teardown.containerId, 12);
+        try {
+            try {
+                ContainerState state = teardown.dockerClient.inspectContainer(teardown.containerId).state();
+                if (state.running()) {
+                    if (teardown.kill) {
+                        teardown.dockerClient.killContainer(teardown.containerId);
+                        log.info("{} killed", containerShortId);
+                    } else {
+                        teardown.dockerClient.stopContainer(teardown.containerId, teardown.stopTimeoutSeconds);
+                        log.info("{} stopped", containerShortId);
+                    }
+                }
+            } finally {
+                if (teardown.afterStop != null) {
+                    teardown.afterStop.run();
+                }
+            }
+            if (teardown.remove) {
+                teardown.dockerClient.removeContainer(teardown.containerId, DockerClient.RemoveContainerParam.removeVolumes());
+                log.info("{} deleted", containerShortId);
+            }
+        } catch (ContainerNotFoundException e) {
+            log.debug("{} already gone", containerShortId);
+        } catch (DockerException | RuntimeException e) {
+            log.warn("{} background teardown failed", containerShortId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} background teardown interrupted", containerShortId, e);
+        }
+    }
+
+    private void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int count = pendingCount();
+                        if (count > 0) {
+                            log.info("waiting for background teardown of {} containers", count);
+                        }
+                        if (!awaitAll(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS))) {
+                            log.warn("background teardown of {} containers not finished before exit", pendingCount());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "dockerreaper-shutdown"));
+            shutdownHookRegistered = true;
+        }
+    }
+
+}
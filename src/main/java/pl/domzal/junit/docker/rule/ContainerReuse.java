@@ -0,0 +1,70 @@
+package pl.domzal.junit.docker.rule;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.ListContainersParam;
+import org.mandas.docker.client.ObjectMapperProvider;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.messages.Container;
+import org.mandas.docker.client.messages.ContainerConfig;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Container reuse support (see {@link DockerRuleBuilder#reuseContainer(boolean)}).
+ * <p>
+ * Reusable containers are labeled with {@link #REUSE_HASH_LABEL} holding hash of their effective
+ * configuration (container and host config, together with image id) so running container can be
+ * found by rule with identical configuration - also in another JVM.
+ */
+class ContainerReuse {
+
+    /**
+     * Label holding container configuration hash.
+     */
+    static final String REUSE_HASH_LABEL = "pl.domzal.junit-docker-rule.reuse-hash";
+
+    private static final ObjectMapper CANONICAL_MAPPER = ObjectMapperProvider.objectMapper().copy()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private ContainerReuse() {
+    }
+
+    /**
+     * Hash of container configuration.
+     *
+     * @param containerConfig Container configuration (including host config), without reuse label.
+     * @param imageId Id of image container is created from - so container is not reused after image update.
+     */
+    static String configHash(ContainerConfig containerConfig, String imageId) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(CANONICAL_MAPPER.writeValueAsBytes(containerConfig));
+            digest.update(String.valueOf(imageId).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Unable to compute container configuration hash", e);
+        }
+    }
+
+    /**
+     * Id of running container labeled with given configuration hash or <code>null</code> if there is none.
+     */
+    static String findRunningContainer(DockerClient dockerClient, String configHash) throws DockerException, InterruptedException {
+        List<Container> containers = dockerClient.listContainers(
+                ListContainersParam.withLabel(REUSE_HASH_LABEL, configHash),
+                ListContainersParam.withStatusRunning());
+        return containers.isEmpty() ? null : containers.get(0).id();
+    }
+
+}
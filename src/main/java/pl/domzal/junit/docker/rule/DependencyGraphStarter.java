@@ -0,0 +1,150 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+/**
+ * Starts nodes of dependency graph concurrently - every node is started as soon as all
+ * nodes it depends on are started.
+ *
+ * @param <T> Node type.
+ */
+class DependencyGraphStarter<T> {
+
+    /**
+     * Action starting single node.
+     */
+    interface StartAction<T> {
+        void start(T node) throws Throwable;
+    }
+
+    private final Map<T, List<T>> dependencies = new LinkedHashMap<>();
+    private final Map<T, List<T>> dependents = new LinkedHashMap<>();
+
+    /**
+     * @param dependencies Graph nodes with nodes they depend on. Dependencies which are not graph nodes are ignored.
+     * @throws InvalidParameter When graph contains cycle.
+     */
+    DependencyGraphStarter(Map<T, ? extends Collection<T>> dependencies) {
+        for (T node : dependencies.keySet()) {
+            this.dependencies.put(node, new ArrayList<T>());
+            this.dependents.put(node, new ArrayList<T>());
+        }
+        for (Map.Entry<T, ? extends Collection<T>> entry : dependencies.entrySet()) {
+            for (T dependency : entry.getValue()) {
+                if (this.dependencies.containsKey(dependency) && !this.dependencies.get(entry.getKey()).contains(dependency)) {
+                    this.dependencies.get(entry.getKey()).add(dependency);
+                    this.dependents.get(dependency).add(entry.getKey());
+                }
+            }
+        }
+        List<T> notOrdered = new ArrayList<>(this.dependencies.keySet());
+        notOrdered.removeAll(startOrder());
+        if (!notOrdered.isEmpty()) {
+            throw new InvalidParameter(String.format("dependency cycle between %s", notOrdered));
+        }
+    }
+
+    /**
+     * Sequential start order (dependencies first), without nodes involved in cycles.
+     */
+    List<T> startOrder() {
+        Map<T, Integer> waitingFor = new LinkedHashMap<>();
+        List<T> order = new ArrayList<>();
+        for (Map.Entry<T, List<T>> entry : dependencies.entrySet()) {
+            waitingFor.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                order.add(entry.getKey());
+            }
+        }
+        for (int i = 0; i < order.size(); i++) {
+            for (T dependent : dependents.get(order.get(i))) {
+                if (decrement(waitingFor, dependent) == 0) {
+                    order.add(dependent);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Start all nodes. On first failure no more nodes are started, already running starts are completed.
+     *
+     * @param action Node start action.
+     * @param executor Executor to run start actions on.
+     * @param started Successfully started nodes, in start completion order (filled also when start fails).
+     * @throws Throwable First failure of start action (next ones are added as suppressed).
+     */
+    void start(final StartAction<T> action, ExecutorService executor, List<T> started) throws Throwable {
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        Map<T, Integer> waitingFor = new LinkedHashMap<>();
+        int running = 0;
+        for (Map.Entry<T, List<T>> entry : dependencies.entrySet()) {
+            waitingFor.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                submit(completionService, action, entry.getKey());
+                running++;
+            }
+        }
+        Throwable failure = null;
+        while (running > 0) {
+            Future<T> done = completionService.take();
+            running--;
+            try {
+                T node = done.get();
+                started.add(node);
+                if (failure == null) {
+                    for (T dependent : dependents.get(node)) {
+                        if (decrement(waitingFor, dependent) == 0) {
+                            submit(completionService, action, dependent);
+                            running++;
+                        }
+                    }
+                }
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static <T> int decrement(Map<T, Integer> counters, T key) {
+        int value = counters.get(key) - 1;
+        counters.put(key, value);
+        return value;
+    }
+
+    private void submit(CompletionService<T> completionService, final StartAction<T> action, final T node) {
+        completionService.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    action.start(node);
+                    return node;
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,254 @@
+package pl.domzal.junit.docker.rule;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.client.Client;
+
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.ObjectMapperProvider;
+import org.mandas.docker.client.builder.jersey.JerseyDockerClientBuilder;
+import org.mandas.docker.client.exceptions.DockerCertificateException;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.domzal.junit.docker.rule.stats.StatsObjectMapperProvider;
+
+/**
+ * Process wide registry of {@link DockerClient}s shared by {@link DockerRule} instances.
+ * <p>
+ * Clients are keyed by docker connection configuration (docker host uri and certificates location)
+ * so all rules talking to the same docker server share single client, its connection pool and
+ * result of server info/version probe (done only once, when client is created).
+ * <p>
+ * Rules have no defined end of life (rule may be started again after {@link DockerRule#after()}),
+ * so shared clients are process wide singletons - once created they live until JVM exits.
+ * {@link #client()} hands out view of shared client on which {@link DockerClient#close()} does nothing,
+ * so no user of shared client can close it under others.
+ */
+class DockerClientRegistry {
+
+    private static Logger log = LoggerFactory.getLogger(DockerClientRegistry.class);
+
+    /**
+     * Connection pool size of shared client. Every started rule holds one long running
+     * connection for log following plus short ones for regular api calls.
+     */
+    static final int SHARED_CONNECTION_POOL_SIZE = 128;
+
+    private static final DockerClientRegistry INSTANCE = new DockerClientRegistry(new EnvClientFactory());
+
+    /**
+     * Source of docker clients for registry.
+     */
+    interface ClientFactory {
+
+        /**
+         * Key identifying client configuration - clients with equal keys are shared.
+         *
+         * @param dockerUri Docker server uri or <code>null</code> for one configured by environment.
+         */
+        String key(URI dockerUri) throws DockerCertificateException;
+
+        /**
+         * Create new client for current configuration.
+         *
+         * @param dockerUri Docker server uri or <code>null</code> for one configured by environment.
+         */
+        DockerClient create(URI dockerUri) throws DockerCertificateException;
+    }
+
+    private final ClientFactory factory;
+    private final Map<String, SharedClient> clients = new HashMap<>();
+
+    DockerClientRegistry(ClientFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Process wide registry instance.
+     */
+    static DockerClientRegistry shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Shared client for current docker configuration.
+     *
+     * @return Client view - {@link DockerClient#close()} on returned instance does nothing.
+     */
+    DockerClient client() throws DockerCertificateException, DockerException, InterruptedException {
+        return client(null);
+    }
+
+    /**
+     * Shared client for given docker server.
+     *
+     * @param dockerUri Docker server uri or <code>null</code> for one configured by environment.
+     * @return Client view - {@link DockerClient#close()} on returned instance does nothing.
+     */
+    DockerClient client(URI dockerUri) throws DockerCertificateException, DockerException, InterruptedException {
+        String key = factory.key(dockerUri);
+        SharedClient sharedClient;
+        synchronized (this) {
+            sharedClient = clients.get(key);
+            if (sharedClient == null) {
+                sharedClient = new SharedClient(key, factory.create(dockerUri));
+                clients.put(key, sharedClient);
+                log.debug("shared docker client created for {}", key);
+            }
+        }
+        try {
+            sharedClient.probe();
+        } catch (DockerException | InterruptedException | RuntimeException e) {
+            discard(sharedClient);
+            throw e;
+        }
+        return unclosable(sharedClient);
+    }
+
+    /**
+     * Whether there is client registered under given key.
+     */
+    synchronized boolean contains(String key) {
+        return clients.containsKey(key);
+    }
+
+    /**
+     * Forget client of server which could not be probed (so next rule tries again with new client).
+     */
+    private void discard(SharedClient sharedClient) {
+        boolean close = false;
+        synchronized (this) {
+            if (clients.get(sharedClient.key) == sharedClient) {
+                clients.remove(sharedClient.key);
+                close = true;
+            }
+        }
+        if (close) {
+            log.debug("server probe failed, closing shared docker client for {}", sharedClient.key);
+            sharedClient.client.close();
+        }
+    }
+
+    private DockerClient unclosable(final SharedClient sharedClient) {
+        return (DockerClient) Proxy.newProxyInstance(DockerClient.class.getClassLoader(), new Class<?>[] { DockerClient.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return "shared " + sharedClient.client;
+                    }
+                }
+                if ("close".equals(method.getName()) && method.getParameterTypes().length == 0) {
+                    log.trace("close of shared docker client for {} ignored", sharedClient.key);
+                    return null;
+                }
+                try {
+                    return method.invoke(sharedClient.client, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private static class SharedClient {
+
+        private final String key;
+        private final DockerClient client;
+        private boolean probed = false;
+
+        SharedClient(String key, DockerClient client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        synchronized void probe() throws DockerException, InterruptedException {
+            if (!probed) {
+                log.debug("server.info: {}", client.info());
+                log.debug("server.version: {}", client.version());
+                probed = true;
+            }
+        }
+    }
+
+    /**
+     * Creates clients configured from environment (DOCKER_HOST, DOCKER_CERT_PATH, ...),
+     * docker host uri may be overridden.
+     */
+    private static class EnvClientFactory implements ClientFactory {
+
+        @Override
+        public String key(URI dockerUri) throws DockerCertificateException {
+            return builder(dockerUri).uri() + "|" + System.getenv("DOCKER_CERT_PATH");
+        }
+
+        @Override
+        public DockerClient create(URI dockerUri) throws DockerCertificateException {
+            return builder(dockerUri).connectionPoolSize(SHARED_CONNECTION_POOL_SIZE).build();
+        }
+    }
+
+    /**
+     * Client builder configured from environment, with docker host uri overridden if given.
+     */
+    static JerseyDockerClientBuilder builder(URI dockerUri) throws DockerCertificateException {
+        JerseyDockerClientBuilder builder = new StatsAwareClientBuilder().fromEnv();
+        if (dockerUri != null) {
+            builder.uri(dockerUri);
+        }
+        return builder;
+    }
+
+    /**
+     * Client builder which reads responses with mapper of {@link StatsObjectMapperProvider}
+     * instead of shared mapper of docker-client, so stats of containers on cgroup v2 hosts can be read.
+     */
+    private static class StatsAwareClientBuilder extends JerseyDockerClientBuilder {
+
+        @Override
+        protected Client createClient() {
+            return withStatsMapper(super.createClient());
+        }
+
+        @Override
+        protected Client createNoTimeoutClient() {
+            return withStatsMapper(super.createNoTimeoutClient());
+        }
+
+        /**
+         * Client view on which {@link #build()} registers stats aware mapper in place of {@link ObjectMapperProvider}
+         * (with both of them registered jersey would always pick the latter).
+         */
+        private static Client withStatsMapper(final Client client) {
+            return (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[] { Client.class }, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if ("register".equals(method.getName()) && args.length == 1 && args[0] == ObjectMapperProvider.class) {
+                        client.register(StatsObjectMapperProvider.class);
+                        return proxy;
+                    }
+                    try {
+                        Object result = method.invoke(client, args);
+                        return result == client ? proxy : result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            });
+        }
+    }
+
+}
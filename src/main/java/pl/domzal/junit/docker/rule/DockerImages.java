@@ -0,0 +1,143 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.exceptions.ImageNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process wide knowledge about images present on docker servers.
+ * <p>
+ * Image presence is checked with targeted image inspect and images confirmed to be present are
+ * remembered (per docker server), so image used by many rules is checked once. Images removed
+ * from docker server during test run are not noticed.
+ * <p>
+ * Pulls are single-flight - concurrent requests to make the same image present wait for single pull.
+ */
+class DockerImages {
+
+    private static Logger log = LoggerFactory.getLogger(DockerImages.class);
+
+    private static final DockerImages INSTANCE = new DockerImages();
+
+    private final Set<String> presentImages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ConcurrentMap<String, FutureTask<Void>> pullsInProgress = new ConcurrentHashMap<>();
+
+    DockerImages() {
+    }
+
+    /**
+     * Process wide instance.
+     */
+    static DockerImages shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Image reference with explicit tag (<code>latest</code> when not given).
+     */
+    static String withTag(String imageName) {
+        if (! StringUtils.contains(imageName, ':')) {
+            return imageName + ":latest";
+        } else {
+            return imageName;
+        }
+    }
+
+    /**
+     * Make sure image is present on docker server, pulling it when needed. When the same image
+     * is already being pulled (by another rule or by pre-pull) waits for that pull instead.
+     *
+     * @param imageNameWithTag Image reference (including tag).
+     * @param alwaysPull Pull even if image is present.
+     */
+    void ensurePresent(final DockerClient dockerClient, final String imageNameWithTag, final boolean alwaysPull) throws DockerException, InterruptedException {
+        if (!alwaysPull && isPresent(dockerClient, imageNameWithTag)) {
+            return;
+        }
+        String key = key(dockerClient, imageNameWithTag);
+        FutureTask<Void> pull = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (alwaysPull || !isPresent(dockerClient, imageNameWithTag)) {
+                    log.info("pulling image '{}'", imageNameWithTag);
+                    dockerClient.pull(imageNameWithTag);
+                    markPresent(dockerClient, imageNameWithTag);
+                    log.debug("image '{}' pulled", imageNameWithTag);
+                }
+                return null;
+            }
+        });
+        FutureTask<Void> pullInProgress = pullsInProgress.putIfAbsent(key, pull);
+        if (pullInProgress == null) {
+            try {
+                pull.run();
+            } finally {
+                pullsInProgress.remove(key, pull);
+            }
+            pullInProgress = pull;
+        } else {
+            log.debug("image '{}' is being pulled, waiting for pull to finish", imageNameWithTag);
+        }
+        try {
+            pullInProgress.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DockerException) {
+                throw (DockerException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Is image present on docker server.
+     *
+     * @param imageNameWithTag Image reference (including tag).
+     */
+    boolean isPresent(DockerClient dockerClient, String imageNameWithTag) throws DockerException, InterruptedException {
+        String key = key(dockerClient, imageNameWithTag);
+        if (presentImages.contains(key)) {
+            log.trace("image '{}' known to be present", imageNameWithTag);
+            return true;
+        }
+        try {
+            dockerClient.inspectImage(imageNameWithTag);
+        } catch (ImageNotFoundException e) {
+            log.debug("image '{}' not found", imageNameWithTag);
+            return false;
+        }
+        log.debug("image '{}' found", imageNameWithTag);
+        presentImages.add(key);
+        return true;
+    }
+
+    /**
+     * Remember image as present (after it was pulled).
+     */
+    void markPresent(DockerClient dockerClient, String imageNameWithTag) {
+        presentImages.add(key(dockerClient, imageNameWithTag));
+    }
+
+    private static String key(DockerClient dockerClient, String imageNameWithTag) {
+        return dockerClient.getHost() + "|" + imageNameWithTag;
+    }
+
+}
@@ -3,14 +3,16 @@ package pl.domzal.junit.docker.rule;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,42 +21,50 @@ import org.mandas.docker.client.DockerClient.LogsParam;
 import org.mandas.docker.client.LogStream;
 
 import pl.domzal.junit.docker.rule.logs.LogPrinter;
+import pl.domzal.junit.docker.rule.logs.LogRingBuffer;
 import pl.domzal.junit.docker.rule.logs.LogSplitter;
 import pl.domzal.junit.docker.rule.wait.LineListener;
 
 /**
  * Docker container log binding feature.
+ * <p>
+ * Log following and printing tasks are run on shared {@link LogExecutor}.
  */
 class DockerLogs implements Closeable {
 
     private static Logger log = LoggerFactory.getLogger(DockerLogs.class);
 
-    private static final int NO_OF_THREADS = 4;
     private static final int SHORT_ID_LEN = 12;
 
+    /**
+     * Time given to log tasks to print remaining logs on close, before they are cancelled [ms].
+     */
+    static final long CLOSE_GRACE_MS = 1000;
+
     private final DockerClient dockerClient;
     private final String containerId;
     private final LineListener lineListener;
+    private final ExecutorService executor;
 
     private PrintStream stdoutWriter = System.out;
     private PrintStream stderrWriter = System.err;
+    private int logBufferSize = LogRingBuffer.DEFAULT_CAPACITY;
+    private boolean logBufferOffHeap = false;
 
-    private final ThreadFactory threadFactory = new ThreadFactory() {
-        private final AtomicInteger id = new AtomicInteger(0);
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread t = new Thread(r, String.format("dockerlog-pool-%d", id.incrementAndGet()));
-            t.setDaemon(true);
-            return t;
-        }
-    };
-
-    private final ExecutorService executor = Executors.newFixedThreadPool(NO_OF_THREADS, threadFactory);
+    private final List<Future<?>> tasks = new ArrayList<>();
+    private LogSplitter logSplitter;
+    private LogStream logStream;
+    private boolean closed = false;
 
     DockerLogs(DockerClient dockerClient, String containerId, LineListener lineListener) {
+        this(dockerClient, containerId, lineListener, LogExecutor.shared());
+    }
+
+    DockerLogs(DockerClient dockerClient, String containerId, LineListener lineListener, ExecutorService executor) {
         this.dockerClient = dockerClient;
         this.containerId = containerId;
         this.lineListener = lineListener;
+        this.executor = executor;
     }
 
     void setStderrWriter(PrintStream stderrWriter) {
@@ -65,41 +75,149 @@ class DockerLogs implements Closeable {
         this.stdoutWriter = stdoutWriter;
     }
 
-    public void start() throws IOException, InterruptedException {
+    void setLogBuffer(int size, boolean offHeap) {
+        this.logBufferSize = size;
+        this.logBufferOffHeap = offHeap;
+    }
+
+    public synchronized void start() throws IOException, InterruptedException {
         final String containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
-        final LogSplitter logSplitter = new LogSplitter();
+        logSplitter = new LogSplitter(logBufferSize, logBufferOffHeap);
         if (lineListener != null) {
-            executor.submit(new LogPrinter("", logSplitter.getCombinedInput(), null, lineListener));
+            tasks.add(executor.submit(new LogPrinter("", logSplitter.getCombinedInput(), null, lineListener)));
         }
         if (stdoutWriter != null) {
-            executor.submit(new LogPrinter(containerShortId+"-stdout> ", logSplitter.getStdoutInput(), stdoutWriter, null));
+            tasks.add(executor.submit(new LogPrinter(containerShortId+"-stdout> ", logSplitter.getStdoutInput(), stdoutWriter, null)));
         }
         if (stderrWriter != null) {
-            executor.submit(new LogPrinter(containerShortId+"-stderr> ", logSplitter.getStderrInput(), stderrWriter, null));
+            tasks.add(executor.submit(new LogPrinter(containerShortId+"-stderr> ", logSplitter.getStderrInput(), stderrWriter, null)));
         }
-        executor.submit(new Callable<Void>() {
+        tasks.add(executor.submit(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
                 log.trace("{} attaching to logs", containerShortId);
+                ContainerEvents.Span span = ContainerEvents.shared().lifecycle("log attach", containerId, null);
+                boolean success = false;
                 try (LogStream logs = dockerClient.logs(containerId, LogsParam.stdout(), LogsParam.stderr(), LogsParam.follow())) {
-                    logs.attach(logSplitter.getStdoutOutput(), logSplitter.getStderrOutput());
+                    if (setLogStream(logs)) {
+                        logs.attach(logSplitter.getStdoutOutput(), logSplitter.getStderrOutput());
+                    }
+                    success = true;
                 } finally {
+                    setLogStream(null);
                     logSplitter.close();
+                    span.end(success);
                     log.trace("{} dettached from logs", containerShortId);
                 }
                 return null;
             }
-        });
+        }));
+    }
+
+    private synchronized boolean setLogStream(LogStream logStream) {
+        this.logStream = logStream;
+        return !closed;
     }
 
+    /**
+     * Wait till log of stopped container is fully processed (log stream ended and all lines passed
+     * to listener and writers). Log processing is not stopped when time runs out.
+     *
+     * @param timeoutMs Max wait time [ms].
+     * @return <code>true</code> if log was processed in given time.
+     */
+    boolean awaitProcessed(long timeoutMs) throws InterruptedException {
+        List<Future<?>> runningTasks;
+        synchronized (this) {
+            runningTasks = new ArrayList<>(tasks);
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (Future<?> task : runningTasks) {
+            try {
+                task.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | CancellationException e) {
+                log.debug("log task failed", e);
+            } catch (TimeoutException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop log processing. Tasks get {@link #CLOSE_GRACE_MS} to print logs
+     * of already stopped container, after that they are cancelled.
+     */
     @Override
     public void close() {
+        close(CLOSE_GRACE_MS);
+    }
+
+    /**
+     * Stop log processing of container left running - its log does not end,
+     * so tasks are cancelled at once.
+     */
+    void detach() {
+        close(0);
+    }
+
+    private void close(long graceMs) {
+        List<Future<?>> runningTasks;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            runningTasks = new ArrayList<>(tasks);
+        }
+        ContainerEvents.Span span = ContainerEvents.shared().lifecycle("log detach", containerId, null);
+        awaitAndCancel(runningTasks, graceMs);
+        span.end(true);
+    }
+
+    private void awaitAndCancel(List<Future<?>> runningTasks, long graceMs) {
+        long deadline = System.currentTimeMillis() + graceMs;
         try {
-            executor.awaitTermination(1, TimeUnit.SECONDS);
+            for (Future<?> task : runningTasks) {
+                try {
+                    task.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    log.debug("log task failed", e);
+                } catch (CancellationException | TimeoutException e) {
+                    break;
+                }
+            }
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             log.warn("interrupted", e);
         }
-        executor.shutdown();
+        cancel(runningTasks);
+    }
+
+    private void cancel(List<Future<?>> runningTasks) {
+        LogStream stream;
+        LogSplitter splitter;
+        synchronized (this) {
+            stream = logStream;
+            splitter = logSplitter;
+        }
+        if (stream != null) {
+            close(stream);
+        }
+        if (splitter != null) {
+            splitter.close();
+        }
+        for (Future<?> task : runningTasks) {
+            task.cancel(true);
+        }
+    }
+
+    private void close(LogStream stream) {
+        try {
+            stream.close();
+        } catch (IOException | RuntimeException e) {
+            log.trace("{} closing log stream failed", StringUtils.left(containerId, SHORT_ID_LEN), e);
+        }
     }
 
 }
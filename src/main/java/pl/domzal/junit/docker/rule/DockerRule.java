@@ -2,10 +2,8 @@ package pl.domzal.junit.docker.rule;
 
 import org.mandas.docker.client.DefaultDockerClient;
 import org.mandas.docker.client.DockerClient;
-import org.mandas.docker.client.DockerClient.ListImagesParam;
 import org.mandas.docker.client.DockerClient.LogsParam;
 import org.mandas.docker.client.LogStream;
-import org.mandas.docker.client.builder.jersey.JerseyDockerClientBuilder;
 import org.mandas.docker.client.exceptions.DockerCertificateException;
 import org.mandas.docker.client.exceptions.DockerException;
 import org.mandas.docker.client.exceptions.DockerRequestException;
@@ -15,12 +13,15 @@ import org.mandas.docker.client.messages.ContainerCreation;
 import org.mandas.docker.client.messages.ContainerInfo;
 import org.mandas.docker.client.messages.ContainerState;
 import org.mandas.docker.client.messages.HostConfig;
-import org.mandas.docker.client.messages.Image;
 import org.mandas.docker.client.messages.PortBinding;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -30,8 +31,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.domzal.junit.docker.rule.ex.ImagePullException;
 import pl.domzal.junit.docker.rule.ex.PortNotExposedException;
+import pl.domzal.junit.docker.rule.stats.ContainerStatsMonitor;
+import pl.domzal.junit.docker.rule.timing.Phase;
+import pl.domzal.junit.docker.rule.timing.PhaseTiming;
+import pl.domzal.junit.docker.rule.timing.TimingListener;
+import pl.domzal.junit.docker.rule.timing.TimingSummary;
 import pl.domzal.junit.docker.rule.wait.LineListener;
 import pl.domzal.junit.docker.rule.wait.LineListenerProxy;
+import pl.domzal.junit.docker.rule.wait.LogMatchListener;
+import pl.domzal.junit.docker.rule.wait.LogMatcher;
 import pl.domzal.junit.docker.rule.wait.LogChecker;
 import pl.domzal.junit.docker.rule.wait.StartCondition;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
@@ -68,19 +76,28 @@ public class DockerRule extends ExternalResource {
     private ContainerInfo containerInfo;
 
     private DockerLogs dockerLogs;
+    private LineListenerProxy lineListenerProxy;
 
-    private boolean isStarted = false;
+    private volatile boolean isStarted = false;
+
+    private final List<PhaseTiming> phaseTimings = new CopyOnWriteArrayList<>();
+    private final List<ContainerStatsMonitor> statsMonitors = new CopyOnWriteArrayList<>();
 
     DockerRule(DockerRuleBuilder builder) {
         this.builder = builder;
-        this.imageNameWithTag = imageNameWithTag(builder.imageName());
+        this.imageNameWithTag = DockerImages.withTag(builder.imageName());
         try {
-            dockerClient = new JerseyDockerClientBuilder().fromEnv().build();
-            log.debug("server.info: {}", dockerClient.info());
-            log.debug("server.version: {}", dockerClient.version());
-            if (builder.imageAlwaysPull() || ! imageAvaliable(dockerClient, imageNameWithTag)) {
-                dockerClient.pull(imageNameWithTag);
+            if (builder.sharedDockerClient()) {
+                dockerClient = DockerClientRegistry.shared().client(builder.dockerUri());
+            } else {
+                dockerClient = DockerClientRegistry.builder(builder.dockerUri()).build();
+                log.debug("server.info: {}", dockerClient.info());
+                log.debug("server.version: {}", dockerClient.version());
             }
+            OrphanReaper.shared().watch(dockerClient);
+            long pullStart = System.nanoTime();
+            DockerImages.shared().ensurePresent(dockerClient, imageNameWithTag, builder.imageAlwaysPull());
+            recordPhase(Phase.PULL, null, pullStart, false);
         } catch (ImageNotFoundException e) {
             throw new ImagePullException(String.format("Image '%s' not found", imageNameWithTag), e);
         } catch (DockerCertificateException | DockerException | InterruptedException e) {
@@ -102,6 +119,17 @@ public class DockerRule extends ExternalResource {
      */
     @Override
     public final void before() throws Throwable {
+        ContainerEvents.Span span = ContainerEvents.shared().lifecycle("before", null, imageNameWithTag);
+        boolean success = false;
+        try {
+            createAndStart();
+            success = true;
+        } finally {
+            span.container(getContainerId()).end(success);
+        }
+    }
+
+    private void createAndStart() throws Throwable {
         HostConfig.Builder hostConfigBuilder = HostConfig.builder()
                 .publishAllPorts(builder.publishAllPorts())//
                 .portBindings(builder.hostPortBindings())//
@@ -134,56 +162,98 @@ public class DockerRule extends ExternalResource {
         if (builder.entrypoint().length > 0) {
             containerConfigBuilder.entrypoint(this.builder.entrypoint());
         }
-        if (!builder.getLabels().isEmpty()) {
-            containerConfigBuilder.labels(builder.getLabels());
+        Map<String, String> labels = new HashMap<>(builder.getLabels());
+        if (!builder.reuseContainer() && !builder.stopOptions().contains(StopOption.KEEP)) {
+            // containers not meant to outlive test run are removed by orphan reaper if this JVM dies before after()
+            labels.putAll(OrphanReaper.sessionLabels());
+        }
+        if (!labels.isEmpty()) {
+            containerConfigBuilder.labels(labels);
         }
         if (builder.cmd().length > 0) {
             containerConfigBuilder.cmd(this.builder.cmd());
         }
         ContainerConfig containerConfig = containerConfigBuilder.build();
         try {
-            if (StringUtils.isNotBlank(this.builder.name())) {
+            awaitHeldResourcesReleased();
+            long createStart = System.nanoTime();
+            String reusableContainerId = null;
+            if (builder.reuseContainer()) {
+                String configHash = ContainerReuse.configHash(containerConfig, dockerClient.inspectImage(imageNameWithTag).id());
+                labels.put(ContainerReuse.REUSE_HASH_LABEL, configHash);
+                containerConfig = containerConfigBuilder.labels(labels).build();
+                reusableContainerId = ContainerReuse.findRunningContainer(dockerClient, configHash);
+            }
+            if (reusableContainerId != null) {
+                this.container = ContainerCreation.builder().id(reusableContainerId).build();
+            } else if (StringUtils.isNotBlank(this.builder.name())) {
                 this.container = dockerClient.createContainer(containerConfig, this.builder.name());
             } else {
                 this.container = dockerClient.createContainer(containerConfig);
             }
             try {
                 this.containerShortId = StringUtils.left(container.id(), SHORT_ID_LEN);
-                log.info("container {} created, id {}, short id {}", imageNameWithTag, container.id(),
-                        containerShortId);
-                log.debug("rule before {}", containerShortId);
-
-                dockerClient.startContainer(container.id());
-                log.debug("{} started", containerShortId);
+                recordPhase(Phase.CREATE, null, createStart, false);
+                if (reusableContainerId != null) {
+                    log.info("container {} reused, id {}, short id {}", imageNameWithTag, container.id(),
+                            containerShortId);
+                    log.debug("rule before {}", containerShortId);
+                } else {
+                    log.info("container {} created, id {}, short id {}", imageNameWithTag, container.id(),
+                            containerShortId);
+                    log.debug("rule before {}", containerShortId);
+
+                    long startStart = System.nanoTime();
+                    dockerClient.startContainer(container.id());
+                    recordPhase(Phase.START, null, startStart, false);
+                    log.debug("{} started", containerShortId);
+                }
                 try {
-                    LineListenerProxy proxyLineListener = new LineListenerProxy();
-                    attachLogs(dockerClient, container.id(), proxyLineListener);
-
+                    long inspectStart = System.nanoTime();
                     ContainerInfo containerInfo = dockerClient.inspectContainer(container.id());
                     containerIp = containerInfo.networkSettings().ipAddress();
                     containerPorts = containerInfo.networkSettings().ports();
                     containerGateway = containerInfo.networkSettings().gateway();
                     this.containerInfo = containerInfo;
+                    recordPhase(Phase.INSPECT, null, inspectStart, false);
+
+                    // conditions (ports resolved) are built and their log listeners registered before log is attached,
+                    // so they see every log line - not only limited history replayed to late listeners
+                    List<StartConditionCheck> conditions = buildWaitForConditions();
+                    LineListenerProxy proxyLineListener = new LineListenerProxy();
+                    List<LineListener> conditionLineListeners = registerConditionLineListeners(conditions, proxyLineListener);
+
+                    long attachStart = System.nanoTime();
+                    attachLogs(dockerClient, container.id(), proxyLineListener);
+                    this.lineListenerProxy = proxyLineListener;
+                    recordPhase(Phase.ATTACH, null, attachStart, false);
 
-                    executeWaitForConditions(proxyLineListener);
+                    executeWaitForConditions(conditions, conditionLineListeners, proxyLineListener);
                     logNetworkSettings();
 
                     isStarted = true;
                 } catch (DockerException | InterruptedException e) {
                     log.debug("aborting start of {}", containerShortId, e);
-                    try {
-                        dockerClient.stopContainer(container.id(), 1);
-                    } catch (DockerException | InterruptedException e2) {
-                        e.addSuppressed(e2);
+                    if (reusableContainerId == null) {
+                        try {
+                            dockerClient.stopContainer(container.id(), 1);
+                        } catch (DockerException | InterruptedException e2) {
+                            e.addSuppressed(e2);
+                        }
                     }
                     throw e;
                 }
             } catch (Throwable e) {
                 log.warn("{} startup failed", containerShortId, e);
+                if (reusableContainerId != null) {
+                    // container is shared with other runs - left as it was found
+                    detachLogs();
+                    log.info("{} left running for reuse", containerShortId);
+                    container = null;
+                    throw e;
+                }
                 try {
-                    if (dockerLogs != null) {
-                        dockerLogs.close();
-                    }
+                    closeLogs();
                     ContainerState state = dockerClient.inspectContainer(container.id()).state();
                     log.debug("{} state {}", containerShortId, state);
                     if (state.running()) {
@@ -218,6 +288,31 @@ public class DockerRule extends ExternalResource {
         return isStarted;
     }
 
+    private Set<String> heldResources() {
+        return ContainerReaper.heldResources(builder.name(), builder.staticHostPorts());
+    }
+
+    /**
+     * Wait till container name and static host ports are released by background teardown (if any).
+     */
+    private void awaitHeldResourcesReleased() throws InterruptedException {
+        Set<String> resources = heldResources();
+        if (!resources.isEmpty() && !ContainerReaper.shared().awaitReleased(resources, TimeUnit.SECONDS.toMillis(ContainerReaper.RELEASE_TIMEOUT_SECONDS))) {
+            log.warn("{} still held by background teardown after {}s, starting anyway", resources, ContainerReaper.RELEASE_TIMEOUT_SECONDS);
+        }
+    }
+
+    /**
+     * Rules this rule is dynamically linked to.
+     */
+    List<DockerRule> dynamicLinkTargets() {
+        List<DockerRule> targets = new ArrayList<>();
+        for (Pair<DockerRule,String> dynamicLink : builder.getDynamicLinks()) {
+            targets.add(dynamicLink.getKey());
+        }
+        return targets;
+    }
+
     private List<String> links() {
         List<String> resolvedLinks = new ArrayList<>();
         resolvedLinks.addAll(builder.staticLinks());
@@ -232,24 +327,68 @@ public class DockerRule extends ExternalResource {
         return resolvedLinks;
     }
 
-    private void executeWaitForConditions(LineListenerProxy proxyLineListener) throws TimeoutException {
+    private List<StartConditionCheck> buildWaitForConditions() {
         List<StartConditionCheck> conditions = new ArrayList<>();
         for (StartCondition conditionBuilder : builder.getWaitFor()) {
             conditions.add(conditionBuilder.build(this));
         }
-        registerConditionLineListeners(conditions, proxyLineListener);
+        return conditions;
+    }
+
+    private void executeWaitForConditions(List<StartConditionCheck> conditions, List<LineListener> conditionLineListeners, LineListenerProxy proxyLineListener) throws TimeoutException {
+        // container restarted by docker may still get ready - watch for exit only without restart policy
+        ContainerExitWatcher exitWatcher = null;
+        if (!conditions.isEmpty() && builder.restartPolicy() == null) {
+            exitWatcher = new ContainerExitWatcher(dockerClient, container.id(), describe(), dockerLogs);
+            exitWatcher.start();
+        }
         // execute waiting
-        for (StartConditionCheck condition : conditions) {
-            WaitForContainer.waitForCondition(condition, builder.waitForSeconds(), describe());
+        try {
+            WaitForContainer.waitForConditions(conditions, builder.waitForMode(), builder.waitForSeconds(), builder.waitForMinPollMillis(), builder.waitForMaxPollMillis(), describe(), new WaitForContainer.ConditionListener() {
+                @Override
+                public void conditionFinished(StartConditionCheck condition, long durationNanos, boolean met) {
+                    recordPhase(new PhaseTiming(imageNameWithTag, containerShortId, Phase.WAIT, condition.describe(), durationNanos, !met));
+                }
+            }, exitWatcher);
+        } finally {
+            if (exitWatcher != null) {
+                exitWatcher.close();
+            }
+            // conditions no longer need to scan log lines
+            for (LineListener listener : conditionLineListeners) {
+                proxyLineListener.remove(listener);
+            }
+            for (StartConditionCheck condition : conditions) {
+                try {
+                    condition.after();
+                } catch (RuntimeException e) {
+                    log.warn("{} cleanup after wait for {} failed", containerShortId, condition.describe(), e);
+                }
+            }
         }
     }
 
-    private void registerConditionLineListeners(List<StartConditionCheck> conditions, LineListenerProxy proxyLineListener) {
+    /**
+     * @return Listeners registered (to be removed when waiting ends).
+     */
+    private List<LineListener> registerConditionLineListeners(List<StartConditionCheck> conditions, LineListenerProxy proxyLineListener) {
+        List<LineListener> registered = new ArrayList<>();
+        List<LogMatchListener> logMatchListeners = new ArrayList<>();
         for (StartConditionCheck condition : conditions) {
-            if (condition instanceof LineListener) {
-                proxyLineListener.add((LineListener) condition);
+            if (condition instanceof LogMatchListener) {
+                logMatchListeners.add((LogMatchListener) condition);
+            } else if (condition instanceof LineListener) {
+                registered.add((LineListener) condition);
             }
         }
+        if (!logMatchListeners.isEmpty()) {
+            // all log patterns searched for in single scan of every line
+            registered.add(new LogMatcher(logMatchListeners));
+        }
+        for (LineListener listener : registered) {
+            proxyLineListener.add(listener);
+        }
+        return registered;
     }
 
     Integer findExternalPort(Integer internalPort) {
@@ -283,30 +422,10 @@ public class DockerRule extends ExternalResource {
         if (builder.stderrWriter()!=null) {
             dockerLogs.setStderrWriter(builder.stderrWriter());
         }
+        dockerLogs.setLogBuffer(builder.logBufferSize(), builder.logBufferOffHeap());
         dockerLogs.start();
     }
 
-    private boolean imageAvaliable(DockerClient dockerClient, String imageName) throws DockerException, InterruptedException {
-        String imageNameWithTag = imageNameWithTag(imageName);
-        List<Image> listImages = dockerClient.listImages(ListImagesParam.danglingImages(false));
-        for (Image image : listImages) {
-            if (image.repoTags() != null && image.repoTags().contains(imageNameWithTag)) {
-                log.debug("image '{}' found", imageNameWithTag);
-                return true;
-            }
-        }
-        log.debug("image '{}' not found", imageNameWithTag);
-        return false;
-    }
-
-    private String imageNameWithTag(String imageName) {
-        if (! StringUtils.contains(imageName, ':')) {
-            return imageName + ":latest";
-        } else {
-            return imageName;
-        }
-    }
-
     /**
      * Stop and remove container.<br/>
      * This is {@link ExternalResource#before()} made available as public - it may be helpful in scenarios
@@ -314,13 +433,34 @@ public class DockerRule extends ExternalResource {
      */
     @Override
     public final void after() {
+        ContainerEvents.Span span = ContainerEvents.shared().lifecycle("after", getContainerId(), imageNameWithTag);
+        boolean success = false;
+        try {
+            stopAndRemove();
+            success = true;
+        } finally {
+            span.end(success);
+        }
+    }
+
+    private void stopAndRemove() {
         log.debug("after {}", containerShortId);
+        closeStatsMonitors();
+        if (builder.reuseContainer() && isStarted) {
+            detachLogs();
+            log.info("{} left running for reuse", containerShortId);
+            return;
+        }
+        if (container != null && builder.stopOptions().contains(StopOption.ASYNC)) {
+            submitAsyncTeardown();
+            return;
+        }
         try {
-            dockerLogs.close();
             if (container != null) {
                 ContainerState state = dockerClient.inspectContainer(container.id()).state();
                 log.debug("{} state {}", containerShortId, state);
                 if (state.running()) {
+                    long stopStart = System.nanoTime();
                     if (builder.stopOptions().contains(StopOption.KILL)) {
                         dockerClient.killContainer(container.id());
                         log.info("{} killed", containerShortId);
@@ -328,15 +468,116 @@ public class DockerRule extends ExternalResource {
                         dockerClient.stopContainer(container.id(), STOP_TIMEOUT);
                         log.info("{} stopped", containerShortId);
                     }
+                    recordPhase(Phase.STOP, null, stopStart, false);
                 }
+                closeLogs();
                 if (builder.stopOptions().contains(StopOption.REMOVE)) {
+                    long removeStart = System.nanoTime();
                     dockerClient.removeContainer(container.id(), DockerClient.RemoveContainerParam.removeVolumes());
+                    recordPhase(Phase.REMOVE, null, removeStart, false);
                     log.info("{} deleted", containerShortId);
                     container = null;
                 }
             }
         } catch (DockerException | InterruptedException e) {
             throw new IllegalStateException(e);
+        } finally {
+            closeLogs();
+        }
+    }
+
+    private void recordPhase(Phase phase, String detail, long startNanos, boolean failed) {
+        recordPhase(new PhaseTiming(imageNameWithTag, containerShortId, phase, detail, System.nanoTime() - startNanos, failed));
+    }
+
+    private void recordPhase(PhaseTiming timing) {
+        log.debug("phase timing: {}", timing);
+        phaseTimings.add(timing);
+        List<TimingListener> listeners = new ArrayList<>(builder.timingListeners());
+        TimingSummary jvmSummary = TimingSummary.jvmSummary();
+        if (jvmSummary != null) {
+            listeners.add(jvmSummary);
+        }
+        for (TimingListener listener : listeners) {
+            try {
+                listener.phaseFinished(timing);
+            } catch (RuntimeException e) {
+                log.warn("timing listener {} failed", listener, e);
+            }
+        }
+    }
+
+    /**
+     * Timings of container lifecycle phases so far (image pull, create, start, log attach, inspect,
+     * each wait condition, stop and remove) in order they ended.
+     * Phases of background teardown ({@link StopOption#ASYNC}) are not timed.
+     */
+    public List<PhaseTiming> getPhaseTimings() {
+        return new ArrayList<>(phaseTimings);
+    }
+
+    private void submitAsyncTeardown() {
+        final DockerLogs logs = dockerLogs;
+        boolean remove = builder.stopOptions().contains(StopOption.REMOVE);
+        ContainerReaper.shared().submit(new ContainerReaper.Teardown(dockerClient, container.id(),
+                builder.stopOptions().contains(StopOption.KILL), STOP_TIMEOUT, remove, heldResources(), new Runnable() {
+            @Override
+            public void run() {
+                if (logs != null) {
+                    logs.close();
+                }
+            }
+        }));
+        log.info("{} queued for background teardown", containerShortId);
+        if (remove) {
+            container = null;
+        }
+    }
+
+    /**
+     * Start background sampling of container resource usage (sample every {@link ContainerStatsMonitor#DEFAULT_INTERVAL_MILLIS}).
+     * Monitor is closed at rule end.
+     */
+    public ContainerStatsMonitor startStatsMonitor() {
+        return startStatsMonitor(ContainerStatsMonitor.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Start background sampling of container resource usage. Monitor is closed at rule end.
+     *
+     * @param intervalMillis Time between samples [ms].
+     */
+    public ContainerStatsMonitor startStatsMonitor(int intervalMillis) {
+        if (container == null) {
+            throw new IllegalStateException("stats are available only for created container");
+        }
+        ContainerStatsMonitor monitor = new ContainerStatsMonitor(dockerClient, container.id(), intervalMillis);
+        statsMonitors.add(monitor);
+        return monitor.start();
+    }
+
+    private void closeStatsMonitors() {
+        for (ContainerStatsMonitor monitor : statsMonitors) {
+            monitor.close();
+        }
+        statsMonitors.clear();
+    }
+
+    /**
+     * Stop log processing (after container was stopped, so its last logs get printed).
+     */
+    private void closeLogs() {
+        if (dockerLogs != null) {
+            dockerLogs.close();
+        }
+    }
+
+    /**
+     * Stop log processing of container left running.
+     */
+    private void detachLogs() {
+        if (dockerLogs != null) {
+            dockerLogs.detach();
         }
     }
 
@@ -410,7 +651,18 @@ public class DockerRule extends ExternalResource {
      * @throws TimeoutException On wait timeout.
      */
     public void waitForLogMessage(final String logSearchString, int waitTime) throws TimeoutException {
-        WaitForContainer.waitForCondition(new LogChecker(this, logSearchString), waitTime, describe());
+        if (lineListenerProxy != null && !lineListenerProxy.isHistoryTruncated()) {
+            LogChecker logChecker = new LogChecker(logSearchString);
+            lineListenerProxy.add(logChecker);
+            try {
+                WaitForContainer.waitForCondition(logChecker, waitTime, builder.waitForMinPollMillis(), builder.waitForMaxPollMillis(), describe());
+            } finally {
+                lineListenerProxy.remove(logChecker);
+            }
+        } else {
+            // followed log is not available or some lines are already gone from its history - search full log instead
+            WaitForContainer.waitForCondition(new LogChecker(this, logSearchString), waitTime, builder.waitForMinPollMillis(), builder.waitForMaxPollMillis(), describe());
+        }
     }
 
     /**
@@ -458,6 +710,9 @@ public class DockerRule extends ExternalResource {
 
     /**
      * {@link DockerClient} for direct container manipulation.
+     * <p>
+     * Unless disabled with {@link DockerRuleBuilder#sharedDockerClient(boolean)} client is shared
+     * with other rules for the whole JVM lifetime - calling {@link DockerClient#close()} on it does nothing.
      */
     public DockerClient getDockerClient() {
         return dockerClient;
@@ -3,6 +3,7 @@ package pl.domzal.junit.docker.rule;
 import org.mandas.docker.client.messages.HostConfig;
 import java.io.File;
 import java.io.PrintStream;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -16,7 +17,10 @@ import org.junit.rules.RuleChain;
 
 import org.mandas.docker.client.messages.PortBinding;
 
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
 import pl.domzal.junit.docker.rule.ex.InvalidVolumeFrom;
+import pl.domzal.junit.docker.rule.logs.LogRingBuffer;
+import pl.domzal.junit.docker.rule.timing.TimingListener;
 import pl.domzal.junit.docker.rule.wait.StartCondition;
 
 public class DockerRuleBuilder {
@@ -37,8 +41,14 @@ public class DockerRuleBuilder {
     private String[] cmd;
     private String[] extraHosts;
     private boolean imageAlwaysPull = false;
+    private boolean sharedDockerClient = true;
+    private URI dockerUri;
+    private boolean reuseContainer = false;
     private PrintStream stdoutWriter;
     private PrintStream stderrWriter;
+    private int logBufferSize = LogRingBuffer.DEFAULT_CAPACITY;
+    private boolean logBufferOffHeap = false;
+    private List<TimingListener> timingListeners = new ArrayList<>();
     private Long memory;
     private Long memoryReservation;
     private Long memorySwap;
@@ -46,6 +56,9 @@ public class DockerRuleBuilder {
 
     private List<StartCondition> waitConditions = new ArrayList<>();
     private int waitForSeconds = WAIT_FOR_DEFAULT_SECONDS;
+    private int waitForMinPollMillis = WaitForContainer.DEFAULT_MIN_POLL_MS;
+    private int waitForMaxPollMillis = WaitForContainer.DEFAULT_MAX_POLL_MS;
+    private WaitForMode waitForMode = WaitForMode.SEQUENTIAL;
 
     private StopOption.StopOptionSet stopOptions = new StopOption.StopOptionSet();
 
@@ -174,6 +187,53 @@ public class DockerRuleBuilder {
         return imageAlwaysPull;
     }
 
+    /**
+     * Reuse running container of identical configuration instead of creating new one (disabled by default).
+     * <p>
+     * Container is labeled with hash of its configuration (container and host config, image id).
+     * On start rule looks for running container with the same hash - created by this or any previous
+     * test run - and attaches to it. Wait conditions are still checked (against reused container).
+     * At rule end container is <b>left running</b> regardless of {@link #stopOptions(StopOption...)},
+     * unless it was created by this rule and failed to start (reused one is never stopped).
+     * Reused containers have to be removed manually.
+     */
+    public DockerRuleBuilder reuseContainer(boolean reuseContainer) {
+        this.reuseContainer = reuseContainer;
+        return this;
+    }
+    boolean reuseContainer() {
+        return reuseContainer;
+    }
+
+    /**
+     * Use process wide {@link org.mandas.docker.client.DockerClient} shared by all rules
+     * connecting to the same docker server (enabled by default). Disable to make rule
+     * create its own dedicated client.
+     * <p>
+     * Shared client is created by first rule using it and lives until JVM exits
+     * ({@link org.mandas.docker.client.DockerClient#close()} of shared client does nothing).
+     */
+    public DockerRuleBuilder sharedDockerClient(boolean sharedDockerClient) {
+        this.sharedDockerClient = sharedDockerClient;
+        return this;
+    }
+    boolean sharedDockerClient() {
+        return sharedDockerClient;
+    }
+
+    /**
+     * Docker server to use instead of one configured by environment (<code>DOCKER_HOST</code>),
+     * like <code>unix:///var/run/docker.sock</code> or <code>http://127.0.0.1:2375</code>.
+     * Other client settings (certificates, api version) are still taken from environment.
+     */
+    public DockerRuleBuilder dockerUri(String dockerUri) {
+        this.dockerUri = URI.create(dockerUri);
+        return this;
+    }
+    URI dockerUri() {
+        return dockerUri;
+    }
+
     /**
      * Docker volume OR host directory to be mounted into container.<br/>
      * Please note that in case of host folder and boot2docker environments (OSX or Windows)
@@ -251,6 +311,20 @@ public class DockerRuleBuilder {
     Map<String, List<PortBinding>> hostPortBindings() {
         return Collections.unmodifiableMap(exposeBuilder.hostBindings());
     }
+    boolean hasStaticHostPorts() {
+        return !staticHostPorts().isEmpty();
+    }
+    List<String> staticHostPorts() {
+        List<String> hostPorts = new ArrayList<>();
+        for (List<PortBinding> bindings : exposeBuilder.hostBindings().values()) {
+            for (PortBinding binding : bindings) {
+                if (StringUtils.isNotEmpty(binding.hostPort())) {
+                    hostPorts.add(binding.hostPort());
+                }
+            }
+        }
+        return hostPorts;
+    }
     Set<String> containerExposedPorts() {
         return exposeBuilder.containerExposedPorts();
     }
@@ -277,6 +351,47 @@ public class DockerRuleBuilder {
         return stderrWriter;
     }
 
+    /**
+     * Size of buffer container logs are passed through to log printers and log listeners
+     * (default {@link LogRingBuffer#DEFAULT_CAPACITY}). Log following waits when slowest
+     * of consumers stays whole buffer behind.
+     *
+     * @param bytes Buffer size [bytes].
+     */
+    public DockerRuleBuilder logBufferSize(int bytes) {
+        if (bytes < 1024) {
+            throw new InvalidParameter(String.format("log buffer size too small: %d bytes (min 1024)", bytes));
+        }
+        this.logBufferSize = bytes;
+        return this;
+    }
+    int logBufferSize() {
+        return logBufferSize;
+    }
+
+    /**
+     * Allocate container log buffer outside of java heap (disabled by default).
+     */
+    public DockerRuleBuilder logBufferOffHeap(boolean logBufferOffHeap) {
+        this.logBufferOffHeap = logBufferOffHeap;
+        return this;
+    }
+    boolean logBufferOffHeap() {
+        return logBufferOffHeap;
+    }
+
+    /**
+     * Add listener of container lifecycle phase timings (call multiple times to add more than one).
+     * Timings are available also after start with {@link DockerRule#getPhaseTimings()}.
+     */
+    public DockerRuleBuilder timingListener(TimingListener timingListener) {
+        this.timingListeners.add(timingListener);
+        return this;
+    }
+    List<TimingListener> timingListeners() {
+        return Collections.unmodifiableList(timingListeners);
+    }
+
     /**
      * Enable / disable publishing all container ports to dynamically
      * allocated host ports. Publishing is enabled by default.
@@ -357,6 +472,8 @@ public class DockerRuleBuilder {
      *     public RuleChain containers = RuleChain.outerRule(db).around(web);
      *
      * </pre>
+     * To start independent containers concurrently (in order derived from dynamic links)
+     * use {@link DockerRuleGroup} instead.
      *
      * @param targetContainer Container link points to
      * @param alias Alias assinged to link in current container
@@ -385,7 +502,8 @@ public class DockerRuleBuilder {
 
     /**
      * Make rule to wait for specified condition. Can be used multiple times
-     * and in this case conditions are checked in definiction's order.
+     * and in this case conditions are checked in definiction's order (unless
+     * changed with {@link #waitForMode(WaitForMode)}).
      * <p>
      * To define custom startup conditions one should supply {@link StartCondition}
      * instance as method argument. Predefined set of conditions are available
@@ -463,6 +581,49 @@ public class DockerRuleBuilder {
         return this;
     }
 
+    /**
+     * Define how multiple wait conditions are evaluated. By default ({@link WaitForMode#SEQUENTIAL})
+     * conditions are waited for one after another and each one gets full wait timeout.
+     * With {@link WaitForMode#ALL} or {@link WaitForMode#ANY} conditions are checked concurrently
+     * against single, shared timeout - so startup takes as long as slowest (or fastest) condition
+     * instead of sum of all of them.
+     *
+     * @param waitForMode Conditions evaluation mode.
+     */
+    public DockerRuleBuilder waitForMode(WaitForMode waitForMode) {
+        this.waitForMode = waitForMode;
+        return this;
+    }
+    WaitForMode waitForMode() {
+        return waitForMode;
+    }
+
+    /**
+     * Set interval of wait condition checks. Conditions signaling when they are met
+     * (like log message conditions) end waiting immediately, remaining ones are checked
+     * first after <code>minMillis</code> and then with interval doubled after every check
+     * up to <code>maxMillis</code>.
+     * By default interval grows from {@value WaitForContainer#DEFAULT_MIN_POLL_MS}ms
+     * to {@value WaitForContainer#DEFAULT_MAX_POLL_MS}ms.
+     *
+     * @param minMillis Time between first checks [ms].
+     * @param maxMillis Max time between checks [ms].
+     */
+    public DockerRuleBuilder waitForPollInterval(int minMillis, int maxMillis) {
+        if (minMillis <= 0 || maxMillis < minMillis) {
+            throw new InvalidParameter(String.format("invalid poll interval: min %dms, max %dms", minMillis, maxMillis));
+        }
+        this.waitForMinPollMillis = minMillis;
+        this.waitForMaxPollMillis = maxMillis;
+        return this;
+    }
+    int waitForMinPollMillis() {
+        return waitForMinPollMillis;
+    }
+    int waitForMaxPollMillis() {
+        return waitForMaxPollMillis;
+    }
+
     /**
      * Container stopping behavior. By default container are stopped
      * ({@link StopOption#STOP}) and removed ({@link StopOption#REMOVE}).
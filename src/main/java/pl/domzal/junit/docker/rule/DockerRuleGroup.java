@@ -0,0 +1,141 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.rules.ExternalResource;
+import org.junit.rules.RuleChain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group of containers started concurrently, in order required by their dynamic links
+ * (see {@link DockerRuleBuilder#link(DockerRule, String)}) - each container is started
+ * as soon as all containers it links to are started. Containers are stopped in reverse order.
+ * <p>
+ * Alternative to {@link RuleChain} which starts containers one by one:
+ * <pre>
+ *     DockerRule db = DockerRule.builder()...build();
+ *     DockerRule cache = DockerRule.builder()...build();
+ *     DockerRule web = DockerRule.builder().link(db, "db").link(cache, "cache")...build();
+ *
+ *     {@literal @}ClassRule
+ *     public static DockerRuleGroup containers = DockerRuleGroup.of(web, db, cache);
+ * </pre>
+ * Here <code>db</code> and <code>cache</code> are started together and <code>web</code> after both of them.
+ * Linked containers not belonging to group must be started before group.
+ */
+public class DockerRuleGroup extends ExternalResource {
+
+    private static Logger log = LoggerFactory.getLogger(DockerRuleGroup.class);
+
+    private final List<DockerRule> rules;
+    private final DependencyGraphStarter<DockerRule> graph;
+
+    private final List<DockerRule> started = new CopyOnWriteArrayList<>();
+
+    private DockerRuleGroup(List<DockerRule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        Map<DockerRule, List<DockerRule>> dependencies = new LinkedHashMap<>();
+        for (DockerRule rule : rules) {
+            dependencies.put(rule, rule.dynamicLinkTargets());
+        }
+        this.graph = new DependencyGraphStarter<>(dependencies);
+    }
+
+    /**
+     * Create group of given containers.
+     */
+    public static DockerRuleGroup of(DockerRule... rules) {
+        return of(Arrays.asList(rules));
+    }
+
+    /**
+     * Create group of given containers.
+     */
+    public static DockerRuleGroup of(Collection<DockerRule> rules) {
+        return new DockerRuleGroup(new ArrayList<>(rules));
+    }
+
+    /**
+     * Containers of group.
+     */
+    public List<DockerRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Start all containers.<br/>
+     * This is {@link ExternalResource#before()} made available as public - it may be helpful in scenarios
+     * when you want to use {@link DockerRuleGroup} and operate it manually.
+     * When any container fails to start already started ones are stopped.
+     */
+    @Override
+    public void before() throws Throwable {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, rules.size()), new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger(0);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format("dockergroup-%d", id.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            graph.start(new DependencyGraphStarter.StartAction<DockerRule>() {
+                @Override
+                public void start(DockerRule rule) throws Throwable {
+                    rule.before();
+                }
+            }, executor, started);
+        } catch (Throwable e) {
+            log.warn("container group startup failed, stopping {} started containers", started.size());
+            try {
+                after();
+            } catch (RuntimeException e2) {
+                e.addSuppressed(e2);
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stop all containers (in reverse start order).<br/>
+     * This is {@link ExternalResource#after()} made available as public - it may be helpful in scenarios
+     * when you want to use {@link DockerRuleGroup} and operate it manually.
+     */
+    @Override
+    public void after() {
+        List<DockerRule> toStop = new ArrayList<>(started);
+        started.clear();
+        Collections.reverse(toStop);
+        RuntimeException failure = null;
+        for (DockerRule rule : toStop) {
+            try {
+                rule.after();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
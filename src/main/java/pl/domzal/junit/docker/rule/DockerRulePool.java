@@ -0,0 +1,255 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.rules.ExternalResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+/**
+ * Pool of pre-started containers of single configuration, for tests requiring fresh container
+ * for every test method but not willing to wait for container start each time.
+ * <p>
+ * Pool keeps given number of spare containers started (and ready - with all wait conditions met)
+ * in background. Each {@link #rule()} takes one of them at start and uses it exclusively
+ * - spare is replaced with new one as soon as it is taken, while test is running.
+ * At end container taken by rule is stopped and removed as usual.
+ * <pre>
+ * &#64;ClassRule
+ * public static DockerRulePool pool = DockerRulePool.create(DockerRule.builder().imageName("nginx"), 2);
+ *
+ * &#64;Rule
+ * public DockerRulePool.PooledRule container = pool.rule();
+ *
+ * &#64;Test
+ * public void test() {
+ *     String port = container.get().getExposedContainerPort("80");
+ *     ...
+ * }
+ * </pre>
+ * Since containers are created multiple times from the same builder, builder cannot define
+ * container name, static host ports or container reuse.
+ */
+public class DockerRulePool extends ExternalResource {
+
+    private static Logger log = LoggerFactory.getLogger(DockerRulePool.class);
+
+    /**
+     * Starts and stops pooled containers.
+     */
+    interface Starter {
+
+        DockerRule start() throws Throwable;
+
+        void stop(DockerRule rule);
+    }
+
+    private final Starter starter;
+    private final int spares;
+
+    private final Deque<Future<DockerRule>> started = new ArrayDeque<>();
+    private ExecutorService executor;
+
+    DockerRulePool(Starter starter, int spares) {
+        if (spares < 1) {
+            throw new InvalidParameter(String.format("pool needs at least one spare container, was: %d", spares));
+        }
+        this.starter = starter;
+        this.spares = spares;
+    }
+
+    /**
+     * Create pool.
+     *
+     * @param builder Pooled containers configuration.
+     * @param spares Number of containers kept started in background.
+     */
+    public static DockerRulePool create(final DockerRuleBuilder builder, int spares) {
+        if (StringUtils.isNotBlank(builder.name())) {
+            throw new InvalidParameter(String.format("pooled container cannot be named (name: '%s')", builder.name()));
+        }
+        if (builder.hasStaticHostPorts()) {
+            throw new InvalidParameter("pooled container cannot bind static host ports");
+        }
+        if (builder.reuseContainer()) {
+            throw new InvalidParameter("pooled container cannot be reused");
+        }
+        return new DockerRulePool(new Starter() {
+            @Override
+            public DockerRule start() throws Throwable {
+                DockerRule rule = builder.build();
+                rule.before();
+                return rule;
+            }
+            @Override
+            public void stop(DockerRule rule) {
+                rule.after();
+            }
+        }, spares);
+    }
+
+    /**
+     * Start spare containers (in background).<br/>
+     * This is {@link ExternalResource#before()} made available as public - it may be helpful in scenarios
+     * when you want to use {@link DockerRulePool} and operate it manually.
+     */
+    @Override
+    public synchronized void before() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(spares, new ThreadFactory() {
+                private final AtomicInteger id = new AtomicInteger(0);
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, String.format("dockerpool-%d", id.incrementAndGet()));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            while (started.size() < spares) {
+                startSpare();
+            }
+        }
+    }
+
+    /**
+     * Stop spare containers.<br/>
+     * This is {@link ExternalResource#after()} made available as public - it may be helpful in scenarios
+     * when you want to use {@link DockerRulePool} and operate it manually.
+     */
+    @Override
+    public void after() {
+        List<Future<DockerRule>> toStop;
+        synchronized (this) {
+            if (executor == null) {
+                return;
+            }
+            toStop = new ArrayList<>(started);
+            started.clear();
+            executor.shutdown();
+            executor = null;
+        }
+        for (Future<DockerRule> spare : toStop) {
+            try {
+                starter.stop(spare.get());
+            } catch (ExecutionException e) {
+                log.debug("spare container failed to start", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("interrupted while stopping spare containers", e);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("unable to stop spare container", e);
+            }
+        }
+    }
+
+    /**
+     * Rule taking container from pool for duration of single test.
+     */
+    public PooledRule rule() {
+        return new PooledRule();
+    }
+
+    /**
+     * Take started container from pool (starting new spare in its place).
+     * Blocks until container is ready.
+     * Container has to be returned with {@link #release(DockerRule)}.
+     */
+    public DockerRule take() {
+        Future<DockerRule> next;
+        synchronized (this) {
+            before();
+            next = started.removeFirst();
+            startSpare();
+        }
+        try {
+            return next.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for pooled container", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("pooled container failed to start", cause);
+        }
+    }
+
+    /**
+     * Stop and remove container taken with {@link #take()}.
+     */
+    public void release(DockerRule rule) {
+        starter.stop(rule);
+    }
+
+    /**
+     * Number of spare containers (started or starting).
+     */
+    synchronized int spareCount() {
+        return started.size();
+    }
+
+    private void startSpare() {
+        started.addLast(executor.submit(new Callable<DockerRule>() {
+            @Override
+            public DockerRule call() throws Exception {
+                try {
+                    return starter.start();
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Rule holding container taken from pool for duration of test.
+     */
+    public class PooledRule extends ExternalResource {
+
+        private DockerRule rule;
+
+        @Override
+        protected void before() {
+            rule = take();
+        }
+
+        @Override
+        protected void after() {
+            if (rule != null) {
+                DockerRule current = rule;
+                rule = null;
+                release(current);
+            }
+        }
+
+        /**
+         * Container taken from pool.
+         */
+        public DockerRule get() {
+            if (rule == null) {
+                throw new IllegalStateException("pooled container is available only during test");
+            }
+            return rule;
+        }
+    }
+
+}
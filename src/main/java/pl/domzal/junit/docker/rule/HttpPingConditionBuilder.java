@@ -0,0 +1,114 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.domzal.junit.docker.rule.wait.HttpPingChecker;
+import pl.domzal.junit.docker.rule.wait.StartCondition;
+import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
+
+/**
+ * Builder of http endpoint availability wait condition (see {@link WaitFor#httpPingBuilder(int)}).
+ * <pre>
+ * .waitFor(WaitFor.httpPingBuilder(8080)
+ *         .path("/health")
+ *         .header("Accept", "application/json")
+ *         .expectedBody("\"status\":\"UP\"")
+ *         .build())
+ * </pre>
+ */
+public class HttpPingConditionBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpPingConditionBuilder.class);
+
+    private final int internalHttpPort;
+    private String path = "/";
+    private String method;
+    private String statusPattern;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private String expectedBody;
+    private int pollIntervalMillis = 0;
+
+    HttpPingConditionBuilder(int internalHttpPort) {
+        this.internalHttpPort = internalHttpPort;
+    }
+
+    /**
+     * Path (with query, if needed) of pinged url (<code>/</code> by default).
+     */
+    public HttpPingConditionBuilder path(String path) {
+        this.path = StringUtils.prependIfMissing(path, "/");
+        return this;
+    }
+
+    /**
+     * Http method (<code>HEAD</code> by default or <code>GET</code> when {@link #expectedBody(String)} is set).
+     */
+    public HttpPingConditionBuilder method(String method) {
+        this.method = method;
+        return this;
+    }
+
+    /**
+     * Accepted status code(s) - single number ("200") or status range ("200..302"),
+     * {@value HttpPingChecker#DEFAULT_MIN_STATUS}..{@value HttpPingChecker#DEFAULT_MAX_STATUS} by default.
+     */
+    public HttpPingConditionBuilder status(String statusPattern) {
+        this.statusPattern = statusPattern;
+        return this;
+    }
+
+    /**
+     * Header sent with every request.
+     */
+    public HttpPingConditionBuilder header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Text response body must contain.
+     */
+    public HttpPingConditionBuilder expectedBody(String expectedBody) {
+        this.expectedBody = expectedBody;
+        return this;
+    }
+
+    /**
+     * Fixed time between checks [ms] instead of rule poll intervals
+     * (see {@link DockerRuleBuilder#waitForPollInterval(int, int)}).
+     */
+    public HttpPingConditionBuilder pollInterval(int pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+        return this;
+    }
+
+    public StartCondition build() {
+        final String path = this.path;
+        final String method = this.method != null ? this.method : (expectedBody != null ? "GET" : null);
+        final String statusPattern = this.statusPattern;
+        final Map<String, String> headers = new LinkedHashMap<>(this.headers);
+        final String expectedBody = this.expectedBody;
+        final int pollIntervalMillis = this.pollIntervalMillis;
+        return new StartCondition() {
+            @Override
+            public StartConditionCheck build(DockerRule currentRule) {
+                String exposedPort = currentRule.getExposedContainerPort(Integer.toString(internalHttpPort));
+                String pingUrl = String.format("http://%s:%s%s", currentRule.getDockerHost(), exposedPort, path);
+                log.debug("new wait for condition - http ping port: {}, url: '{}'", internalHttpPort, pingUrl);
+                HttpPingChecker checker = new HttpPingChecker(pingUrl, method, statusPattern)
+                        .expectedBody(expectedBody)
+                        .pollInterval(pollIntervalMillis);
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    checker.header(header.getKey(), header.getValue());
+                }
+                return checker;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,172 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.rules.ExternalResource;
+import org.mandas.docker.client.DockerClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.domzal.junit.docker.rule.ex.ImagePullException;
+
+/**
+ * Concurrent pull of images used by test run, started as soon as instance is created.
+ * <p>
+ * Images are deduplicated and pulled with bounded parallelism (default {@value #DEFAULT_PARALLELISM}
+ * pulls at once, see {@value #PARALLELISM_PROPERTY} system property). Rules created while pull of
+ * their image is in progress wait for this pull instead of pulling image on their own.
+ * <p>
+ * Use as class rule declared <b>before</b> rules using pulled images - pulling starts when class is
+ * initialized and rule waits for all pulls to finish:
+ * <pre>
+ *     {@literal @}ClassRule
+ *     public static ImagePrePull images = ImagePrePull.images("postgres:13.1", "redis:6.0.10");
+ *
+ *     {@literal @}ClassRule
+ *     public static DockerRule db = DockerRule.builder().imageName("postgres:13.1")...
+ * </pre>
+ * or programmatically: <code>ImagePrePull.builders(dbBuilder, cacheBuilder).await()</code>.
+ * To pull images before any test class of whole run see {@link ImagePrePullListener}.
+ */
+public class ImagePrePull extends ExternalResource {
+
+    private static Logger log = LoggerFactory.getLogger(ImagePrePull.class);
+
+    /**
+     * System property with max number of concurrent pulls.
+     */
+    public static final String PARALLELISM_PROPERTY = "junit.docker.rule.prePull.parallelism";
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final Map<String, Future<Void>> pulls = new LinkedHashMap<>();
+    private final ExecutorService executor;
+    private final DockerClient dockerClient;
+
+    ImagePrePull(Collection<String> imageNames, int parallelism, DockerClient dockerClient, final DockerImages images) {
+        this.dockerClient = dockerClient;
+        Set<String> distinctImages = new LinkedHashSet<>();
+        for (String imageName : imageNames) {
+            if (StringUtils.isNotBlank(imageName)) {
+                distinctImages.add(DockerImages.withTag(imageName.trim()));
+            }
+        }
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, distinctImages.size())), new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger(0);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format("dockerpull-%d", id.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        log.debug("pre-pulling images {}", distinctImages);
+        for (final String image : distinctImages) {
+            pulls.put(image, executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    images.ensurePresent(ImagePrePull.this.dockerClient, image, false);
+                    return null;
+                }
+            }));
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Start pulling given images.
+     */
+    public static ImagePrePull images(String... imageNames) {
+        return images(Arrays.asList(imageNames));
+    }
+
+    /**
+     * Start pulling given images.
+     */
+    public static ImagePrePull images(Collection<String> imageNames) {
+        return start(imageNames, Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM));
+    }
+
+    /**
+     * Start pulling images of given rule builders.
+     */
+    public static ImagePrePull builders(DockerRuleBuilder... builders) {
+        List<String> imageNames = new ArrayList<>();
+        for (DockerRuleBuilder builder : builders) {
+            imageNames.add(builder.imageName());
+        }
+        return images(imageNames);
+    }
+
+    /**
+     * Start pulling given images.
+     *
+     * @param imageNames Images to pull (duplicates are pulled once).
+     * @param parallelism Max number of concurrent pulls.
+     */
+    public static ImagePrePull start(Collection<String> imageNames, int parallelism) {
+        try {
+            return new ImagePrePull(imageNames, parallelism, DockerClientRegistry.shared().client(), DockerImages.shared());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Wait for all pulls to finish.
+     *
+     * @throws ImagePullException When any of images could not be pulled (other failures are suppressed).
+     */
+    public void await() throws InterruptedException {
+        ImagePullException failure = null;
+        try {
+            for (Map.Entry<String, Future<Void>> pull : pulls.entrySet()) {
+                try {
+                    pull.getValue().get();
+                } catch (ExecutionException e) {
+                    ImagePullException pullFailure = new ImagePullException(String.format("Unable to pull image '%s'", pull.getKey()), e.getCause());
+                    if (failure == null) {
+                        failure = pullFailure;
+                    } else {
+                        failure.addSuppressed(pullFailure);
+                    }
+                }
+            }
+        } finally {
+            dockerClient.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Images being pulled.
+     */
+    public Set<String> getImages() {
+        return pulls.keySet();
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        await();
+    }
+
+}
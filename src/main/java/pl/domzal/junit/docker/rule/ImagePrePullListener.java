@@ -0,0 +1,42 @@
+package pl.domzal.junit.docker.rule;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * JUnit {@link RunListener} pulling images listed (comma separated) in {@value #IMAGES_PROPERTY} system property
+ * concurrently, when test run starts. Register with surefire, for example:
+ * <pre>
+ *     &lt;configuration&gt;
+ *         &lt;properties&gt;
+ *             &lt;property&gt;
+ *                 &lt;name&gt;listener&lt;/name&gt;
+ *                 &lt;value&gt;pl.domzal.junit.docker.rule.ImagePrePullListener&lt;/value&gt;
+ *             &lt;/property&gt;
+ *         &lt;/properties&gt;
+ *         &lt;systemPropertyVariables&gt;
+ *             &lt;junit.docker.rule.prePull.images&gt;postgres:13.1,redis:6.0.10&lt;/junit.docker.rule.prePull.images&gt;
+ *         &lt;/systemPropertyVariables&gt;
+ *     &lt;/configuration&gt;
+ * </pre>
+ * See {@link ImagePrePull}.
+ */
+public class ImagePrePullListener extends RunListener {
+
+    /**
+     * System property with comma separated list of images to pull.
+     */
+    public static final String IMAGES_PROPERTY = "junit.docker.rule.prePull.images";
+
+    @Override
+    public void testRunStarted(Description description) throws Exception {
+        String images = System.getProperty(IMAGES_PROPERTY);
+        if (StringUtils.isNotBlank(images)) {
+            ImagePrePull.images(Arrays.asList(StringUtils.split(images, ','))).await();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package pl.domzal.junit.docker.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link ContainerEvents} emitted as JDK Flight Recorder events.
+ * Should be loaded only when <code>jdk.jfr</code> is available (see {@link ContainerEvents#shared()}).
+ */
+class JfrContainerEvents extends ContainerEvents {
+
+    static final String CATEGORY = "JUnit Docker Rule";
+
+    @Name("pl.domzal.junit.docker.rule.ContainerLifecycle")
+    @Label("Container Lifecycle")
+    @Description("Container lifecycle phase - rule before/after, log attach/detach")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class LifecycleEvent extends Event implements Span {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Container Id")
+        String containerId;
+
+        @Label("Image")
+        String image;
+
+        @Label("Success")
+        boolean success;
+
+        @Override
+        public Span container(String containerId) {
+            this.containerId = containerId;
+            return this;
+        }
+
+        @Override
+        public void end(boolean success) {
+            end();
+            if (shouldCommit()) {
+                this.success = success;
+                commit();
+            }
+        }
+    }
+
+    @Name("pl.domzal.junit.docker.rule.WaitFor")
+    @Label("Wait For Condition")
+    @Description("Waiting for container condition")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class WaitForEvent extends Event implements Span {
+
+        @Label("Condition")
+        String condition;
+
+        @Label("Timeout")
+        @Timespan(Timespan.MILLISECONDS)
+        long timeout;
+
+        @Label("Met")
+        boolean met;
+
+        @Override
+        public Span container(String containerId) {
+            return this;
+        }
+
+        @Override
+        public void end(boolean success) {
+            end();
+            if (shouldCommit()) {
+                this.met = success;
+                commit();
+            }
+        }
+    }
+
+    @Name("pl.domzal.junit.docker.rule.ConditionCheck")
+    @Label("Condition Check")
+    @Description("Single check of container start condition")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class ConditionCheckEvent extends Event implements Span {
+
+        @Label("Container")
+        String container;
+
+        @Label("Condition")
+        String condition;
+
+        @Label("Met")
+        boolean met;
+
+        @Override
+        public Span container(String containerId) {
+            return this;
+        }
+
+        @Override
+        public void end(boolean success) {
+            end();
+            if (shouldCommit()) {
+                this.met = success;
+                commit();
+            }
+        }
+    }
+
+    @Override
+    Span lifecycle(String phase, String containerId, String image) {
+        LifecycleEvent event = new LifecycleEvent();
+        if (!event.isEnabled()) {
+            return NOOP_SPAN;
+        }
+        event.phase = phase;
+        event.containerId = containerId;
+        event.image = image;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    Span waitFor(String condition, long timeoutMs) {
+        WaitForEvent event = new WaitForEvent();
+        if (!event.isEnabled()) {
+            return NOOP_SPAN;
+        }
+        event.condition = condition;
+        event.timeout = timeoutMs;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    Span check(String container, String condition) {
+        ConditionCheckEvent event = new ConditionCheckEvent();
+        if (!event.isEnabled()) {
+            return NOOP_SPAN;
+        }
+        event.container = container;
+        event.condition = condition;
+        event.begin();
+        return event;
+    }
+
+}
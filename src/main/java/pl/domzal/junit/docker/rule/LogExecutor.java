@@ -0,0 +1,83 @@
+package pl.domzal.junit.docker.rule;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process wide executor running container log following and printing tasks of all {@link DockerRule}s.
+ * <p>
+ * By default it is pool of daemon platform threads created on demand, released after
+ * {@link #KEEP_ALIVE_SECONDS} of inactivity and bounded by {@value #MAX_THREADS_PROPERTY} system property
+ * (default {@link #DEFAULT_MAX_THREADS}). Log tasks block on reading for whole container lifetime
+ * so they are never queued - task over the limit is rejected.
+ * <p>
+ * When running on java 21+ virtual threads may be used instead
+ * by setting {@value #VIRTUAL_THREADS_PROPERTY} system property to <code>true</code>.
+ */
+class LogExecutor {
+
+    private static Logger log = LoggerFactory.getLogger(LogExecutor.class);
+
+    static final String VIRTUAL_THREADS_PROPERTY = "junit.docker.rule.log.virtualThreads";
+    static final String MAX_THREADS_PROPERTY = "junit.docker.rule.log.maxThreads";
+
+    static final int DEFAULT_MAX_THREADS = 1024;
+    static final int KEEP_ALIVE_SECONDS = 60;
+
+    private static final ExecutorService INSTANCE = create();
+
+    private LogExecutor() {
+    }
+
+    /**
+     * Process wide log executor instance.
+     */
+    static ExecutorService shared() {
+        return INSTANCE;
+    }
+
+    private static ExecutorService create() {
+        if (Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+            ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                log.debug("using virtual threads for container logs");
+                return virtualThreadExecutor;
+            }
+        }
+        return createPlatformThreadExecutor(Integer.getInteger(MAX_THREADS_PROPERTY, DEFAULT_MAX_THREADS));
+    }
+
+    static ExecutorService createPlatformThreadExecutor(int maxThreads) {
+        return new ThreadPoolExecutor(0, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger(0);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format("dockerlog-%d", id.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("virtual threads requested with {} but not available in java {}, falling back to platform threads",
+                    VIRTUAL_THREADS_PROPERTY, System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+package pl.domzal.junit.docker.rule;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.ListContainersParam;
+import org.mandas.docker.client.exceptions.ContainerNotFoundException;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.messages.Container;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removal of containers leaked by test JVMs which were killed before {@link DockerRule#after()}.
+ * <p>
+ * Containers created by rules are labeled with session labels ({@link #sessionLabels()}) identifying
+ * JVM which created them: session id, host name, PID namespace, PID and JVM start time. For every docker host used
+ * reaper checks (at first use and then every {@value #INTERVAL_PROPERTY} seconds, default {@link #DEFAULT_INTERVAL_SECONDS})
+ * for labeled containers created on this host by other sessions and removes ones whose JVM is no longer running.
+ * <p>
+ * Container is never removed when owning JVM state cannot be determined - it was created on another host
+ * or in another PID namespace (like other CI job container sharing docker socket and host name - its PIDs
+ * are not visible here), PID namespace can not be determined (no <code>/proc</code>, like on non Linux hosts)
+ * or this JVM runs on java 8 (where process liveness cannot be checked).
+ * Containers which are meant to outlive test run ({@link StopOption#KEEP}, {@link DockerRuleBuilder#reuseContainer(boolean)})
+ * are not labeled. Reaper may be disabled with {@value #ENABLED_PROPERTY} system property set to <code>false</code>.
+ */
+class OrphanReaper {
+
+    private static Logger log = LoggerFactory.getLogger(OrphanReaper.class);
+
+    static final String ENABLED_PROPERTY = "junit.docker.rule.orphanReaper.enabled";
+    static final String INTERVAL_PROPERTY = "junit.docker.rule.orphanReaper.intervalSeconds";
+    static final int DEFAULT_INTERVAL_SECONDS = 300;
+
+    static final String SESSION_ID_LABEL = "pl.domzal.junit-docker-rule.session.id";
+    static final String SESSION_HOST_LABEL = "pl.domzal.junit-docker-rule.session.host";
+    static final String SESSION_PID_LABEL = "pl.domzal.junit-docker-rule.session.pid";
+    static final String SESSION_PID_NAMESPACE_LABEL = "pl.domzal.junit-docker-rule.session.pidns";
+    static final String SESSION_START_LABEL = "pl.domzal.junit-docker-rule.session.start";
+
+    /**
+     * Tolerance when comparing process start time with JVM start time from labels.
+     */
+    static final long START_TIME_TOLERANCE_MS = 10_000;
+
+    private static final OrphanReaper INSTANCE = new OrphanReaper(Session.current(), new ProcessHandleChecker());
+
+    /**
+     * JVM owning containers.
+     */
+    static class Session {
+
+        private final String id;
+        private final String host;
+        private final String pidNamespace;
+        private final long pid;
+        private final long startMillis;
+
+        /**
+         * @param pidNamespace Identity of PID namespace (on given host boot) or <code>null</code> when not known.
+         */
+        Session(String id, String host, String pidNamespace, long pid, long startMillis) {
+            this.id = id;
+            this.host = host;
+            this.pidNamespace = pidNamespace;
+            this.pid = pid;
+            this.startMillis = startMillis;
+        }
+
+        static Session current() {
+            // "pid@host" on all known JVMs
+            String runtimeName = ManagementFactory.getRuntimeMXBean().getName();
+            long pid = -1;
+            String host = runtimeName;
+            int separator = runtimeName.indexOf('@');
+            if (separator > 0) {
+                try {
+                    pid = Long.parseLong(runtimeName.substring(0, separator));
+                } catch (NumberFormatException e) {
+                    log.debug("unable to determine pid from '{}'", runtimeName);
+                }
+                host = runtimeName.substring(separator + 1);
+            }
+            return new Session(UUID.randomUUID().toString(), host, pidNamespace(Paths.get("/proc")), pid, ManagementFactory.getRuntimeMXBean().getStartTime());
+        }
+
+        /**
+         * PID namespace identity - boot id of kernel and inode of PID namespace (link like <code>pid:[4026531836]</code>),
+         * as inode numbers alone may repeat across boots and hosts.
+         *
+         * @param proc Location of <code>/proc</code> file system.
+         * @return Identity or <code>null</code> when it can not be determined.
+         */
+        static String pidNamespace(Path proc) {
+            try {
+                String bootId = new String(Files.readAllBytes(proc.resolve("sys/kernel/random/boot_id")), StandardCharsets.US_ASCII).trim();
+                String namespace = Files.readSymbolicLink(proc.resolve("self/ns/pid")).toString();
+                if (bootId.isEmpty() || namespace.isEmpty()) {
+                    return null;
+                }
+                return bootId + "/" + namespace;
+            } catch (IOException | UnsupportedOperationException | SecurityException e) {
+                log.debug("unable to determine pid namespace", e);
+                return null;
+            }
+        }
+
+        Map<String, String> labels() {
+            Map<String, String> labels = new HashMap<>();
+            labels.put(SESSION_ID_LABEL, id);
+            labels.put(SESSION_HOST_LABEL, host);
+            if (pidNamespace != null) {
+                labels.put(SESSION_PID_NAMESPACE_LABEL, pidNamespace);
+            }
+            labels.put(SESSION_PID_LABEL, Long.toString(pid));
+            labels.put(SESSION_START_LABEL, Long.toString(startMillis));
+            return Collections.unmodifiableMap(labels);
+        }
+    }
+
+    /**
+     * Checks whether local process is alive.
+     */
+    interface ProcessChecker {
+
+        /**
+         * @param pid Process id.
+         * @param startMillis Start time of process (approximate, as seen by its JVM).
+         * @return Whether process of given pid, started at given time, is still running
+         * or <code>null</code> when it cannot be determined.
+         */
+        Boolean isAlive(long pid, long startMillis);
+    }
+
+    private final Session session;
+    private final ProcessChecker processChecker;
+    private final Set<String> watchedHosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private ScheduledExecutorService scheduler;
+
+    OrphanReaper(Session session, ProcessChecker processChecker) {
+        this.session = session;
+        this.processChecker = processChecker;
+    }
+
+    /**
+     * Process wide instance.
+     */
+    static OrphanReaper shared() {
+        return INSTANCE;
+    }
+
+    /**
+     * Labels identifying current session.
+     */
+    static Map<String, String> sessionLabels() {
+        return INSTANCE.session.labels();
+    }
+
+    /**
+     * Start watching for orphaned containers on docker host of given client (unless already watched).
+     */
+    void watch(final DockerClient dockerClient) {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return;
+        }
+        if (!watchedHosts.add(dockerClient.getHost())) {
+            return;
+        }
+        int intervalSeconds = Integer.getInteger(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS);
+        scheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reapOrphans(dockerClient);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (DockerException | RuntimeException e) {
+                    log.warn("orphaned containers check on {} failed", dockerClient.getHost(), e);
+                }
+            }
+        }, 0, Math.max(1, intervalSeconds), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Remove containers of dead sessions.
+     *
+     * @return Number of removed containers.
+     */
+    int reapOrphans(DockerClient dockerClient) throws DockerException, InterruptedException {
+        int removed = 0;
+        List<Container> containers = dockerClient.listContainers(
+                ListContainersParam.allContainers(),
+                ListContainersParam.withLabel(SESSION_ID_LABEL));
+        for (Container container : containers) {
+            if (isOrphan(container.labels())) {
+                String containerShortId = StringUtils.left(container.id(), 12);
+                try {
+                    dockerClient.removeContainer(container.id(),
+                            DockerClient.RemoveContainerParam.forceKill(),
+                            DockerClient.RemoveContainerParam.removeVolumes());
+                    log.info("{} removed - orphaned by session {} (pid {})", containerShortId,
+                            container.labels().get(SESSION_ID_LABEL), container.labels().get(SESSION_PID_LABEL));
+                    removed++;
+                } catch (ContainerNotFoundException e) {
+                    log.debug("{} already gone", containerShortId);
+                }
+            }
+        }
+        return removed;
+    }
+
+    boolean isOrphan(Map<String, String> labels) {
+        if (labels == null || labels.containsKey(ContainerReuse.REUSE_HASH_LABEL)) {
+            return false;
+        }
+        if (session.id.equals(labels.get(SESSION_ID_LABEL)) || !session.host.equals(labels.get(SESSION_HOST_LABEL))) {
+            return false;
+        }
+        long pid;
+        long startMillis;
+        try {
+            pid = Long.parseLong(labels.get(SESSION_PID_LABEL));
+            startMillis = Long.parseLong(labels.get(SESSION_START_LABEL));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (pid < 0) {
+            return false;
+        }
+        // pid of other namespace means nothing here (not visible or other process) - liveness unknown
+        Boolean alive = session.pidNamespace != null && session.pidNamespace.equals(labels.get(SESSION_PID_NAMESPACE_LABEL))
+                ? processChecker.isAlive(pid, startMillis)
+                : null;
+        return Boolean.FALSE.equals(alive);
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                private final AtomicInteger id = new AtomicInteger(0);
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, String.format("dockerorphans-%d", id.incrementAndGet()));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return scheduler;
+    }
+
+    /**
+     * Process liveness check with java 9+ <code>ProcessHandle</code> (called reflectively to keep java 8 compatibility).
+     * Process of the same pid started after labeled JVM is treated as different (pid reused) one.
+     */
+    static class ProcessHandleChecker implements ProcessChecker {
+
+        @Override
+        public Boolean isAlive(long pid, long startMillis) {
+            try {
+                Class<?> processHandleClass = Class.forName("java.lang.ProcessHandle");
+                Method of = processHandleClass.getMethod("of", long.class);
+                Optional<?> handle = (Optional<?>) of.invoke(null, pid);
+                if (!handle.isPresent()) {
+                    return false;
+                }
+                if (!(Boolean) processHandleClass.getMethod("isAlive").invoke(handle.get())) {
+                    return false;
+                }
+                Object info = processHandleClass.getMethod("info").invoke(handle.get());
+                Class<?> infoClass = Class.forName("java.lang.ProcessHandle$Info");
+                Optional<?> processStart = (Optional<?>) infoClass.getMethod("startInstant").invoke(info);
+                if (processStart.isPresent() && ((Instant) processStart.get()).toEpochMilli() > startMillis + START_TIME_TOLERANCE_MS) {
+                    return false;
+                }
+                return true;
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.debug("unable to check process {}", pid, e);
+                return null;
+            }
+        }
+    }
+
+}
@@ -31,7 +31,13 @@ public enum StopOption {
      * is where you need to access the logs if wait conditions fail and the {@link DockerRule} is not annotated with
      * {@link Rule} (because the test will not run if the rule fails to start.
      */
-    INSPECTING;
+    INSPECTING,
+    /**
+     * Stop and remove container in background, so {@link DockerRule#after()} returns immediately.
+     * Rule using the same container name or static host port waits in {@link DockerRule#before()}
+     * until background teardown releases them. Teardowns still running at JVM exit are finished by shutdown hook.
+     */
+    ASYNC;
 
     static class StopOptionSet {
 
@@ -7,8 +7,11 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import pl.domzal.junit.docker.rule.wait.HttpPingChecker;
+import pl.domzal.junit.docker.rule.wait.ExecChecker;
+import pl.domzal.junit.docker.rule.wait.HealthChecker;
 import pl.domzal.junit.docker.rule.wait.LogChecker;
+import pl.domzal.junit.docker.rule.wait.LogPattern;
+import pl.domzal.junit.docker.rule.wait.LogPatternChecker;
 import pl.domzal.junit.docker.rule.wait.LogSequenceChecker;
 import pl.domzal.junit.docker.rule.wait.TcpPortChecker;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
@@ -23,7 +26,8 @@ public class WaitFor {
 
     /**
      * Wait for specified text in log on container start.
-     * Whole log content (from container start) is checked so this condition
+     * Log content from container start is checked (as followed log lines, including
+     * replay of lines received before condition was registered) so this condition
      * will work independent of any other wait conditions.
      * Rule startup will fail when message will not be found.
      *
@@ -34,7 +38,7 @@ public class WaitFor {
             @Override
             public StartConditionCheck build(DockerRule currentRule) {
                 log.debug("new wait for condition - message: '{}'", logMessage);
-                return new LogChecker(currentRule, logMessage);
+                return new LogChecker(logMessage);
             }
         };
     }
@@ -58,6 +62,46 @@ public class WaitFor {
         };
     }
 
+    /**
+     * Wait till each of given messages shows in container log (in any order).
+     * Like {@link #logMessage(String)}, container log from container start is checked.
+     * Log patterns of all log conditions of rule are searched for in single pass over every log line.
+     *
+     * @param messages Messages to wait for.
+     */
+    public static StartCondition logMatches(String... messages) {
+        List<LogPattern> patterns = new ArrayList<>();
+        for (String message : messages) {
+            patterns.add(LogPattern.substring(message));
+        }
+        return logPatterns(patterns);
+    }
+
+    /**
+     * Wait till each of given regular expressions matches some line of container log (in any order).
+     * Expression needs to match part of line only (see {@link java.util.regex.Matcher#find()}).
+     * Like {@link #logMessage(String)}, container log from container start is checked.
+     *
+     * @param regexes Regular expressions to wait for.
+     */
+    public static StartCondition logRegex(String... regexes) {
+        List<LogPattern> patterns = new ArrayList<>();
+        for (String regex : regexes) {
+            patterns.add(LogPattern.regex(regex));
+        }
+        return logPatterns(patterns);
+    }
+
+    private static StartCondition logPatterns(final List<LogPattern> patterns) {
+        return new StartCondition() {
+            @Override
+            public StartConditionCheck build(DockerRule currentRule) {
+                log.debug("new wait for condition - log patterns: {}", patterns);
+                return new LogPatternChecker(patterns);
+            }
+        };
+    }
+
     /**
      * Wait for TCP port listening under given internal container port.
      * Given port MUST be exposed (with {@link DockerRuleBuilder#expose(String, String)} or
@@ -73,7 +117,7 @@ public class WaitFor {
      * In short: won't work if docker engine forwards port using <i>docker-proxy</i> (aka <i>userland proxy</i>)
      * - will report port opening almost instantly and NOT wait for underlying port opening.
      * To make things worst - <b>this is default configuration on some platforms so it is better to not
-     * rely on this method at all</b>.
+     * rely on this method at all</b> (or use {@link #tcpPortVerified(int...)}).
      * <p>
      * Additional <i>userland proxy</i> info:<ul>
      *     <li><a href="https://docs.docker.com/engine/userguide/networking/default_network/binding/">Docker docs / Bind container ports to the host</a></li>
@@ -84,14 +128,31 @@ public class WaitFor {
      * @param internalTcpPorts TCP port (or ports) to scan (internal, MUST be exposed for wait to work).
      */
     public static StartCondition tcpPort(final int... internalTcpPorts) {
-        List<Integer> ports = new ArrayList<>(internalTcpPorts.length);
-        for (int port: internalTcpPorts) {
-            ports.add(port);
+        return tcpPort(toList(internalTcpPorts), false);
+    }
+
+    /**
+     * Wait for TCP port listening under given internal container port, like {@link #tcpPort(int...)},
+     * but verify connection is really served: connection accepted and closed right away
+     * (what <i>docker-proxy</i> does when nothing listens behind it) does not count.
+     * Every check takes additional 200ms for ports not sending anything after connect.
+     * See <a href="https://github.com/stephenc/junit-docker-rule/blob/master/doc/tcp_wait_notes.md">TCP port wait notes</a>.
+     *
+     * @param internalTcpPorts TCP port (or ports) to scan (internal, MUST be exposed for wait to work).
+     */
+    public static StartCondition tcpPortVerified(final int... internalTcpPorts) {
+        return tcpPort(toList(internalTcpPorts), true);
+    }
+
+    private static List<Integer> toList(int... ports) {
+        List<Integer> list = new ArrayList<>(ports.length);
+        for (int port: ports) {
+            list.add(port);
         }
-        return tcpPort(ports);
+        return list;
     }
 
-    private static StartCondition tcpPort(final List<Integer> internalPorts) {
+    private static StartCondition tcpPort(final List<Integer> internalPorts, final boolean verifyServed) {
         return new StartCondition() {
             @Override
             public StartConditionCheck build(DockerRule currentRule) {
@@ -99,8 +160,8 @@ public class WaitFor {
                 for (Integer intPort : internalPorts) {
                     externalPorts.add(currentRule.findExternalPort(intPort));
                 }
-                log.debug("new wait for condition - tcp port(s) open: {} (external port(s): {})", internalPorts, externalPorts);
-                return new TcpPortChecker(currentRule.getDockerHost(), externalPorts);
+                log.debug("new wait for condition - tcp port(s) open{}: {} (external port(s): {})", verifyServed ? " and served" : "", internalPorts, externalPorts);
+                return new TcpPortChecker(currentRule.getDockerHost(), externalPorts, verifyServed);
             }
         };
     }
@@ -120,13 +181,51 @@ public class WaitFor {
      *                 be internal (as seen on container, not as on host) port number.
      */
     public static StartCondition httpPing(final int internalHttpPort) {
+        return httpPingBuilder(internalHttpPort).build();
+    }
+
+    /**
+     * Configurable wait for http endpoint availability under given <b>internal</b> container port
+     * (path, method, accepted status, headers, expected body and poll interval).
+     * Port has to be exposed, like for {@link #httpPing(int)}.
+     *
+     * @param internalHttpPort Http port to scan for availability (internal, MUST be exposed for wait to work).
+     */
+    public static HttpPingConditionBuilder httpPingBuilder(int internalHttpPort) {
+        return new HttpPingConditionBuilder(internalHttpPort);
+    }
+
+    /**
+     * Wait till container <code>HEALTHCHECK</code> (defined in image or with docker run options) reports container healthy.
+     * Health status is followed with docker events stream (no polling of container state), with fallback
+     * to container inspect when events are not available.
+     * Rule startup fails right away when container turns unhealthy, exits or has no <code>HEALTHCHECK</code> defined.
+     */
+    public static StartCondition healthy() {
+        return new StartCondition() {
+            @Override
+            public StartConditionCheck build(DockerRule currentRule) {
+                log.debug("new wait for condition - container healthy");
+                return new HealthChecker(currentRule.getDockerClient(), currentRule.getContainerId());
+            }
+        };
+    }
+
+    /**
+     * Wait till command executed inside container exits with code 0 - like readiness tools shipped with
+     * many images (<code>pg_isready</code>, <code>redis-cli ping</code>, <code>mysqladmin ping</code>).
+     * No port has to be exposed and result does not depend on docker port forwarding.
+     * Command is run again on every check (with rule poll intervals), single run taking longer than
+     * {@value ExecChecker#DEFAULT_ATTEMPT_TIMEOUT_MS}ms counts as failed check.
+     *
+     * @param cmd Command with arguments (executed directly, not by shell).
+     */
+    public static StartCondition exec(final String... cmd) {
         return new StartCondition() {
             @Override
             public StartConditionCheck build(DockerRule currentRule) {
-                String exposedPort = currentRule.getExposedContainerPort(Integer.toString(internalHttpPort));
-                String pingUrl = String.format("http://%s:%s/", currentRule.getDockerHost(), exposedPort);
-                log.debug("new wait for condition - http ping port: {}, url: '{}'", internalHttpPort, pingUrl);
-                return new HttpPingChecker(pingUrl, null, null);
+                log.debug("new wait for condition - exec: {}", Arrays.asList(cmd));
+                return new ExecChecker(currentRule.getDockerClient(), currentRule.getContainerId(), cmd);
             }
         };
     }
@@ -1,11 +1,26 @@
 package pl.domzal.junit.docker.rule;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import pl.domzal.junit.docker.rule.wait.PolledStartConditionCheck;
+import pl.domzal.junit.docker.rule.wait.SignalingStartConditionCheck;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 
 /**
@@ -15,6 +30,66 @@ class WaitForContainer {
 
     private static Logger log = LoggerFactory.getLogger(WaitForContainer.class);
 
+    /**
+     * Default min time between checks of condition [ms].
+     */
+    static final int DEFAULT_MIN_POLL_MS = 50;
+
+    /**
+     * Default max time between checks of condition [ms].
+     */
+    static final int DEFAULT_MAX_POLL_MS = 1000;
+
+    /**
+     * Extra time given to concurrently checked conditions to report their own timeout [ms].
+     */
+    private static final long CONCURRENT_TIMEOUT_GRACE_MS = 1000;
+
+    /**
+     * Notified when waiting for single condition ends.
+     */
+    interface ConditionListener {
+
+        /**
+         * @param condition Condition waited for.
+         * @param durationNanos Waiting time.
+         * @param met Whether condition was met (<code>false</code> on timeout or failure).
+         */
+        void conditionFinished(StartConditionCheck condition, long durationNanos, boolean met);
+    }
+
+    /**
+     * Aborts waiting for conditions that can not be met anymore (like when container exited).
+     */
+    interface AbortCondition {
+
+        /**
+         * Called after unsuccessful check of condition.
+         *
+         * @throws RuntimeException To abort waiting.
+         */
+        void check();
+
+        /**
+         * Sleep between checks of conditions (other than {@link SignalingStartConditionCheck}),
+         * ending early when waiting should be aborted.
+         *
+         * @param waitMs Max wait time [ms].
+         * @return <code>true</code> if waiting should be aborted.
+         */
+        boolean await(long waitMs) throws InterruptedException;
+    }
+
+    private static final ThreadFactory WAIT_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger id = new AtomicInteger(0);
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, String.format("dockerwait-%d", id.incrementAndGet()));
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
     /**
      * Wait till all given conditions are met.
      *
@@ -23,22 +98,195 @@ class WaitForContainer {
      * @param containerDescription Container description. For log and exception message usage only.
      */
     static void waitForCondition(final StartConditionCheck condition, int timeoutSeconds, final String containerDescription) throws TimeoutException {
+        waitForCondition(condition, timeoutSeconds, DEFAULT_MIN_POLL_MS, DEFAULT_MAX_POLL_MS, containerDescription);
+    }
+
+    /**
+     * Wait till given condition is met. {@link SignalingStartConditionCheck} conditions end waiting
+     * as soon as they are signaled, other ones are polled with interval growing from min to max poll time
+     * (or with fixed interval of {@link PolledStartConditionCheck}).
+     *
+     * @param condition Conditions to wait for - all must be met to continue.
+     * @param timeoutSeconds Wait timeout.
+     * @param minPollMs Time between first checks [ms].
+     * @param maxPollMs Max time between checks [ms].
+     * @param containerDescription Container description. For log and exception message usage only.
+     */
+    static void waitForCondition(final StartConditionCheck condition, int timeoutSeconds, int minPollMs, int maxPollMs, final String containerDescription) throws TimeoutException {
+        try {
+            waitForConditionMillis(condition, TimeUnit.SECONDS.toMillis(timeoutSeconds), minPollMs, maxPollMs, containerDescription, null, null);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(String.format("Interrupted while waiting for %s", condition.describe()), e);
+        }
+    }
+
+    /**
+     * Wait till given conditions are met according to given mode.
+     * In {@link WaitForMode#SEQUENTIAL} mode conditions are waited for one after another and each one
+     * gets full timeout. In remaining modes all conditions are checked concurrently with single
+     * timeout shared by all of them.
+     *
+     * @param conditions Conditions to wait for.
+     * @param mode How conditions are evaluated.
+     * @param timeoutSeconds Wait timeout.
+     * @param minPollMs Time between first checks [ms].
+     * @param maxPollMs Max time between checks [ms].
+     * @param containerDescription Container description. For log and exception message usage only.
+     */
+    static void waitForConditions(List<StartConditionCheck> conditions, WaitForMode mode, int timeoutSeconds, int minPollMs, int maxPollMs, String containerDescription) throws TimeoutException {
+        waitForConditions(conditions, mode, timeoutSeconds, minPollMs, maxPollMs, containerDescription, null);
+    }
+
+    /**
+     * Wait till given conditions are met according to given mode (see {@link #waitForConditions(List, WaitForMode, int, int, int, String)}),
+     * notifying listener when waiting for each condition ends.
+     *
+     * @param conditionListener Listener notified when waiting for each condition ends (may be called from waiting threads), optional.
+     */
+    static void waitForConditions(List<StartConditionCheck> conditions, WaitForMode mode, int timeoutSeconds, int minPollMs, int maxPollMs, String containerDescription, ConditionListener conditionListener) throws TimeoutException {
+        waitForConditions(conditions, mode, timeoutSeconds, minPollMs, maxPollMs, containerDescription, conditionListener, null);
+    }
+
+    /**
+     * Wait till given conditions are met according to given mode (see {@link #waitForConditions(List, WaitForMode, int, int, int, String, ConditionListener)}),
+     * aborting as soon as abort condition says conditions can not be met anymore.
+     *
+     * @param abortCondition Checked whenever condition is not met, optional.
+     */
+    static void waitForConditions(List<StartConditionCheck> conditions, WaitForMode mode, int timeoutSeconds, int minPollMs, int maxPollMs, String containerDescription, ConditionListener conditionListener, AbortCondition abortCondition) throws TimeoutException {
+        if (WaitForMode.SEQUENTIAL.equals(mode) || conditions.isEmpty()) {
+            for (StartConditionCheck condition : conditions) {
+                try {
+                    waitForConditionMillis(condition, TimeUnit.SECONDS.toMillis(timeoutSeconds), minPollMs, maxPollMs, containerDescription, conditionListener, abortCondition);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(String.format("Interrupted while waiting for %s", condition.describe()), e);
+                }
+            }
+        } else {
+            waitForConditionsConcurrently(conditions, WaitForMode.ANY.equals(mode), timeoutSeconds, minPollMs, maxPollMs, containerDescription, conditionListener, abortCondition);
+        }
+    }
+
+    private static void waitForConditionsConcurrently(List<StartConditionCheck> conditions, boolean anyCondition, int timeoutSeconds, final int minPollMs, final int maxPollMs, final String containerDescription, final ConditionListener conditionListener, final AbortCondition abortCondition) throws TimeoutException {
+        final long deadlineTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        ExecutorService executor = Executors.newFixedThreadPool(conditions.size(), WAIT_THREAD_FACTORY);
         try {
-            log.info("wait for {} started", condition.describe());
-            new WaitForUnit(TimeUnit.SECONDS, timeoutSeconds, TimeUnit.SECONDS, 1, new WaitForUnit.WaitForCondition() {
-                @Override
-                public boolean isConditionMet() {
-                    return condition.check();
+            CompletionService<StartConditionCheck> completionService = new ExecutorCompletionService<>(executor);
+            Map<Future<StartConditionCheck>, StartConditionCheck> pending = new HashMap<>();
+            for (final StartConditionCheck condition : conditions) {
+                Future<StartConditionCheck> future = completionService.submit(new Callable<StartConditionCheck>() {
+                    @Override
+                    public StartConditionCheck call() throws Exception {
+                        waitForConditionMillis(condition, deadlineTime - System.currentTimeMillis(), minPollMs, maxPollMs, containerDescription, conditionListener, abortCondition);
+                        return condition;
+                    }
+                });
+                pending.put(future, condition);
+            }
+            List<StartConditionCheck> met = new ArrayList<>();
+            while (!pending.isEmpty()) {
+                long remainingMs = Math.max(0, deadlineTime - System.currentTimeMillis());
+                Future<StartConditionCheck> done = completionService.poll(remainingMs + CONCURRENT_TIMEOUT_GRACE_MS, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    break;
+                }
+                StartConditionCheck condition = pending.remove(done);
+                try {
+                    done.get();
+                    met.add(condition);
+                    if (anyCondition) {
+                        return;
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof TimeoutException) {
+                        // reported below with other not met conditions
+                        continue;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(String.format("Failed waiting for %s", condition.describe()), cause);
                 }
-                @Override
-                public String timeoutMessage() {
-                    return String.format("timeout waiting for %s in container %s", condition.describe(), containerDescription);
+            }
+            if (met.size() == conditions.size()) {
+                return;
+            }
+            List<String> notMetDescriptions = new ArrayList<>();
+            for (StartConditionCheck condition : conditions) {
+                if (!met.contains(condition)) {
+                    notMetDescriptions.add(condition.describe());
                 }
-            }).startWaiting();
-            log.info("wait for {} - condition met", condition.describe());
+            }
+            List<String> metDescriptions = new ArrayList<>();
+            for (StartConditionCheck condition : met) {
+                metDescriptions.add(condition.describe());
+            }
+            String errorMessage = String.format("timeout waiting for %s of %s in container %s (conditions met: %s)",
+                    anyCondition ? "any" : "all", notMetDescriptions, containerDescription, metDescriptions);
+            log.error(errorMessage);
+            throw new TimeoutException(errorMessage);
         } catch (InterruptedException e) {
-            throw new IllegalStateException(String.format("Interrupted while waiting for %s", condition.describe()), e);
+            throw new IllegalStateException(String.format("Interrupted while waiting for container %s", containerDescription), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void waitForConditionMillis(final StartConditionCheck condition, long timeoutMs, int minPollMs, int maxPollMs, final String containerDescription, ConditionListener conditionListener, AbortCondition abortCondition) throws TimeoutException, InterruptedException {
+        log.info("wait for {} started", condition.describe());
+        long startNanos = System.nanoTime();
+        boolean met = false;
+        try {
+            waitForConditionMillis(condition, timeoutMs, minPollMs, maxPollMs, containerDescription, abortCondition);
+            met = true;
+        } finally {
+            if (conditionListener != null) {
+                conditionListener.conditionFinished(condition, System.nanoTime() - startNanos, met);
+            }
+        }
+        log.info("wait for {} - condition met", condition.describe());
+    }
+
+    private static void waitForConditionMillis(final StartConditionCheck condition, long timeoutMs, int minPollMs, int maxPollMs, final String containerDescription, final AbortCondition abortCondition) throws TimeoutException, InterruptedException {
+        final String conditionDescription = condition.describe();
+        if (condition instanceof PolledStartConditionCheck && ((PolledStartConditionCheck) condition).getPollIntervalMillis() > 0) {
+            minPollMs = maxPollMs = ((PolledStartConditionCheck) condition).getPollIntervalMillis();
         }
+        new WaitForUnit(TimeUnit.MILLISECONDS, (int) Math.max(0, timeoutMs), TimeUnit.MILLISECONDS, minPollMs, maxPollMs, new WaitForUnit.WaitForCondition() {
+            @Override
+            public boolean isConditionMet() {
+                ContainerEvents.Span span = ContainerEvents.shared().check(containerDescription, conditionDescription);
+                boolean met = false;
+                try {
+                    met = condition.check();
+                    if (!met && abortCondition != null) {
+                        abortCondition.check();
+                    }
+                    return met;
+                } finally {
+                    span.end(met);
+                }
+            }
+            @Override
+            public boolean waitForChange(long waitMs) throws InterruptedException {
+                if (condition instanceof SignalingStartConditionCheck) {
+                    return ((SignalingStartConditionCheck) condition).await(waitMs, TimeUnit.MILLISECONDS);
+                } else if (abortCondition != null) {
+                    return abortCondition.await(waitMs);
+                }
+                return super.waitForChange(waitMs);
+            }
+            @Override
+            public String tickMessage() {
+                return String.format("wait for %s in container %s", conditionDescription, containerDescription);
+            }
+            @Override
+            public String timeoutMessage() {
+                return String.format("timeout waiting for %s in container %s", conditionDescription, containerDescription);
+            }
+        }).startWaiting();
     }
 
 }
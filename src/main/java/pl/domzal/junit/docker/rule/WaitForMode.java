@@ -0,0 +1,26 @@
+package pl.domzal.junit.docker.rule;
+
+import pl.domzal.junit.docker.rule.wait.StartCondition;
+
+/**
+ * How container start conditions (see {@link DockerRuleBuilder#waitFor(StartCondition)}) are evaluated.
+ * If not redefined {@link #SEQUENTIAL} is used.
+ */
+public enum WaitForMode {
+
+    /**
+     * Conditions are waited for one after another (in definition order) and each one gets full wait timeout.
+     */
+    SEQUENTIAL,
+    /**
+     * Conditions are checked concurrently with single wait timeout shared by all of them.
+     * Container is ready when all conditions are met.
+     */
+    ALL,
+    /**
+     * Conditions are checked concurrently with single wait timeout shared by all of them.
+     * Container is ready when any of conditions is met.
+     */
+    ANY
+
+}
@@ -9,6 +9,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Wait for condition ({@link WaitForCondition}) for time specified in {@link java.util.concurrent.TimeUnit}s.
+ * <p>
+ * Time between condition checks starts from minimal tick time and is doubled after every
+ * unsuccessful check until it reaches maximal tick time. Condition may end waiting between
+ * checks earlier by overriding {@link WaitForCondition#waitForChange(long)}.
  */
 class WaitForUnit {
 
@@ -20,7 +24,8 @@ class WaitForUnit {
     private static Logger log = LoggerFactory.getLogger(WaitForUnit.class);
 
     private final long waitMs;
-    private final long tickMs;
+    private final long minTickMs;
+    private final long maxTickMs;
     private final long deadlineTime;
     private final long startTime;
     private final WaitForCondition doneWaitingCondition;
@@ -52,16 +57,41 @@ class WaitForUnit {
      * @param condition Condition we are waiting for
      */
     public WaitForUnit(TimeUnit waitUnit, int waitTime, TimeUnit tickUnit, int tickTime, WaitForCondition condition) {
+        this(waitUnit, waitTime, tickUnit, tickTime, tickTime, condition);
+    }
+
+    /**
+     * @param waitUnit Wait time unit
+     * @param waitTime Wait time (for condition)
+     * @param tickUnit Check time interval unit
+     * @param minTickTime Check time interval after first check
+     * @param maxTickTime Max check time interval (interval is doubled after every check until this value is reached)
+     * @param condition Condition we are waiting for
+     */
+    public WaitForUnit(TimeUnit waitUnit, int waitTime, TimeUnit tickUnit, int minTickTime, int maxTickTime, WaitForCondition condition) {
         this.waitMs = waitUnit.toMillis(waitTime);
-        this.tickMs = tickUnit.toMillis(tickTime);
+        this.minTickMs = Math.max(1, tickUnit.toMillis(minTickTime));
+        this.maxTickMs = Math.max(this.minTickMs, tickUnit.toMillis(maxTickTime));
         this.startTime = System.currentTimeMillis();
         this.deadlineTime = this.startTime+this.waitMs;
         this.doneWaitingCondition = condition;
     }
 
     public void startWaiting() throws TimeoutException, InterruptedException {
+        ContainerEvents.Span span = ContainerEvents.shared().waitFor(doneWaitingCondition.tickMessage(), waitMs);
+        boolean met = false;
+        try {
+            waitForCondition();
+            met = true;
+        } finally {
+            span.end(met);
+        }
+    }
+
+    private void waitForCondition() throws TimeoutException, InterruptedException {
         String conditionDescription = doneWaitingCondition.tickMessage();
         log.debug("{} - started ({}ms)", conditionDescription, waitMs);
+        long tickMs = minTickMs;
         while (true) {
             long currentTime = System.currentTimeMillis();
             conditionDescription = doneWaitingCondition.tickMessage();
@@ -71,7 +101,12 @@ class WaitForUnit {
             } else {
                 log.trace("{} - waiting...", conditionDescription);
             }
-            TimeUnit.MILLISECONDS.sleep(tickMs);
+            // do not wait past deadline
+            long currentWaitMs = Math.max(1, Math.min(tickMs, deadlineTime - currentTime + 1));
+            if (doneWaitingCondition.waitForChange(currentWaitMs)) {
+                continue;
+            }
+            tickMs = Math.min(tickMs * 2, maxTickMs);
             currentTime = System.currentTimeMillis();
             assertTimeNotExceeded(conditionDescription, currentTime);
         }
@@ -93,6 +128,18 @@ class WaitForUnit {
 
         public abstract boolean isConditionMet();
 
+        /**
+         * Wait between condition checks. Default implementation just sleeps for given time.
+         * Can be overriden to wake up as soon as condition is signaled.
+         *
+         * @param waitMs Max wait time [ms].
+         * @return <code>true</code> if condition was signaled as met.
+         */
+        public boolean waitForChange(long waitMs) throws InterruptedException {
+            TimeUnit.MILLISECONDS.sleep(waitMs);
+            return false;
+        }
+
         /**
          * Part of message shown on every tick.
          * Can be overriden to extend diagnostic information in log.
@@ -0,0 +1,39 @@
+package pl.domzal.junit.docker.rule.ex;
+
+/**
+ * Container exited while rule was waiting for its start conditions.
+ */
+public class ContainerExitedException extends IllegalStateException {
+
+    private final Long exitCode;
+    private final boolean oomKilled;
+    private final String logTail;
+
+    public ContainerExitedException(String message, Long exitCode, boolean oomKilled, String logTail) {
+        super(message);
+        this.exitCode = exitCode;
+        this.oomKilled = oomKilled;
+        this.logTail = logTail;
+    }
+
+    /**
+     * Container exit code (<code>null</code> when container could not be inspected).
+     */
+    public Long getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Whether container was killed by OOM killer.
+     */
+    public boolean isOomKilled() {
+        return oomKilled;
+    }
+
+    /**
+     * Last lines of container log (stdout and stderr).
+     */
+    public String getLogTail() {
+        return logTail;
+    }
+}
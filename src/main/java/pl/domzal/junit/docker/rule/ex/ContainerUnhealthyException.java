@@ -0,0 +1,12 @@
+package pl.domzal.junit.docker.rule.ex;
+
+/**
+ * Container reported unhealthy (or stopped) while waiting for it to become healthy.
+ */
+public class ContainerUnhealthyException extends IllegalStateException {
+
+    public ContainerUnhealthyException(String message) {
+        super(message);
+    }
+
+}
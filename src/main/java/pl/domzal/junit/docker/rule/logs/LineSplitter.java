@@ -0,0 +1,76 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits byte stream into lines terminated with <code>\n</code>, <code>\r\n</code> or <code>\r</code>
+ * (terminators are not included in lines). Last line does not need to be terminated.
+ * <p>
+ * Works on bytes over reusable buffers - lines are passed to {@link LineConsumer} as ranges of
+ * internal buffer, valid only during {@link LineConsumer#line(byte[], int, int)} call.
+ * Since line terminator bytes never appear inside multibyte UTF-8 sequences,
+ * UTF-8 characters are never split.
+ */
+class LineSplitter {
+
+    static final int READ_BUFFER_SIZE = 8192;
+
+    interface LineConsumer {
+        void line(byte[] bytes, int offset, int length);
+    }
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    /** Beginning of line started in one of previous reads. */
+    private byte[] lineBuffer = new byte[256];
+    private int lineLength = 0;
+    private boolean skipLf = false;
+
+    /**
+     * Read stream till its end, passing every line to consumer.
+     */
+    void split(InputStream input, LineConsumer consumer) throws IOException {
+        int n;
+        while ((n = input.read(readBuffer)) != -1) {
+            int lineStart = 0;
+            for (int i = 0; i < n; i++) {
+                byte b = readBuffer[i];
+                if (b == '\n' && skipLf) {
+                    lineStart = i + 1;
+                } else if (b == '\n' || b == '\r') {
+                    emit(readBuffer, lineStart, i - lineStart, consumer);
+                    lineStart = i + 1;
+                }
+                skipLf = b == '\r';
+            }
+            appendToLine(readBuffer, lineStart, n - lineStart);
+        }
+        if (lineLength > 0) {
+            consumer.line(lineBuffer, 0, lineLength);
+            lineLength = 0;
+        }
+    }
+
+    private void emit(byte[] bytes, int offset, int length, LineConsumer consumer) {
+        if (lineLength == 0) {
+            consumer.line(bytes, offset, length);
+        } else {
+            appendToLine(bytes, offset, length);
+            consumer.line(lineBuffer, 0, lineLength);
+            lineLength = 0;
+        }
+    }
+
+    private void appendToLine(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (lineLength + length > lineBuffer.length) {
+            lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length * 2, lineLength + length));
+        }
+        System.arraycopy(bytes, offset, lineBuffer, lineLength, length);
+        lineLength += length;
+    }
+
+}
@@ -1,25 +1,42 @@
 package pl.domzal.junit.docker.rule.logs;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import pl.domzal.junit.docker.rule.wait.LineListener;
 
+/**
+ * Reads log stream line by line, printing lines (preceded by prefix) to output
+ * and passing them to line listener.
+ * <p>
+ * Lines are printed as bytes they were read, UTF-8 decoding is done only
+ * when line is passed to listener (or trace logged).
+ */
 public class LogPrinter implements Runnable {
 
     private static Logger log = LoggerFactory.getLogger(LogPrinter.class);
 
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
     private final String prefix;
+    private final byte[] prefixBytes;
     private final InputStream scannedInputStream;
     private final PrintStream output;
     private final LineListener lineListener;
 
+    /** Reusable print buffer, always starting with prefix. */
+    private byte[] printBuffer;
+
     public LogPrinter(String prefix, InputStream scannedInputStream, PrintStream output, LineListener lineListener) {
         this.prefix = prefix;
+        this.prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        this.printBuffer = Arrays.copyOf(prefixBytes, prefixBytes.length + 256);
         this.scannedInputStream = scannedInputStream;
         this.output = output;
         this.lineListener = lineListener;
@@ -28,18 +45,35 @@ public class LogPrinter implements Runnable {
     @Override
     public void run() {
         log.trace("{} printer thread started", prefix);
-        try (Scanner scanner = new Scanner(scannedInputStream)) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                log.trace("{} line: {}", prefix, line);
-                if (output != null) {
-                    output.println(prefix + line);
-                }
-                if (lineListener != null) {
-                    lineListener.nextLine(line);
+        try (InputStream input = scannedInputStream) {
+            new LineSplitter().split(input, new LineSplitter.LineConsumer() {
+                @Override
+                public void line(byte[] bytes, int offset, int length) {
+                    printLine(bytes, offset, length);
                 }
-            }
+            });
+        } catch (IOException e) {
+            log.debug("{} log reading ended: {}", prefix, e.toString());
         }
         log.trace("{} printer thread terminated", prefix);
     }
+
+    private void printLine(byte[] bytes, int offset, int length) {
+        if (log.isTraceEnabled()) {
+            log.trace("{} line: {}", prefix, new String(bytes, offset, length, StandardCharsets.UTF_8));
+        }
+        if (output != null) {
+            // whole line in single write - one flush of autoflushing stream and no interleaving with other printers
+            int printedLength = prefixBytes.length + length + LINE_SEPARATOR.length;
+            if (printBuffer.length < printedLength) {
+                printBuffer = Arrays.copyOf(printBuffer, Math.max(printBuffer.length * 2, printedLength));
+            }
+            System.arraycopy(bytes, offset, printBuffer, prefixBytes.length, length);
+            System.arraycopy(LINE_SEPARATOR, 0, printBuffer, prefixBytes.length + length, LINE_SEPARATOR.length);
+            output.write(printBuffer, 0, printedLength);
+        }
+        if (lineListener != null) {
+            lineListener.nextLine(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -0,0 +1,290 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single producer, multiple consumer byte ring buffer for container log streams.
+ * <p>
+ * Producer appends chunks of data tagged with stream they come from ({@link #STDOUT} or {@link #STDERR}).
+ * Every reader ({@link #newReader(boolean, boolean)}) consumes buffer independently, with its own cursor,
+ * and sees only chunks of selected streams.
+ * <p>
+ * Data is never lost - producer waits only when buffer is full from point of view of slowest open reader,
+ * so with reasonable capacity slow consumer does not stall producer until it lags more than whole buffer.
+ * Readers obtained after data was written start from current write position.
+ */
+public class LogRingBuffer implements Closeable {
+
+    /**
+     * Default buffer capacity [bytes].
+     */
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+
+    /** Chunk header - stream type (1 byte) and chunk length (4 bytes). */
+    private static final int HEADER_SIZE = 5;
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer writeView;
+    private final int capacity;
+    private final int maxChunkSize;
+
+    private final List<Reader> readers = new ArrayList<>();
+
+    /** Absolute (not wrapped) position of next byte to be written. */
+    private long writePosition = 0;
+    private boolean closed = false;
+
+    private int waitingReaders = 0;
+    private boolean producerWaiting = false;
+
+    /**
+     * @param capacity Buffer capacity [bytes].
+     * @param offHeap Allocate buffer outside of java heap.
+     */
+    public LogRingBuffer(int capacity, boolean offHeap) {
+        if (capacity < 4 * HEADER_SIZE) {
+            throw new IllegalArgumentException("log buffer capacity too small: " + capacity);
+        }
+        this.capacity = capacity;
+        this.maxChunkSize = capacity / 4;
+        this.buffer = offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        this.writeView = buffer.duplicate();
+    }
+
+    public LogRingBuffer() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Output stream appending data tagged as given stream.
+     * Streams of single buffer should be used by single producer thread.
+     */
+    OutputStream newWriter(final byte streamType) {
+        return new OutputStream() {
+
+            private final byte[] singleByte = new byte[1];
+
+            @Override
+            public void write(int b) throws IOException {
+                singleByte[0] = (byte) b;
+                append(streamType, singleByte, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                append(streamType, b, off, len);
+            }
+        };
+    }
+
+    /**
+     * New reader (with its own cursor) starting at current write position.
+     *
+     * @param stdout Read chunks from {@link #STDOUT}.
+     * @param stderr Read chunks from {@link #STDERR}.
+     */
+    public synchronized InputStream newReader(boolean stdout, boolean stderr) {
+        Reader reader = new Reader(stdout, stderr, writePosition);
+        readers.add(reader);
+        return reader;
+    }
+
+    /**
+     * Mark end of data. Readers will consume already buffered data and then report end of stream.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    synchronized void append(byte streamType, byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int chunkSize = Math.min(len, maxChunkSize);
+            awaitSpace(HEADER_SIZE + chunkSize);
+            put(writePosition, streamType);
+            put(writePosition + 1, (byte) (chunkSize >>> 24));
+            put(writePosition + 2, (byte) (chunkSize >>> 16));
+            put(writePosition + 3, (byte) (chunkSize >>> 8));
+            put(writePosition + 4, (byte) chunkSize);
+            copyIn(writePosition + HEADER_SIZE, b, off, chunkSize);
+            writePosition += HEADER_SIZE + chunkSize;
+            off += chunkSize;
+            len -= chunkSize;
+            if (waitingReaders > 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void awaitSpace(int size) throws IOException {
+        while (writePosition + size - slowestReaderPosition() > capacity) {
+            if (closed) {
+                throw new IOException("log buffer closed");
+            }
+            producerWaiting = true;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for log buffer space");
+            } finally {
+                producerWaiting = false;
+            }
+        }
+        if (closed) {
+            throw new IOException("log buffer closed");
+        }
+    }
+
+    private long slowestReaderPosition() {
+        long position = writePosition;
+        for (Reader reader : readers) {
+            position = Math.min(position, reader.position);
+        }
+        return position;
+    }
+
+    private int index(long position) {
+        return (int) (position % capacity);
+    }
+
+    private void put(long position, byte value) {
+        buffer.put(index(position), value);
+    }
+
+    private byte get(long position) {
+        return buffer.get(index(position));
+    }
+
+    // casts to Buffer keep compiled code compatible with java 8 (no covariant ByteBuffer overrides there)
+    private void copyIn(long position, byte[] src, int off, int len) {
+        int index = index(position);
+        int firstPart = Math.min(len, capacity - index);
+        ((Buffer) writeView).clear();
+        ((Buffer) writeView).position(index);
+        writeView.put(src, off, firstPart);
+        if (firstPart < len) {
+            ((Buffer) writeView).clear();
+            writeView.put(src, off + firstPart, len - firstPart);
+        }
+    }
+
+    private class Reader extends InputStream {
+
+        private final boolean stdout;
+        private final boolean stderr;
+        private final ByteBuffer readView = buffer.duplicate();
+        private final byte[] singleByte = new byte[1];
+
+        /** Absolute position of next byte to read. */
+        private long position;
+        /** Bytes left to read from current chunk. */
+        private int chunkRemaining = 0;
+        private boolean readerClosed = false;
+
+        Reader(boolean stdout, boolean stderr, long position) {
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int n = read(singleByte, 0, 1);
+            return n < 0 ? -1 : singleByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            synchronized (LogRingBuffer.this) {
+                while (true) {
+                    if (readerClosed) {
+                        return -1;
+                    }
+                    if (chunkRemaining > 0) {
+                        int n = Math.min(len, chunkRemaining);
+                        copyOut(b, off, n);
+                        advance(n);
+                        chunkRemaining -= n;
+                        return n;
+                    }
+                    if (position < writePosition) {
+                        byte streamType = get(position);
+                        int chunkSize = ((get(position + 1) & 0xff) << 24) | ((get(position + 2) & 0xff) << 16)
+                                | ((get(position + 3) & 0xff) << 8) | (get(position + 4) & 0xff);
+                        if ((streamType == STDOUT && stdout) || (streamType == STDERR && stderr)) {
+                            advance(HEADER_SIZE);
+                            chunkRemaining = chunkSize;
+                        } else {
+                            advance(HEADER_SIZE + chunkSize);
+                        }
+                        continue;
+                    }
+                    if (closed) {
+                        return -1;
+                    }
+                    waitingReaders++;
+                    try {
+                        LogRingBuffer.this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("interrupted while waiting for log data");
+                    } finally {
+                        waitingReaders--;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int available() {
+            synchronized (LogRingBuffer.this) {
+                return chunkRemaining;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (LogRingBuffer.this) {
+                readerClosed = true;
+                readers.remove(this);
+                LogRingBuffer.this.notifyAll();
+            }
+        }
+
+        private void advance(int n) {
+            position += n;
+            if (producerWaiting) {
+                LogRingBuffer.this.notifyAll();
+            }
+        }
+
+        private void copyOut(byte[] dst, int off, int len) {
+            int index = index(position);
+            int firstPart = Math.min(len, capacity - index);
+            ((Buffer) readView).clear();
+            ((Buffer) readView).position(index);
+            readView.get(dst, off, firstPart);
+            if (firstPart < len) {
+                ((Buffer) readView).clear();
+                readView.get(dst, off + firstPart, len - firstPart);
+            }
+        }
+    }
+
+}
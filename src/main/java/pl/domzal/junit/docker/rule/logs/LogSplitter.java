@@ -1,43 +1,41 @@
 package pl.domzal.junit.docker.rule.logs;
 
 import java.io.Closeable;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
-
-import org.apache.commons.compress.utils.IOUtils;
-import org.apache.commons.io.output.TeeOutputStream;
 
 /**
  * Helper class for joining docker logs stdout and stderr streams
  * to set of listening input streams where one of listening input
  * streams will contain joined content of stdout and stderr.
+ * <p>
+ * Both streams are written once to shared {@link LogRingBuffer} and every listening
+ * input stream reads it with its own cursor. Listening input stream starts at
+ * current log position, so it should be obtained before writing starts.
  */
 public class LogSplitter implements Closeable {
 
-    private final PipedInputStream stdoutInput = new PipedInputStream();
-    private final PipedInputStream stderrInput = new PipedInputStream();
-    private final PipedInputStream combinedInput = new PipedInputStream();
-
-    private final PipedOutputStream stdoutPipeOutputStream;
-    private final PipedOutputStream stderrPipeOutputStream;
-    private final PipedOutputStream combinedPipeOutputStream;
+    private final LogRingBuffer buffer;
 
     private final OutputStream stdoutOutput;
     private final OutputStream stderrOutput;
 
+    private InputStream stdoutInput;
+    private InputStream stderrInput;
+    private InputStream combinedInput;
+
     public LogSplitter() {
-        try {
-            this.stdoutPipeOutputStream = new PipedOutputStream(stdoutInput);
-            this.stderrPipeOutputStream = new PipedOutputStream(stderrInput);
-            this.combinedPipeOutputStream = new PipedOutputStream(combinedInput);
-            this.stdoutOutput = new TeeOutputStream(stdoutPipeOutputStream, combinedPipeOutputStream);
-            this.stderrOutput = new TeeOutputStream(stderrPipeOutputStream, combinedPipeOutputStream);
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to create", e);
-        }
+        this(LogRingBuffer.DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * @param bufferCapacity Log buffer capacity [bytes].
+     * @param offHeap Allocate log buffer outside of java heap.
+     */
+    public LogSplitter(int bufferCapacity, boolean offHeap) {
+        this.buffer = new LogRingBuffer(bufferCapacity, offHeap);
+        this.stdoutOutput = buffer.newWriter(LogRingBuffer.STDOUT);
+        this.stderrOutput = buffer.newWriter(LogRingBuffer.STDERR);
     }
 
     public OutputStream getStdoutOutput() {
@@ -48,27 +46,32 @@ public class LogSplitter implements Closeable {
         return stderrOutput;
     }
 
-    public InputStream getStdoutInput() {
+    public synchronized InputStream getStdoutInput() {
+        if (stdoutInput == null) {
+            stdoutInput = buffer.newReader(true, false);
+        }
         return stdoutInput;
     }
 
-    public InputStream getStderrInput() {
+    public synchronized InputStream getStderrInput() {
+        if (stderrInput == null) {
+            stderrInput = buffer.newReader(false, true);
+        }
         return stderrInput;
     }
 
-    public InputStream getCombinedInput() {
+    public synchronized InputStream getCombinedInput() {
+        if (combinedInput == null) {
+            combinedInput = buffer.newReader(true, true);
+        }
         return combinedInput;
     }
 
+    /**
+     * Stop writing - listening input streams will end after reading already written data.
+     */
     @Override
     public void close() {
-        IOUtils.closeQuietly(stderrInput);
-        IOUtils.closeQuietly(stdoutInput);
-        IOUtils.closeQuietly(combinedInput);
-        IOUtils.closeQuietly(stdoutPipeOutputStream);
-        IOUtils.closeQuietly(stderrPipeOutputStream);
-        IOUtils.closeQuietly(combinedPipeOutputStream);
-        IOUtils.closeQuietly(stdoutOutput);
-        IOUtils.closeQuietly(stderrOutput);
+        buffer.close();
     }
 }
@@ -0,0 +1,303 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.exceptions.ContainerNotFoundException;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.messages.BlockIoStats;
+import org.mandas.docker.client.messages.ContainerStats;
+import org.mandas.docker.client.messages.CpuStats;
+import org.mandas.docker.client.messages.MemoryStats;
+import org.mandas.docker.client.messages.NetworkStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background sampling of container resource usage (CPU, memory, network and block I/O)
+ * with rolling aggregates of every {@link Metric}.
+ * <p>
+ * Started with {@link pl.domzal.junit.docker.rule.DockerRule#startStatsMonitor()} and closed at rule end.
+ * Per test summary can be collected with {@link #reset()} and {@link #summary()}:
+ * <pre>
+ * &#64;Before
+ * public void resetStats() {
+ *     statsMonitor.reset();
+ * }
+ *
+ * &#64;After
+ * public void printStats() {
+ *     System.out.println(statsMonitor.summary());
+ * }
+ * </pre>
+ * Stats are read with lenient models of {@link StatsObjectMapperProvider} (used by docker clients created by rules),
+ * as model of docker-client accepts cgroup v1 memory stats only. Stats of cgroup v2 hosts
+ * can not be read through clients without it.
+ */
+public class ContainerStatsMonitor implements Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(ContainerStatsMonitor.class);
+
+    /**
+     * Default time between samples [ms].
+     */
+    public static final int DEFAULT_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Number of most recent values percentiles are computed from.
+     */
+    public static final int WINDOW_SIZE = 1024;
+
+    private static final ThreadFactory STATS_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger id = new AtomicInteger(0);
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, String.format("dockerstats-%d", id.incrementAndGet()));
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    private final DockerClient dockerClient;
+    private final String containerId;
+    private final String containerShortId;
+    private final int intervalMillis;
+    private final List<StatsListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<Metric, RollingStatistics> statistics = new EnumMap<>(Metric.class);
+    private StatsSample first;
+    private StatsSample previous;
+
+    private ExecutorService executor;
+    private volatile boolean closed = false;
+
+    /**
+     * @param intervalMillis Time between samples [ms]. Single stats request takes about a second,
+     * so shorter intervals end with samples taken back to back.
+     */
+    public ContainerStatsMonitor(DockerClient dockerClient, String containerId, int intervalMillis) {
+        this.dockerClient = dockerClient;
+        this.containerId = containerId;
+        this.containerShortId = StringUtils.left(containerId, 12);
+        this.intervalMillis = intervalMillis;
+        reset();
+    }
+
+    /**
+     * Start sampling in background.
+     */
+    public synchronized ContainerStatsMonitor start() {
+        if (executor == null && !closed) {
+            executor = Executors.newSingleThreadExecutor(STATS_THREAD_FACTORY);
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    sampleUntilClosed();
+                }
+            });
+        }
+        return this;
+    }
+
+    public ContainerStatsMonitor addListener(StatsListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Forget aggregates collected so far.
+     */
+    public synchronized void reset() {
+        for (Metric metric : Metric.values()) {
+            statistics.put(metric, new RollingStatistics(WINDOW_SIZE));
+        }
+        first = previous;
+    }
+
+    /**
+     * Aggregates since start (or last {@link #reset()}).
+     */
+    public synchronized StatsSummary summary() {
+        Map<Metric, MetricSummary> metrics = new EnumMap<>(Metric.class);
+        for (Map.Entry<Metric, RollingStatistics> metric : statistics.entrySet()) {
+            metrics.put(metric.getKey(), metric.getValue().summary());
+        }
+        if (first == null || previous == null) {
+            return new StatsSummary(metrics, 0, 0, 0, 0, 0);
+        }
+        return new StatsSummary(metrics, previous.getTimeMillis() - first.getTimeMillis(),
+                previous.getNetworkRxBytes() - first.getNetworkRxBytes(),
+                previous.getNetworkTxBytes() - first.getNetworkTxBytes(),
+                previous.getBlockReadBytes() - first.getBlockReadBytes(),
+                previous.getBlockWriteBytes() - first.getBlockWriteBytes());
+    }
+
+    /**
+     * Most recent sample (<code>null</code> if there is none yet).
+     */
+    public synchronized StatsSample latest() {
+        return previous;
+    }
+
+    /**
+     * Stop sampling.
+     */
+    @Override
+    public void close() {
+        ExecutorService running;
+        synchronized (this) {
+            closed = true;
+            running = executor;
+        }
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private void sampleUntilClosed() {
+        while (!closed) {
+            long start = System.currentTimeMillis();
+            try {
+                accept(dockerClient.stats(containerId));
+                TimeUnit.MILLISECONDS.sleep(Math.max(0, intervalMillis - (System.currentTimeMillis() - start)));
+            } catch (InterruptedException e) {
+                return;
+            } catch (ContainerNotFoundException e) {
+                log.debug("{} gone, stats monitor stopped", containerShortId);
+                return;
+            } catch (DockerException | RuntimeException e) {
+                if (!closed) {
+                    log.warn("{} stats monitor stopped", containerShortId, e);
+                }
+                return;
+            }
+        }
+    }
+
+    void accept(ContainerStats stats) {
+        StatsSample sample = sample(stats);
+        synchronized (this) {
+            statistics.get(Metric.CPU_PERCENT).add(sample.getCpuPercent());
+            statistics.get(Metric.MEMORY_USAGE).add(sample.getMemoryUsageBytes());
+            if (previous != null) {
+                double seconds = (sample.getTimeMillis() - previous.getTimeMillis()) / 1000.0;
+                addRate(Metric.NETWORK_RX_RATE, previous.getNetworkRxBytes(), sample.getNetworkRxBytes(), seconds);
+                addRate(Metric.NETWORK_TX_RATE, previous.getNetworkTxBytes(), sample.getNetworkTxBytes(), seconds);
+                addRate(Metric.BLOCK_READ_RATE, previous.getBlockReadBytes(), sample.getBlockReadBytes(), seconds);
+                addRate(Metric.BLOCK_WRITE_RATE, previous.getBlockWriteBytes(), sample.getBlockWriteBytes(), seconds);
+            }
+            if (first == null) {
+                first = sample;
+            }
+            previous = sample;
+        }
+        for (StatsListener listener : listeners) {
+            try {
+                listener.sample(sample);
+            } catch (RuntimeException e) {
+                log.warn("stats listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private void addRate(Metric metric, long previousValue, long value, double seconds) {
+        // counters are reset on container restart
+        if (seconds > 0 && value >= previousValue) {
+            statistics.get(metric).add((value - previousValue) / seconds);
+        }
+    }
+
+    static StatsSample sample(ContainerStats stats) {
+        long time = stats.read() != null ? stats.read().getTime() : System.currentTimeMillis();
+        long rx = 0;
+        long tx = 0;
+        if (stats.networks() != null) {
+            for (NetworkStats network : stats.networks().values()) {
+                rx += nullToZero(network.rxBytes());
+                tx += nullToZero(network.txBytes());
+            }
+        } else if (stats.network() != null) {
+            rx = nullToZero(stats.network().rxBytes());
+            tx = nullToZero(stats.network().txBytes());
+        }
+        long[] blockIo = blockReadWrite(stats.blockIoStats());
+        MemoryStats memory = stats.memoryStats();
+        long memoryUsage = 0;
+        long memoryLimit = 0;
+        if (memory != null) {
+            memoryUsage = Math.max(0, nullToZero(memory.usage()) - inactiveFile(memory));
+            memoryLimit = nullToZero(memory.limit());
+        }
+        return new StatsSample(time, cpuPercent(stats.cpuStats(), stats.precpuStats()), memoryUsage, memoryLimit, rx, tx, blockIo[0], blockIo[1]);
+    }
+
+    /**
+     * Inactive file cache is not counted as used memory (like <code>docker stats</code> does).
+     */
+    private static long inactiveFile(MemoryStats memory) {
+        if (memory instanceof LenientMemoryStats) {
+            return ((LenientMemoryStats) memory).inactiveFile();
+        }
+        return memory.stats() != null ? nullToZero(memory.stats().totalInactiveFile()) : 0;
+    }
+
+    private static double cpuPercent(CpuStats cpu, CpuStats precpu) {
+        if (cpu == null || precpu == null || cpu.cpuUsage() == null || precpu.cpuUsage() == null) {
+            return 0;
+        }
+        long cpuDelta = nullToZero(cpu.cpuUsage().totalUsage()) - nullToZero(precpu.cpuUsage().totalUsage());
+        long systemDelta = nullToZero(cpu.systemCpuUsage()) - nullToZero(precpu.systemCpuUsage());
+        if (cpuDelta <= 0 || systemDelta <= 0) {
+            return 0;
+        }
+        return (double) cpuDelta / systemDelta * onlineCpus(cpu) * 100.0;
+    }
+
+    /**
+     * Number of cpus usage was measured on (like <code>docker stats</code> - <code>online_cpus</code>,
+     * then size of <code>percpu_usage</code>, which is not reported on cgroup v2).
+     */
+    private static long onlineCpus(CpuStats cpu) {
+        if (cpu instanceof LenientCpuStats && nullToZero(((LenientCpuStats) cpu).onlineCpus()) > 0) {
+            return ((LenientCpuStats) cpu).onlineCpus();
+        }
+        List<Long> perCpu = cpu.cpuUsage().percpuUsage();
+        return perCpu != null && !perCpu.isEmpty() ? perCpu.size() : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static long[] blockReadWrite(BlockIoStats blockIo) {
+        long[] readWrite = new long[2];
+        if (blockIo == null || blockIo.ioServiceBytesRecursive() == null) {
+            return readWrite;
+        }
+        for (Object entry : blockIo.ioServiceBytesRecursive()) {
+            if (entry instanceof Map) {
+                Object op = ((Map<?, ?>) entry).get("op");
+                Object value = ((Map<?, ?>) entry).get("value");
+                if (value instanceof Number) {
+                    if ("read".equalsIgnoreCase(String.valueOf(op))) {
+                        readWrite[0] += ((Number) value).longValue();
+                    } else if ("write".equalsIgnoreCase(String.valueOf(op))) {
+                        readWrite[1] += ((Number) value).longValue();
+                    }
+                }
+            }
+        }
+        return readWrite;
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+}
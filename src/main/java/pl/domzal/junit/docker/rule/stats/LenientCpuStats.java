@@ -0,0 +1,93 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.mandas.docker.client.messages.CpuStats;
+
+/**
+ * Model of <code>cpu_stats</code> part of docker stats response with <code>online_cpus</code>,
+ * which docker-client does not read.
+ * <p>
+ * cgroup v2 hosts do not report <code>percpu_usage</code>, so number of online cpus
+ * is the only way to tell how many cpus usage was measured on.
+ */
+class LenientCpuStats implements CpuStats {
+
+    private final CpuStats.CpuUsage cpuUsage;
+    private final Long systemCpuUsage;
+    private final CpuStats.ThrottlingData throttlingData;
+    private final Long onlineCpus;
+
+    LenientCpuStats(CpuStats.CpuUsage cpuUsage, Long systemCpuUsage, CpuStats.ThrottlingData throttlingData, Long onlineCpus) {
+        this.cpuUsage = cpuUsage;
+        this.systemCpuUsage = systemCpuUsage;
+        this.throttlingData = throttlingData;
+        this.onlineCpus = onlineCpus;
+    }
+
+    @Override
+    public CpuStats.CpuUsage cpuUsage() {
+        return cpuUsage;
+    }
+
+    @Override
+    public Long systemCpuUsage() {
+        return systemCpuUsage;
+    }
+
+    @Override
+    public CpuStats.ThrottlingData throttlingData() {
+        return throttlingData;
+    }
+
+    /**
+     * Number of online cpus (<code>null</code> when not reported - daemons older than API 1.27).
+     */
+    Long onlineCpus() {
+        return onlineCpus;
+    }
+
+    @Override
+    public String toString() {
+        return "CpuStats{cpuUsage=" + cpuUsage + ", systemCpuUsage=" + systemCpuUsage + ", onlineCpus=" + onlineCpus + "}";
+    }
+
+    /**
+     * Mix-in of {@link CpuStats} - builder declared on it takes precedence over deserializers of modules.
+     */
+    @JsonDeserialize(using = Deserializer.class)
+    interface MixIn {
+    }
+
+    static class Deserializer extends StdDeserializer<CpuStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(CpuStats.class);
+        }
+
+        @Override
+        public CpuStats deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonNode node = p.getCodec().readTree(p);
+            return new LenientCpuStats(value(p, node, "cpu_usage", CpuStats.CpuUsage.class), longValue(node, "system_cpu_usage"),
+                    value(p, node, "throttling_data", CpuStats.ThrottlingData.class), longValue(node, "online_cpus"));
+        }
+
+        private static <T> T value(JsonParser p, JsonNode node, String name, Class<T> type) throws IOException {
+            JsonNode value = node.get(name);
+            return value != null && value.isObject() ? p.getCodec().treeToValue(value, type) : null;
+        }
+
+        private static Long longValue(JsonNode node, String name) {
+            JsonNode value = node.get(name);
+            return value != null && value.isNumber() ? value.longValue() : null;
+        }
+    }
+
+}
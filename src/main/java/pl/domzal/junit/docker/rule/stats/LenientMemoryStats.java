@@ -0,0 +1,146 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.mandas.docker.client.messages.MemoryStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lenient model of <code>memory_stats</code> part of docker stats response.
+ * <p>
+ * docker-client requires every cgroup v1 counter in {@link MemoryStats.Stats}, so stats of containers
+ * on cgroup v2 hosts (which report no <code>total_*</code> nor <code>cache</code> counters) can not be read at all.
+ * This model accepts counters of both versions as reported - {@link #stats()} is present only when
+ * they are complete cgroup v1 ones.
+ */
+class LenientMemoryStats implements MemoryStats {
+
+    private static Logger log = LoggerFactory.getLogger(LenientMemoryStats.class);
+
+    private final Long usage;
+    private final Long maxUsage;
+    private final Long failcnt;
+    private final Long limit;
+    private final Map<String, Long> counters;
+    private final MemoryStats.Stats stats;
+
+    LenientMemoryStats(Long usage, Long maxUsage, Long failcnt, Long limit, Map<String, Long> counters, MemoryStats.Stats stats) {
+        this.usage = usage;
+        this.maxUsage = maxUsage;
+        this.failcnt = failcnt;
+        this.limit = limit;
+        this.counters = Collections.unmodifiableMap(new HashMap<>(counters));
+        this.stats = stats;
+    }
+
+    @Override
+    public MemoryStats.Stats stats() {
+        return stats;
+    }
+
+    @Override
+    public Long maxUsage() {
+        return maxUsage;
+    }
+
+    @Override
+    public Long usage() {
+        return usage;
+    }
+
+    @Override
+    public Long failcnt() {
+        return failcnt;
+    }
+
+    @Override
+    public Long limit() {
+        return limit;
+    }
+
+    /**
+     * Memory of inactive file cache (0 when not reported) - cgroup v1 <code>total_inactive_file</code>
+     * or cgroup v2 <code>inactive_file</code> (v2 has no hierarchical totals, own counters cover children),
+     * with <code>cache</code> of old daemons as last resort.
+     */
+    long inactiveFile() {
+        for (String name : new String[] {"total_inactive_file", "inactive_file", "cache"}) {
+            Long value = counters.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryStats{usage=" + usage + ", limit=" + limit + ", stats=" + counters + "}";
+    }
+
+    /**
+     * Mix-in of {@link MemoryStats} - builder declared on it takes precedence over deserializers of modules.
+     */
+    @JsonDeserialize(using = Deserializer.class)
+    interface MixIn {
+    }
+
+    static class Deserializer extends StdDeserializer<MemoryStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(MemoryStats.class);
+        }
+
+        @Override
+        public MemoryStats deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonNode node = p.getCodec().readTree(p);
+            Map<String, Long> counters = new HashMap<>();
+            MemoryStats.Stats stats = null;
+            JsonNode statsNode = node.get("stats");
+            if (statsNode != null && statsNode.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = statsNode.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    if (field.getValue().isIntegralNumber()) {
+                        counters.put(field.getKey(), field.getValue().longValue());
+                    }
+                }
+                stats = v1Stats(p, statsNode);
+            }
+            return new LenientMemoryStats(longValue(node, "usage"), longValue(node, "max_usage"),
+                    longValue(node, "failcnt"), longValue(node, "limit"), counters, stats);
+        }
+
+        private static MemoryStats.Stats v1Stats(JsonParser p, JsonNode statsNode) {
+            if (!statsNode.has("total_inactive_file")) {
+                // cgroup v2
+                return null;
+            }
+            try {
+                return p.getCodec().treeToValue(statsNode, MemoryStats.Stats.class);
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.debug("incomplete cgroup v1 memory stats {}", statsNode, e);
+                return null;
+            }
+        }
+
+        private static Long longValue(JsonNode node, String name) {
+            JsonNode value = node.get(name);
+            return value != null && value.isNumber() ? value.longValue() : null;
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package pl.domzal.junit.docker.rule.stats;
+
+/**
+ * Container resource usage metric aggregated by {@link ContainerStatsMonitor}.
+ */
+public enum Metric {
+
+    /**
+     * CPU usage [%] - 100% is one fully used CPU core.
+     */
+    CPU_PERCENT("%"),
+    /**
+     * Memory usage (without page cache) [bytes].
+     */
+    MEMORY_USAGE("B"),
+    /**
+     * Network receive rate, all interfaces [bytes/s].
+     */
+    NETWORK_RX_RATE("B/s"),
+    /**
+     * Network transmit rate, all interfaces [bytes/s].
+     */
+    NETWORK_TX_RATE("B/s"),
+    /**
+     * Block device read rate [bytes/s].
+     */
+    BLOCK_READ_RATE("B/s"),
+    /**
+     * Block device write rate [bytes/s].
+     */
+    BLOCK_WRITE_RATE("B/s");
+
+    private final String unit;
+
+    Metric(String unit) {
+        this.unit = unit;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+}
@@ -0,0 +1,61 @@
+package pl.domzal.junit.docker.rule.stats;
+
+/**
+ * Aggregates of single {@link Metric}. Percentiles are computed from most recent
+ * {@link ContainerStatsMonitor#WINDOW_SIZE} values, remaining aggregates from all values.
+ * Aggregates of metric without values are <code>NaN</code>.
+ */
+public final class MetricSummary {
+
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+
+    MetricSummary(long count, double min, double max, double mean, double p50, double p90, double p99) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d, min: %.1f, mean: %.1f, max: %.1f, p50: %.1f, p90: %.1f, p99: %.1f",
+                count, min, mean, max, p50, p90, p99);
+    }
+}
@@ -0,0 +1,64 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates of single metric. Count, min, max and mean cover all values since creation,
+ * percentiles are computed from fixed-size window of most recent values.
+ * Not thread safe.
+ */
+class RollingStatistics {
+
+    private final double[] window;
+    private int windowStart = 0;
+    private int windowSize = 0;
+
+    private long count = 0;
+    private double sum = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    RollingStatistics(int windowCapacity) {
+        this.window = new double[windowCapacity];
+    }
+
+    void add(double value) {
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        sum += value;
+        if (windowSize < window.length) {
+            window[(windowStart + windowSize) % window.length] = value;
+            windowSize++;
+        } else {
+            window[windowStart] = value;
+            windowStart = (windowStart + 1) % window.length;
+        }
+    }
+
+    MetricSummary summary() {
+        if (count == 0) {
+            return new MetricSummary(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        double[] sorted = new double[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            sorted[i] = window[(windowStart + i) % window.length];
+        }
+        Arrays.sort(sorted);
+        return new MetricSummary(count, min, max, sum / count, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99));
+    }
+
+    /**
+     * Nearest-rank percentile.
+     */
+    private static double percentile(double[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+}
@@ -0,0 +1,11 @@
+package pl.domzal.junit.docker.rule.stats;
+
+/**
+ * Listener of container resource usage samples (see {@link ContainerStatsMonitor#addListener(StatsListener)}).
+ * Called from monitor thread.
+ */
+public interface StatsListener {
+
+    void sample(StatsSample sample);
+
+}
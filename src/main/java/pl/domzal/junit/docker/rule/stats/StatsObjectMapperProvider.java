@@ -0,0 +1,31 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import javax.ws.rs.ext.ContextResolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mandas.docker.client.ObjectMapperProvider;
+import org.mandas.docker.client.messages.CpuStats;
+import org.mandas.docker.client.messages.MemoryStats;
+
+/**
+ * Object mapper of docker clients created by rules - private copy of docker-client mapper
+ * which reads container stats with lenient models (see {@link ContainerStatsMonitor}).
+ * <p>
+ * Mapper of docker-client is shared by all its users in JVM, so it is left as it is.
+ */
+public class StatsObjectMapperProvider implements ContextResolver<ObjectMapper> {
+
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMapperProvider.objectMapper().copy()
+            .addMixIn(MemoryStats.class, LenientMemoryStats.MixIn.class)
+            .addMixIn(CpuStats.class, LenientCpuStats.MixIn.class);
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return OBJECT_MAPPER;
+    }
+
+    public static ObjectMapper objectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+}
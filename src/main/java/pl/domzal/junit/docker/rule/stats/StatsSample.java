@@ -0,0 +1,87 @@
+package pl.domzal.junit.docker.rule.stats;
+
+/**
+ * Single container resource usage sample. Network and block I/O values are cumulative counters.
+ */
+public final class StatsSample {
+
+    private final long timeMillis;
+    private final double cpuPercent;
+    private final long memoryUsageBytes;
+    private final long memoryLimitBytes;
+    private final long networkRxBytes;
+    private final long networkTxBytes;
+    private final long blockReadBytes;
+    private final long blockWriteBytes;
+
+    public StatsSample(long timeMillis, double cpuPercent, long memoryUsageBytes, long memoryLimitBytes,
+                       long networkRxBytes, long networkTxBytes, long blockReadBytes, long blockWriteBytes) {
+        this.timeMillis = timeMillis;
+        this.cpuPercent = cpuPercent;
+        this.memoryUsageBytes = memoryUsageBytes;
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.networkRxBytes = networkRxBytes;
+        this.networkTxBytes = networkTxBytes;
+        this.blockReadBytes = blockReadBytes;
+        this.blockWriteBytes = blockWriteBytes;
+    }
+
+    /**
+     * Time sample was read by docker daemon [epoch ms].
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * CPU usage since previous daemon reading [%] - 100% is one fully used CPU core.
+     */
+    public double getCpuPercent() {
+        return cpuPercent;
+    }
+
+    /**
+     * Memory usage without page cache [bytes].
+     */
+    public long getMemoryUsageBytes() {
+        return memoryUsageBytes;
+    }
+
+    public long getMemoryLimitBytes() {
+        return memoryLimitBytes;
+    }
+
+    /**
+     * Bytes received on all interfaces since container start.
+     */
+    public long getNetworkRxBytes() {
+        return networkRxBytes;
+    }
+
+    /**
+     * Bytes transmitted on all interfaces since container start.
+     */
+    public long getNetworkTxBytes() {
+        return networkTxBytes;
+    }
+
+    /**
+     * Bytes read from block devices since container start.
+     */
+    public long getBlockReadBytes() {
+        return blockReadBytes;
+    }
+
+    /**
+     * Bytes written to block devices since container start.
+     */
+    public long getBlockWriteBytes() {
+        return blockWriteBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cpu: %.1f%%, memory: %d/%d B, network rx/tx: %d/%d B, block read/write: %d/%d B",
+                cpuPercent, memoryUsageBytes, memoryLimitBytes, networkRxBytes, networkTxBytes, blockReadBytes, blockWriteBytes);
+    }
+}
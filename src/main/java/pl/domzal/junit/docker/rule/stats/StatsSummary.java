@@ -0,0 +1,79 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Container resource usage summary (see {@link ContainerStatsMonitor#summary()}).
+ */
+public final class StatsSummary {
+
+    private final Map<Metric, MetricSummary> metrics;
+    private final long durationMillis;
+    private final long networkRxBytes;
+    private final long networkTxBytes;
+    private final long blockReadBytes;
+    private final long blockWriteBytes;
+
+    StatsSummary(Map<Metric, MetricSummary> metrics, long durationMillis,
+                 long networkRxBytes, long networkTxBytes, long blockReadBytes, long blockWriteBytes) {
+        this.metrics = Collections.unmodifiableMap(new EnumMap<>(metrics));
+        this.durationMillis = durationMillis;
+        this.networkRxBytes = networkRxBytes;
+        this.networkTxBytes = networkTxBytes;
+        this.blockReadBytes = blockReadBytes;
+        this.blockWriteBytes = blockWriteBytes;
+    }
+
+    public MetricSummary get(Metric metric) {
+        return metrics.get(metric);
+    }
+
+    /**
+     * Time between first and last sample [ms].
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Bytes received between first and last sample.
+     */
+    public long getNetworkRxBytes() {
+        return networkRxBytes;
+    }
+
+    /**
+     * Bytes transmitted between first and last sample.
+     */
+    public long getNetworkTxBytes() {
+        return networkTxBytes;
+    }
+
+    /**
+     * Bytes read from block devices between first and last sample.
+     */
+    public long getBlockReadBytes() {
+        return blockReadBytes;
+    }
+
+    /**
+     * Bytes written to block devices between first and last sample.
+     */
+    public long getBlockWriteBytes() {
+        return blockWriteBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format("%dms, network rx/tx: %d/%d B, block read/write: %d/%d B",
+                durationMillis, networkRxBytes, networkTxBytes, blockReadBytes, blockWriteBytes));
+        for (Map.Entry<Metric, MetricSummary> metric : metrics.entrySet()) {
+            summary.append(System.lineSeparator())
+                    .append(metric.getKey()).append(" [").append(metric.getKey().getUnit()).append("] ")
+                    .append(metric.getValue());
+        }
+        return summary.toString();
+    }
+}
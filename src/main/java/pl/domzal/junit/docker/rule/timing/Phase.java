@@ -0,0 +1,41 @@
+package pl.domzal.junit.docker.rule.timing;
+
+/**
+ * Container lifecycle phase timed by {@link pl.domzal.junit.docker.rule.DockerRule}.
+ */
+public enum Phase {
+
+    /**
+     * Making sure image is present (pulling it when needed), in rule constructor.
+     */
+    PULL,
+    /**
+     * Container creation (or lookup of running container when container reuse is enabled).
+     */
+    CREATE,
+    /**
+     * Container start.
+     */
+    START,
+    /**
+     * Attaching to container log.
+     */
+    ATTACH,
+    /**
+     * Inspecting started container (network settings and ports).
+     */
+    INSPECT,
+    /**
+     * Waiting for single start condition (described by {@link PhaseTiming#getDetail()}).
+     */
+    WAIT,
+    /**
+     * Container stop (or kill).
+     */
+    STOP,
+    /**
+     * Container removal.
+     */
+    REMOVE
+
+}
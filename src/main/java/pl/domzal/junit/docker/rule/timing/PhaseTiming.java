@@ -0,0 +1,91 @@
+package pl.domzal.junit.docker.rule.timing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duration of single container lifecycle {@link Phase}.
+ */
+public final class PhaseTiming {
+
+    private final String image;
+    private final String container;
+    private final Phase phase;
+    private final String detail;
+    private final long durationNanos;
+    private final boolean failed;
+
+    /**
+     * @param image Image name (with tag).
+     * @param container Container short id (<code>null</code> if container is not created yet).
+     * @param phase Timed phase.
+     * @param detail Phase detail (wait condition description), optional.
+     * @param durationNanos Phase duration.
+     * @param failed Whether phase failed.
+     */
+    public PhaseTiming(String image, String container, Phase phase, String detail, long durationNanos, boolean failed) {
+        this.image = image;
+        this.container = container;
+        this.phase = phase;
+        this.detail = detail;
+        this.durationNanos = durationNanos;
+        this.failed = failed;
+    }
+
+    /**
+     * Image name (with tag).
+     */
+    public String getImage() {
+        return image;
+    }
+
+    /**
+     * Container short id (<code>null</code> for phases preceding container creation).
+     */
+    public String getContainer() {
+        return container;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Phase detail - description of condition for {@link Phase#WAIT}, <code>null</code> for other phases.
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * Whether phase failed. Only wait conditions which were not met are reported as failed,
+     * other phases are reported only when successful.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder(image);
+        if (container != null) {
+            description.append(' ').append(container);
+        }
+        description.append(' ').append(phase);
+        if (detail != null) {
+            description.append(' ').append(detail);
+        }
+        description.append(' ').append(getDurationMillis()).append("ms");
+        if (failed) {
+            description.append(" (failed)");
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package pl.domzal.junit.docker.rule.timing;
+
+/**
+ * Listener of container lifecycle phase timings
+ * (see {@link pl.domzal.junit.docker.rule.DockerRuleBuilder#timingListener(TimingListener)}).
+ * <p>
+ * Concurrently checked wait conditions are reported from waiting threads, so implementations must be thread safe.
+ */
+public interface TimingListener {
+
+    /**
+     * Called when phase ends.
+     */
+    void phaseFinished(PhaseTiming timing);
+
+}
@@ -0,0 +1,116 @@
+package pl.domzal.junit.docker.rule.timing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase timings of all containers aggregated by image, phase and phase detail - to find slowest containers
+ * (and their slowest phases) of whole test suite.
+ * <p>
+ * When {@value #SUMMARY_PROPERTY} system property is set to <code>true</code> timings of all rules are collected
+ * in process wide instance ({@link #jvmSummary()}) and its report, sorted by total time, is printed
+ * to standard output at JVM exit.
+ */
+public class TimingSummary implements TimingListener {
+
+    public static final String SUMMARY_PROPERTY = "junit.docker.rule.timing.summary";
+
+    private static final TimingSummary INSTANCE = new TimingSummary();
+
+    private static class Entry {
+
+        private final String description;
+        private int count;
+        private int failures;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Entry(String description) {
+            this.description = description;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean printAtExit = false;
+
+    /**
+     * Process wide summary, if enabled with {@value #SUMMARY_PROPERTY} system property.
+     *
+     * @return Process wide summary or <code>null</code> when not enabled.
+     */
+    public static TimingSummary jvmSummary() {
+        if (!Boolean.getBoolean(SUMMARY_PROPERTY)) {
+            return null;
+        }
+        INSTANCE.printAtExit();
+        return INSTANCE;
+    }
+
+    @Override
+    public synchronized void phaseFinished(PhaseTiming timing) {
+        String description = timing.getImage() + " " + timing.getPhase() + (timing.getDetail() != null ? " " + timing.getDetail() : "");
+        Entry entry = entries.get(description);
+        if (entry == null) {
+            entry = new Entry(description);
+            entries.put(description, entry);
+        }
+        entry.count++;
+        if (timing.isFailed()) {
+            entry.failures++;
+        }
+        entry.totalNanos += timing.getDurationNanos();
+        entry.maxNanos = Math.max(entry.maxNanos, timing.getDurationNanos());
+    }
+
+    /**
+     * Summary report - one line per image, phase and phase detail, sorted by total time (descending).
+     */
+    public synchronized String report() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                return Long.compare(e2.totalNanos, e1.totalNanos);
+            }
+        });
+        StringBuilder report = new StringBuilder(String.format("%10s %6s %10s %10s  %s%n", "total[ms]", "count", "avg[ms]", "max[ms]", "image/phase"));
+        for (Entry entry : sorted) {
+            report.append(String.format("%10d %6d %10d %10d  %s%s%n",
+                    TimeUnit.NANOSECONDS.toMillis(entry.totalNanos),
+                    entry.count,
+                    TimeUnit.NANOSECONDS.toMillis(entry.totalNanos / entry.count),
+                    TimeUnit.NANOSECONDS.toMillis(entry.maxNanos),
+                    entry.description,
+                    entry.failures > 0 ? String.format(" (%d failed)", entry.failures) : ""));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Print report at JVM exit (if there is anything to report).
+     */
+    public synchronized void printAtExit() {
+        if (printAtExit) {
+            return;
+        }
+        printAtExit = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (TimingSummary.this) {
+                    if (entries.isEmpty()) {
+                        return;
+                    }
+                }
+                System.out.print("docker container phase timings:" + System.lineSeparator() + report());
+                System.out.flush();
+            }
+        }, "dockertiming-summary"));
+    }
+
+}
@@ -0,0 +1,142 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton finding which of set of substrings occur in text in single pass over text.
+ */
+class AhoCorasickMatcher {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final Node root = new Node();
+    private final int patternCount;
+
+    AhoCorasickMatcher(List<String> patterns) {
+        this.patternCount = patterns.size();
+        for (int i = 0; i < patterns.size(); i++) {
+            Node node = root;
+            for (char c : patterns.get(i).toCharArray()) {
+                node = node.childToBuild(c);
+            }
+            node.outputs = append(node.outputs, i);
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * Find patterns occurring in text.
+     *
+     * @param text Text to search.
+     * @param found Cleared (all <code>false</code>) array, set to <code>true</code> at indexes of patterns
+     *              (as given in constructor) found in text.
+     * @return Number of distinct patterns found.
+     */
+    int match(CharSequence text, boolean[] found) {
+        int foundCount = mark(root.outputs, found);
+        Node node = root;
+        for (int i = 0; i < text.length() && foundCount < patternCount; i++) {
+            node = next(node, text.charAt(i));
+            if (node.outputs.length > 0) {
+                foundCount += mark(node.outputs, found);
+            }
+        }
+        return foundCount;
+    }
+
+    private static int mark(int[] outputs, boolean[] found) {
+        int marked = 0;
+        for (int patternIndex : outputs) {
+            if (!found[patternIndex]) {
+                found[patternIndex] = true;
+                marked++;
+            }
+        }
+        return marked;
+    }
+
+    private Node next(Node node, char c) {
+        while (true) {
+            Node child = node.child(c);
+            if (child != null) {
+                return child;
+            }
+            if (node == root) {
+                return root;
+            }
+            node = node.fail;
+        }
+    }
+
+    private void buildFailureLinks() {
+        Queue<Node> queue = new ArrayDeque<>();
+        root.freeze();
+        for (Node child : root.children) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            node.freeze();
+            for (int i = 0; i < node.keys.length; i++) {
+                Node child = node.children[i];
+                child.fail = next(node.fail, node.keys[i]);
+                queue.add(child);
+            }
+            // fail node is closer to root so its outputs are already complete
+            for (int patternIndex : node.fail.outputs) {
+                node.outputs = append(node.outputs, patternIndex);
+            }
+        }
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static class Node {
+
+        private Map<Character, Node> building = new TreeMap<>();
+        private char[] keys;
+        private Node[] children;
+        private Node fail;
+        private int[] outputs = NO_OUTPUT;
+
+        Node childToBuild(char c) {
+            Node child = building.get(c);
+            if (child == null) {
+                child = new Node();
+                building.put(c, child);
+            }
+            return child;
+        }
+
+        /**
+         * Convert children map to sorted arrays searched without boxing.
+         */
+        void freeze() {
+            keys = new char[building.size()];
+            children = new Node[building.size()];
+            int i = 0;
+            for (Map.Entry<Character, Node> entry : building.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i] = entry.getValue();
+                i++;
+            }
+            building = null;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One shot 'condition met' signal. Helper for {@link SignalingStartConditionCheck} implementations.
+ */
+public class ConditionSignal {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * Mark condition as met and wake up all waiting threads.
+     */
+    public void signal() {
+        latch.countDown();
+    }
+
+    public boolean isSignaled() {
+        return latch.getCount() == 0;
+    }
+
+    /**
+     * Block until signal or timeout.
+     *
+     * @return <code>true</code> if signaled.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return latch.await(timeout, unit);
+    }
+
+}
@@ -0,0 +1,142 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.ExecCreateParam;
+import org.mandas.docker.client.DockerClient.ExecStartParameter;
+import org.mandas.docker.client.LogStream;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.messages.ExecState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Check whether command executed in container (like <code>pg_isready</code> or <code>redis-cli ping</code>)
+ * exits with code 0.
+ * <p>
+ * Every check creates new exec instance (docker runs exec instance only once) from the same command
+ * and parameters, starts it detached (output is not transferred) and follows its state with
+ * {@link DockerClient#execInspect(String)} - first after {@value #INSPECT_MIN_MS}ms, then with interval doubled
+ * up to {@value #INSPECT_MAX_MS}ms - till command exits. Command still running after attempt timeout
+ * counts as failed check. It is left running (docker api can not stop it) and following checks keep
+ * following it instead of starting another one, so slow commands never pile up in container.
+ */
+public class ExecChecker implements StartConditionCheck {
+
+    private static Logger log = LoggerFactory.getLogger(ExecChecker.class);
+
+    /**
+     * Default max time of single command run [ms].
+     */
+    public static final int DEFAULT_ATTEMPT_TIMEOUT_MS = 5000;
+
+    static final int INSPECT_MIN_MS = 5;
+    static final int INSPECT_MAX_MS = 200;
+
+    private static final int SHORT_ID_LEN = 12;
+
+    private static final ExecCreateParam[] EXEC_PARAMS = {ExecCreateParam.attachStdout(false), ExecCreateParam.attachStderr(false)};
+
+    private final DockerClient dockerClient;
+    private final String containerId;
+    private final String containerShortId;
+    private final String[] cmd;
+    private final int attemptTimeoutMillis;
+
+    private Long lastExitCode;
+    private String runningExecId;
+
+    public ExecChecker(DockerClient dockerClient, String containerId, String... cmd) {
+        this(dockerClient, containerId, DEFAULT_ATTEMPT_TIMEOUT_MS, cmd);
+    }
+
+    /**
+     * @param attemptTimeoutMillis Max time of single command run [ms].
+     */
+    public ExecChecker(DockerClient dockerClient, String containerId, int attemptTimeoutMillis, String... cmd) {
+        if (cmd == null || cmd.length == 0) {
+            throw new IllegalArgumentException("command to execute is required");
+        }
+        this.dockerClient = dockerClient;
+        this.containerId = containerId;
+        this.containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+        this.cmd = cmd.clone();
+    }
+
+    /**
+     * Exit code of last completed command run (<code>null</code> if none completed yet).
+     */
+    public Long getLastExitCode() {
+        return lastExitCode;
+    }
+
+    @Override
+    public boolean check() {
+        try {
+            Long exitCode = execute();
+            if (exitCode != null) {
+                lastExitCode = exitCode;
+                log.debug("{} {} exited with code {}", containerShortId, Arrays.asList(cmd), exitCode);
+            }
+            return exitCode != null && exitCode == 0;
+        } catch (DockerException | IllegalStateException e) {
+            // container not running (reported by client as IllegalStateException) - not met
+            log.debug("{} exec of {} failed", containerShortId, Arrays.asList(cmd), e);
+            runningExecId = null;
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return Command exit code or <code>null</code> when it did not complete in attempt timeout.
+     */
+    private Long execute() throws DockerException, InterruptedException {
+        long deadline = System.currentTimeMillis() + attemptTimeoutMillis;
+        String execId = runningExecId;
+        if (execId == null) {
+            execId = dockerClient.execCreate(containerId, cmd, EXEC_PARAMS).id();
+            LogStream startResponse = dockerClient.execStart(execId, ExecStartParameter.DETACH);
+            // detached - nothing to read
+            try {
+                startResponse.close();
+            } catch (IOException e) {
+                log.trace("{} closing exec start response failed", containerShortId, e);
+            }
+        } else {
+            log.trace("{} {} following previous run", containerShortId, Arrays.asList(cmd));
+        }
+        long inspectMs = INSPECT_MIN_MS;
+        while (true) {
+            ExecState state = dockerClient.execInspect(execId);
+            if (!Boolean.TRUE.equals(state.running()) && state.exitCode() != null) {
+                runningExecId = null;
+                return state.exitCode();
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                log.debug("{} {} still running after {}ms", containerShortId, Arrays.asList(cmd), attemptTimeoutMillis);
+                runningExecId = execId;
+                return null;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(inspectMs, remaining));
+            inspectMs = Math.min(inspectMs * 2, INSPECT_MAX_MS);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return String.format("exec %s exit code 0", Arrays.asList(cmd));
+    }
+
+    @Override
+    public void after() { }
+
+}
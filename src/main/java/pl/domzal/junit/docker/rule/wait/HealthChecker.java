@@ -0,0 +1,265 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.EventsParam;
+import org.mandas.docker.client.EventStream;
+import org.mandas.docker.client.exceptions.ContainerNotFoundException;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.messages.ContainerState;
+import org.mandas.docker.client.messages.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.domzal.junit.docker.rule.ex.ContainerUnhealthyException;
+
+/**
+ * Wait till container <code>HEALTHCHECK</code> reports container healthy.
+ * <p>
+ * Health status changes are followed with docker events stream (<code>health_status</code> and
+ * <code>die</code> events of container), container is inspected only at start and when it turns
+ * unhealthy or dies (to report details). When events stream is not available container state
+ * is polled with {@link DockerClient#inspectContainer(String)} instead.
+ * <p>
+ * Check fails with {@link ContainerUnhealthyException} when container is unhealthy, exits
+ * or has no <code>HEALTHCHECK</code> defined.
+ */
+public class HealthChecker implements SignalingStartConditionCheck {
+
+    private static Logger log = LoggerFactory.getLogger(HealthChecker.class);
+
+    static final String HEALTH_STATUS_EVENT = "health_status";
+    static final String DIE_EVENT = "die";
+    static final String HEALTHY = "healthy";
+    static final String UNHEALTHY = "unhealthy";
+
+    private static final int SHORT_ID_LEN = 12;
+
+    private static final ThreadFactory HEALTH_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger id = new AtomicInteger(0);
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, String.format("dockerhealth-%d", id.incrementAndGet()));
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    private final DockerClient dockerClient;
+    private final String containerId;
+    private final String containerShortId;
+
+    private final Object lock = new Object();
+    private String status;
+    private String failure;
+    private boolean started = false;
+    private boolean followingEvents = false;
+    private boolean closed = false;
+    private EventStream events;
+    private ExecutorService executor;
+
+    public HealthChecker(DockerClient dockerClient, String containerId) {
+        this.dockerClient = dockerClient;
+        this.containerId = containerId;
+        this.containerShortId = StringUtils.left(containerId, SHORT_ID_LEN);
+    }
+
+    @Override
+    public boolean check() {
+        boolean subscribe;
+        boolean inspect;
+        synchronized (lock) {
+            subscribe = !started;
+            started = true;
+            // healthy or failed is final, events stream ends there
+            inspect = subscribe || !followingEvents && failure == null && !HEALTHY.equals(status);
+        }
+        if (subscribe) {
+            // state is inspected after subscription, so no change is missed
+            followEvents();
+        }
+        if (inspect) {
+            inspect();
+        }
+        synchronized (lock) {
+            if (failure != null) {
+                throw new ContainerUnhealthyException(failure);
+            }
+            return HEALTHY.equals(status);
+        }
+    }
+
+    @Override
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized (lock) {
+            long remaining;
+            while (!HEALTHY.equals(status) && failure == null && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                lock.wait(remaining);
+            }
+            return HEALTHY.equals(status) || failure != null;
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "container healthy";
+    }
+
+    @Override
+    public void after() {
+        EventStream stream;
+        ExecutorService running;
+        synchronized (lock) {
+            closed = true;
+            stream = events;
+            running = executor;
+            events = null;
+            executor = null;
+        }
+        if (stream != null) {
+            close(stream);
+        }
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    /**
+     * Open events stream (without holding lock - it is a blocking request) and follow it in background.
+     */
+    private void followEvents() {
+        final EventStream stream;
+        try {
+            stream = dockerClient.events(EventsParam.container(containerId), EventsParam.event(HEALTH_STATUS_EVENT), EventsParam.event(DIE_EVENT));
+        } catch (DockerException | RuntimeException e) {
+            log.debug("{} events not available, container state will be polled", containerShortId, e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (lock) {
+            if (!closed) {
+                events = stream;
+                followingEvents = true;
+                executor = Executors.newSingleThreadExecutor(HEALTH_THREAD_FACTORY);
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        follow(stream);
+                    }
+                });
+                return;
+            }
+        }
+        // closed while stream was being opened
+        close(stream);
+    }
+
+    private void follow(EventStream stream) {
+        try {
+            while (stream.hasNext()) {
+                Event event = stream.next();
+                log.debug("{} event: {}", containerShortId, event.action());
+                if (onEvent(event.action())) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                if (!closed) {
+                    log.debug("{} events stream failed, container state will be polled", containerShortId, e);
+                }
+            }
+        } finally {
+            synchronized (lock) {
+                followingEvents = false;
+                lock.notifyAll();
+            }
+            close(stream);
+        }
+    }
+
+    private void close(EventStream stream) {
+        try {
+            stream.close();
+        } catch (IOException | RuntimeException e) {
+            log.trace("{} closing events stream failed", containerShortId, e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> when final state is reached.
+     */
+    private boolean onEvent(String action) {
+        if (StringUtils.startsWith(action, HEALTH_STATUS_EVENT)) {
+            String health = StringUtils.trim(StringUtils.substringAfter(action, ":"));
+            if (UNHEALTHY.equals(health)) {
+                // details (last check output) are available from inspect only
+                inspect();
+                return true;
+            }
+            synchronized (lock) {
+                status = health;
+                lock.notifyAll();
+                return HEALTHY.equals(status);
+            }
+        } else if (DIE_EVENT.equals(action)) {
+            inspect();
+            return true;
+        }
+        return false;
+    }
+
+    private void inspect() {
+        try {
+            update(dockerClient.inspectContainer(containerId).state());
+        } catch (ContainerNotFoundException e) {
+            fail("container was removed");
+        } catch (DockerException e) {
+            log.debug("{} inspect failed", containerShortId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void update(ContainerState state) {
+        if (!state.running()) {
+            fail(String.format("container exited with code %s", state.exitCode()));
+        } else if (state.health() == null) {
+            fail("container has no HEALTHCHECK defined");
+        } else if (UNHEALTHY.equals(state.health().status())) {
+            fail(String.format("container is unhealthy after %s failed checks%s", state.health().failingStreak(), lastOutput(state.health().log())));
+        } else {
+            synchronized (lock) {
+                status = state.health().status();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private static String lastOutput(List<ContainerState.HealthLog> healthLog) {
+        if (healthLog == null || healthLog.isEmpty()) {
+            return "";
+        }
+        return ", last check output: " + StringUtils.trim(healthLog.get(healthLog.size() - 1).output());
+    }
+
+    private void fail(String message) {
+        synchronized (lock) {
+            log.debug("{} {}", containerShortId, message);
+            failure = message;
+            lock.notifyAll();
+        }
+    }
+
+}
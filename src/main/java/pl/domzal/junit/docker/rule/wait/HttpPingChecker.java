@@ -1,19 +1,27 @@
 package pl.domzal.junit.docker.rule.wait;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import javax.ws.rs.ProcessingException;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.Response;
-import org.glassfish.jersey.client.ClientProperties;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
 
 /**
  * Check whether a given URL is available
+ * <p>
+ * Single http client (with keep-alive connection) is used for all checks and released on {@link #after()}.
  */
-public class HttpPingChecker implements StartConditionCheck {
+public class HttpPingChecker implements PolledStartConditionCheck {
 
     // Default status codes
     public static final int DEFAULT_MIN_STATUS = 200;
@@ -31,6 +39,11 @@ public class HttpPingChecker implements StartConditionCheck {
     private int statusMin, statusMax;
     private String url;
     private String method;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private String expectedBody;
+    private int pollIntervalMillis = 0;
+
+    private CloseableHttpClient client;
 
     /**
      * Ping the given URL
@@ -71,6 +84,36 @@ public class HttpPingChecker implements StartConditionCheck {
         this(waitUrl, null, null);
     }
 
+    /**
+     * Header sent with every request.
+     */
+    public HttpPingChecker header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Text response body must contain (in addition to matching status) for check to succeed.
+     * Body is not returned for HEAD requests, so use with other method.
+     */
+    public HttpPingChecker expectedBody(String expectedBody) {
+        this.expectedBody = expectedBody;
+        return this;
+    }
+
+    /**
+     * Fixed time between checks [ms] instead of rule wide poll intervals (0 - use rule ones).
+     */
+    public HttpPingChecker pollInterval(int pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+        return this;
+    }
+
+    @Override
+    public int getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
     @Override
     public boolean check() {
         try {
@@ -82,43 +125,57 @@ public class HttpPingChecker implements StartConditionCheck {
 
     @Override
     public String describe() {
-        return String.format("http ping to '%s' with method '%s'", url, method);
+        return String.format("http ping to '%s' with method '%s'%s", url, method, expectedBody != null ? String.format(" (expected body '%s')", expectedBody) : "");
     }
 
     private boolean ping() throws IOException {
-        Client client = ClientBuilder.newClient();
-        try {
-            client.property(ClientProperties.CONNECT_TIMEOUT, HTTP_PING_TIMEOUT);
-            client.property(ClientProperties.READ_TIMEOUT, HTTP_PING_TIMEOUT);
-            WebTarget webTarget = client.target(url);
-            Response response = null;
-            int tries = HTTP_CLIENT_RETRIES;
-            while (true) {
-                try {
-                    response = webTarget.request().build(method.toUpperCase()).invoke();
-                    break;
-                } catch (ProcessingException e) {
-                    // ignore
-                }
-                if (tries <= 0) {
-                    return false;
-                }
-                tries--;
-            }
+        RequestBuilder request = RequestBuilder.create(method.toUpperCase()).setUri(url);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request.addHeader(header.getKey(), header.getValue());
+        }
+        try (CloseableHttpResponse response = client().execute(request.build())) {
+            HttpEntity entity = response.getEntity();
             try {
-                int responseCode = response.getStatus();
+                int responseCode = response.getStatusLine().getStatusCode();
                 if (responseCode == 501) {
                     throw new IllegalArgumentException("Invalid or not supported HTTP method '" + method.toUpperCase() + "' for checking " + url);
                 }
-                return (responseCode >= statusMin && responseCode <= statusMax);
+                if (responseCode < statusMin || responseCode > statusMax) {
+                    return false;
+                }
+                return expectedBody == null || (entity != null && EntityUtils.toString(entity, StandardCharsets.UTF_8).contains(expectedBody));
             } finally {
-                response.close();
+                // fully read response lets connection be reused by next check
+                EntityUtils.consumeQuietly(entity);
             }
-        } finally {
-            client.close();
         }
     }
 
+    private synchronized CloseableHttpClient client() {
+        if (client == null) {
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(HTTP_PING_TIMEOUT)
+                    .setConnectionRequestTimeout(HTTP_PING_TIMEOUT)
+                    .setSocketTimeout(HTTP_PING_TIMEOUT)
+                    .build();
+            client = HttpClients.custom()
+                    .setDefaultRequestConfig(requestConfig)
+                    .setRetryHandler(new DefaultHttpRequestRetryHandler(HTTP_CLIENT_RETRIES, false))
+                    .useSystemProperties()
+                    .build();
+        }
+        return client;
+    }
+
     @Override
-    public void after() { }
+    public synchronized void after() {
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // nothing to do with client which can not be closed
+            }
+            client = null;
+        }
+    }
 }
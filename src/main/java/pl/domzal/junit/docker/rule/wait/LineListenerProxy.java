@@ -24,6 +24,9 @@ public class LineListenerProxy implements LineListener {
     /** Points to first empty slot in {@link #history}. */
     private int historyFirstFreeSlot = 0;
 
+    /** Set when oldest lines were dropped from {@link #history}. */
+    private boolean historyTruncated = false;
+
     private final List<LineListener> listeners = new ArrayList<>();
 
     public LineListenerProxy() {
@@ -41,6 +44,7 @@ public class LineListenerProxy implements LineListener {
         if (historyFirstFreeSlot == historyLimit) {
             // remove oldest message
             history.remove(0);
+            historyTruncated = true;
             // current empty slot will be one before
             historyFirstFreeSlot--;
         }
@@ -53,6 +57,13 @@ public class LineListenerProxy implements LineListener {
         }
     }
 
+    /**
+     * Whether history replayed to listeners registered from now on is missing some (oldest) lines.
+     */
+    public synchronized boolean isHistoryTruncated() {
+        return historyTruncated;
+    }
+
     public synchronized void addAll(List<LineListener> lineListeners) {
         // reply history to new listeners
         for (int i = 0; i < historyFirstFreeSlot; i++) {
@@ -73,4 +84,8 @@ public class LineListenerProxy implements LineListener {
         listeners.add(listener);
     }
 
+    public synchronized void remove(LineListener listener) {
+        listeners.remove(listener);
+    }
+
 }
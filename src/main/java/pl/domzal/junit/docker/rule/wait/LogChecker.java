@@ -1,23 +1,52 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import pl.domzal.junit.docker.rule.DockerRule;
 
 /**
  * {@link StartConditionCheck} met when container log lines contains specified message.
+ * <p>
+ * Log lines are expected to be passed to checker as {@link LineListener} (with replay
+ * of already received lines - see {@link LineListenerProxy}) so every line is scanned only once.
+ * Registered with {@link LogMatcher} it shares line scan with other log conditions.
  */
-public class LogChecker implements StartConditionCheck {
+public class LogChecker implements LineListener, LogMatchListener, SignalingStartConditionCheck {
 
     private final DockerRule rule;
     private final String waitForMessage;
+    private final List<LogPattern> patterns;
+
+    private final ConditionSignal found = new ConditionSignal();
+    private volatile boolean receivedLines = false;
+
+    public LogChecker(String waitForMessage) {
+        this(null, waitForMessage);
+    }
 
+    /**
+     * Checker falling back to full container log search (see {@link DockerRule#getLog()}) on every
+     * check until first log line is passed to it as {@link LineListener}.
+     */
     public LogChecker(DockerRule rule, String waitForMessage) {
         this.rule = rule;
         this.waitForMessage = waitForMessage;
+        this.patterns = Collections.singletonList(LogPattern.substring(waitForMessage));
     }
 
     @Override
     public boolean check() {
-        return rule.getLog().contains(waitForMessage);
+        if (!found.isSignaled() && !receivedLines && rule != null && rule.getLog().contains(waitForMessage)) {
+            found.signal();
+        }
+        return found.isSignaled();
+    }
+
+    @Override
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return found.await(timeout, unit);
     }
 
     @Override
@@ -28,4 +57,25 @@ public class LogChecker implements StartConditionCheck {
     @Override
     public void after() { }
 
+    @Override
+    public List<LogPattern> patterns() {
+        return patterns;
+    }
+
+    @Override
+    public void nextLine(String line) {
+        receivedLines = true;
+        if (!found.isSignaled() && line.contains(waitForMessage)) {
+            found.signal();
+        }
+    }
+
+    @Override
+    public void nextLine(String line, boolean[] matched) {
+        receivedLines = true;
+        if (!found.isSignaled() && matched[0]) {
+            found.signal();
+        }
+    }
+
 }
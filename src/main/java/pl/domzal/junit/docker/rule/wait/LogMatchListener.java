@@ -0,0 +1,24 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.List;
+
+/**
+ * Something that listens for log lines matching its patterns. Patterns of all listeners
+ * registered with single {@link LogMatcher} are searched for in one pass over every line.
+ */
+public interface LogMatchListener {
+
+    /**
+     * Patterns listener is interested in. Should not change after listener is registered.
+     */
+    List<LogPattern> patterns();
+
+    /**
+     * Next log line.
+     *
+     * @param line Log line.
+     * @param matched Which of listener {@link #patterns()} are found in line (indexes as in patterns list).
+     *                Array is reused - valid only during call.
+     */
+    void nextLine(String line, boolean[] matched);
+}
@@ -0,0 +1,86 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * {@link LineListener} searching every log line once for patterns of all given {@link LogMatchListener}s
+ * and passing line together with match result to each of them.
+ * <p>
+ * Substring patterns (same patterns of different listeners are searched for once) are compiled to single
+ * Aho-Corasick automaton, so cost of line scan does not depend on number of substring patterns.
+ * Regular expression patterns are checked one by one.
+ */
+public class LogMatcher implements LineListener {
+
+    private final List<LogMatchListener> listeners;
+
+    private final AhoCorasickMatcher substringMatcher;
+    private final Pattern[] regexes;
+
+    /** Result of current line match - substrings first, then regexes. */
+    private final boolean[] found;
+    /** For every listener - indexes of its patterns in {@link #found}. */
+    private final int[][] listenerPatternIndexes;
+    private final boolean[][] listenerMatches;
+
+    public LogMatcher(List<? extends LogMatchListener> listeners) {
+        this.listeners = new ArrayList<>(listeners);
+        Map<LogPattern, Integer> substrings = new LinkedHashMap<>();
+        Map<LogPattern, Integer> regexPatterns = new LinkedHashMap<>();
+        for (LogMatchListener listener : listeners) {
+            for (LogPattern pattern : listener.patterns()) {
+                Map<LogPattern, Integer> target = pattern.isRegex() ? regexPatterns : substrings;
+                if (!target.containsKey(pattern)) {
+                    target.put(pattern, target.size());
+                }
+            }
+        }
+        List<String> substringTexts = new ArrayList<>();
+        for (LogPattern pattern : substrings.keySet()) {
+            substringTexts.add(pattern.getText());
+        }
+        this.substringMatcher = new AhoCorasickMatcher(substringTexts);
+        this.regexes = new Pattern[regexPatterns.size()];
+        for (Map.Entry<LogPattern, Integer> entry : regexPatterns.entrySet()) {
+            regexes[entry.getValue()] = entry.getKey().getRegex();
+        }
+        this.found = new boolean[substrings.size() + regexes.length];
+        this.listenerPatternIndexes = new int[this.listeners.size()][];
+        this.listenerMatches = new boolean[this.listeners.size()][];
+        for (int i = 0; i < this.listeners.size(); i++) {
+            List<LogPattern> patterns = this.listeners.get(i).patterns();
+            listenerPatternIndexes[i] = new int[patterns.size()];
+            listenerMatches[i] = new boolean[patterns.size()];
+            for (int p = 0; p < patterns.size(); p++) {
+                LogPattern pattern = patterns.get(p);
+                listenerPatternIndexes[i][p] = pattern.isRegex()
+                        ? substrings.size() + regexPatterns.get(pattern)
+                        : substrings.get(pattern);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void nextLine(String line) {
+        Arrays.fill(found, false);
+        substringMatcher.match(line, found);
+        int regexOffset = found.length - regexes.length;
+        for (int i = 0; i < regexes.length; i++) {
+            found[regexOffset + i] = regexes[i].matcher(line).find();
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            int[] patternIndexes = listenerPatternIndexes[i];
+            boolean[] matched = listenerMatches[i];
+            for (int p = 0; p < patternIndexes.length; p++) {
+                matched[p] = found[patternIndexes[p]];
+            }
+            listeners.get(i).nextLine(line, matched);
+        }
+    }
+
+}
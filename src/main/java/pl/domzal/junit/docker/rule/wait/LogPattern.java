@@ -0,0 +1,68 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.regex.Pattern;
+
+/**
+ * Pattern searched for in container log lines - plain substring or regular expression.
+ */
+public final class LogPattern {
+
+    private final String text;
+    private final Pattern regex;
+
+    private LogPattern(String text, Pattern regex) {
+        if (text == null) {
+            throw new IllegalArgumentException("log pattern cannot be null");
+        }
+        this.text = text;
+        this.regex = regex;
+    }
+
+    /**
+     * Pattern found in line containing given text.
+     */
+    public static LogPattern substring(String text) {
+        return new LogPattern(text, null);
+    }
+
+    /**
+     * Pattern found in line containing match of given regular expression (see {@link java.util.regex.Matcher#find()}).
+     */
+    public static LogPattern regex(String regex) {
+        return new LogPattern(regex, Pattern.compile(regex));
+    }
+
+    public boolean isRegex() {
+        return regex != null;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    Pattern getRegex() {
+        return regex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LogPattern)) {
+            return false;
+        }
+        LogPattern other = (LogPattern) o;
+        return text.equals(other.text) && isRegex() == other.isRegex();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * text.hashCode() + (isRegex() ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return isRegex() ? "/" + text + "/" : "'" + text + "'";
+    }
+}
@@ -0,0 +1,86 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link StartConditionCheck} met when each of given patterns was found in container log
+ * (in any order, in the same or different lines).
+ */
+public class LogPatternChecker implements LineListener, LogMatchListener, SignalingStartConditionCheck {
+
+    private static Logger log = LoggerFactory.getLogger(LogPatternChecker.class);
+
+    private final List<LogPattern> patterns;
+    private final boolean[] patternFound;
+    private int patternsFound = 0;
+
+    private final ConditionSignal allFound = new ConditionSignal();
+
+    public LogPatternChecker(List<LogPattern> patterns) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+        this.patternFound = new boolean[patterns.size()];
+        if (patterns.isEmpty()) {
+            allFound.signal();
+        }
+    }
+
+    @Override
+    public boolean check() {
+        return allFound.isSignaled();
+    }
+
+    @Override
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return allFound.await(timeout, unit);
+    }
+
+    @Override
+    public String describe() {
+        return String.format("log patterns %s", patterns);
+    }
+
+    @Override
+    public void after() { }
+
+    @Override
+    public List<LogPattern> patterns() {
+        return patterns;
+    }
+
+    /**
+     * Line passed without help of {@link LogMatcher} - patterns are checked one by one.
+     */
+    @Override
+    public void nextLine(String line) {
+        boolean[] matched = new boolean[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            LogPattern pattern = patterns.get(i);
+            matched[i] = pattern.isRegex() ? pattern.getRegex().matcher(line).find() : line.contains(pattern.getText());
+        }
+        nextLine(line, matched);
+    }
+
+    @Override
+    public synchronized void nextLine(String line, boolean[] matched) {
+        if (allFound.isSignaled()) {
+            return;
+        }
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i] && !patternFound[i]) {
+                patternFound[i] = true;
+                patternsFound++;
+                log.debug("pattern {} found in '{}'", patterns.get(i), line);
+            }
+        }
+        if (patternsFound == patterns.size()) {
+            allFound.signal();
+        }
+    }
+
+}
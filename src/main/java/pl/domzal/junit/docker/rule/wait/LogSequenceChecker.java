@@ -1,6 +1,9 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
@@ -10,16 +13,27 @@ import org.slf4j.LoggerFactory;
  * {@link StartConditionCheck} met when incoming log lines contains specified
  * message sequence..
  */
-public class LogSequenceChecker implements LineListener, StartConditionCheck {
+public class LogSequenceChecker implements LineListener, LogMatchListener, SignalingStartConditionCheck {
 
     private static Logger log = LoggerFactory.getLogger(LogSequenceChecker.class);
 
     private final List<String> logSequence;
+    private final List<LogPattern> patterns;
 
     private AtomicInteger currentIndex = new AtomicInteger();
 
+    private final ConditionSignal sequenceFound = new ConditionSignal();
+
     public LogSequenceChecker(List<String> logSequence) {
         this.logSequence = logSequence;
+        List<LogPattern> sequencePatterns = new ArrayList<>();
+        for (String message : logSequence) {
+            sequencePatterns.add(LogPattern.substring(message));
+        }
+        this.patterns = Collections.unmodifiableList(sequencePatterns);
+        if (logSequence.isEmpty()) {
+            sequenceFound.signal();
+        }
     }
 
     @Override
@@ -27,6 +41,11 @@ public class LogSequenceChecker implements LineListener, StartConditionCheck {
         return currentIndex.get() >= logSequence.size();
     }
 
+    @Override
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return sequenceFound.await(timeout, unit);
+    }
+
     @Override
     public String describe() {
         return String.format("log sequence %s", logSequence);
@@ -35,18 +54,35 @@ public class LogSequenceChecker implements LineListener, StartConditionCheck {
     @Override
     public void after() { }
 
+    @Override
+    public List<LogPattern> patterns() {
+        return patterns;
+    }
+
     @Override
     public void nextLine(String line) {
         if (!check()) {
-            int currentLineIndex = currentIndex.get();
-            String waitForLine = logSequence.get(currentLineIndex);
-            if (line.contains(waitForLine)) {
-                log.info("pattern {}:'{}' found in '{}'", currentLineIndex, waitForLine, line);
-                currentIndex.incrementAndGet();
-            } else {
-                log.trace("pattern {}:'{}' not found", currentLineIndex, waitForLine);
+            nextLine(line, line.contains(logSequence.get(currentIndex.get())));
+        }
+    }
+
+    @Override
+    public void nextLine(String line, boolean[] matched) {
+        if (!check()) {
+            nextLine(line, matched[currentIndex.get()]);
+        }
+    }
 
+    private void nextLine(String line, boolean currentFound) {
+        int currentLineIndex = currentIndex.get();
+        String waitForLine = logSequence.get(currentLineIndex);
+        if (currentFound) {
+            log.info("pattern {}:'{}' found in '{}'", currentLineIndex, waitForLine, line);
+            if (currentIndex.incrementAndGet() >= logSequence.size()) {
+                sequenceFound.signal();
             }
+        } else {
+            log.trace("pattern {}:'{}' not found", currentLineIndex, waitForLine);
         }
     }
 
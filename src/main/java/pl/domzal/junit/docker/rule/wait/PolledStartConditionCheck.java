@@ -0,0 +1,14 @@
+package pl.domzal.junit.docker.rule.wait;
+
+/**
+ * {@link StartConditionCheck} with its own, fixed time between checks
+ * (instead of rule wide growing poll interval).
+ */
+public interface PolledStartConditionCheck extends StartConditionCheck {
+
+    /**
+     * Time between checks [ms], 0 or less to use rule poll intervals.
+     */
+    int getPollIntervalMillis();
+
+}
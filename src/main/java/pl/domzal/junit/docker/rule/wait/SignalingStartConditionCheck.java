@@ -0,0 +1,22 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StartConditionCheck} able to notify waiting thread as soon as condition
+ * is met (typically from {@link LineListener} callback) so waiting for it does
+ * not depend on polling interval.
+ * <p>
+ * {@link #check()} is still used to verify condition, {@link #await(long, TimeUnit)}
+ * replaces sleep between checks.
+ */
+public interface SignalingStartConditionCheck extends StartConditionCheck {
+
+    /**
+     * Block until condition is met or given time elapses.
+     *
+     * @return <code>true</code> if condition was met.
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException;
+
+}
@@ -2,28 +2,62 @@ package pl.domzal.junit.docker.rule.wait;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Check whether a given TCP port is available
+ * Check whether given TCP ports are available.
+ * <p>
+ * All pending ports are connected to at once (non blocking, with single {@link Selector}),
+ * so single check takes at most one connect timeout no matter how many ports are checked.
+ * Port is removed from pending as soon as its connection is established.
+ * <p>
+ * With <code>verifyServed</code> established connection is additionally held for a moment to tell
+ * real server from <i>docker-proxy</i> (aka <i>userland proxy</i>) with nothing listening behind it -
+ * proxy accepts connection and closes it right away, while server either sends something
+ * (like banner) or waits for client to speak. See <code>doc/tcp_wait_notes.md</code>.
  */
 public class TcpPortChecker implements StartConditionCheck {
 
+    private static Logger log = LoggerFactory.getLogger(TcpPortChecker.class);
+
     // Timeout for ping
     private static final int TCP_PING_TIMEOUT = 500;
 
+    /**
+     * Time connection has to stay open (or deliver any data) to be considered served [ms].
+     */
+    static final int VERIFY_TIMEOUT = 200;
+
     private final String host;
     private final List<Integer> ports;
+    private final boolean verifyServed;
 
     private final List<InetSocketAddress> pending;
 
     public TcpPortChecker(String host, List<Integer> ports) {
+        this(host, ports, false);
+    }
+
+    /**
+     * @param verifyServed Check port is really served (not only accepted by <i>userland proxy</i>).
+     */
+    public TcpPortChecker(String host, List<Integer> ports, boolean verifyServed) {
         this.host = host;
         this.ports = ports;
+        this.verifyServed = verifyServed;
 
         this.pending = new ArrayList<>();
         for (int port : ports) {
@@ -42,28 +76,137 @@ public class TcpPortChecker implements StartConditionCheck {
 
     @Override
     public boolean check() {
-        Iterator<InetSocketAddress> iter = pending.iterator();
+        if (pending.isEmpty()) {
+            return true;
+        }
+        Map<SocketChannel, Probe> probes = new HashMap<>();
+        try (Selector selector = Selector.open()) {
+            long deadline = System.currentTimeMillis() + TCP_PING_TIMEOUT + (verifyServed ? VERIFY_TIMEOUT : 0);
+            for (InetSocketAddress address : pending) {
+                connect(selector, address, probes);
+            }
+            long now = System.currentTimeMillis();
+            while (hasUnresolved(probes, now) && now < deadline) {
+                selector.select(Math.max(1, nextTimeout(probes, deadline) - now));
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    handle(key, probes.get((SocketChannel) key.channel()));
+                }
+                now = System.currentTimeMillis();
+            }
+            for (Probe probe : probes.values()) {
+                if (probe.isServed(now)) {
+                    log.debug("{} ready", probe.address);
+                    pending.remove(probe.address);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("tcp port check failed", e);
+        } finally {
+            for (SocketChannel channel : probes.keySet()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.trace("closing probe channel failed", e);
+                }
+            }
+        }
+        return pending.isEmpty();
+    }
 
-        while (iter.hasNext()) {
-            InetSocketAddress address = iter.next();
+    private void connect(Selector selector, InetSocketAddress address, Map<SocketChannel, Probe> probes) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        Probe probe = new Probe(address);
+        probes.put(channel, probe);
+        try {
+            channel.configureBlocking(false);
+            if (channel.connect(address)) {
+                connected(channel.register(selector, 0), probe);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException | UnresolvedAddressException e) {
+            // port isn't opened, yet
+            probe.failed = true;
+        }
+    }
 
-            try {
-                Socket s = new Socket();
-                s.connect(address, TCP_PING_TIMEOUT);
-                s.close();
-                iter.remove();
-            } catch (IOException e) {
-                // Ports isn't opened, yet. So don't remove from queue.
+    private void handle(SelectionKey key, Probe probe) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (key.isConnectable() && channel.finishConnect()) {
+                connected(key, probe);
+            } else if (key.isReadable()) {
+                if (channel.read(ByteBuffer.allocate(1)) < 0) {
+                    // accepted and closed right away - userland proxy without server behind it
+                    probe.failed = true;
+                    key.cancel();
+                } else {
+                    probe.verified = true;
+                    key.cancel();
+                }
+            }
+        } catch (IOException e) {
+            // port isn't opened, yet
+            probe.failed = true;
+            key.cancel();
+        }
+    }
 
+    private void connected(SelectionKey key, Probe probe) {
+        probe.connectedAt = System.currentTimeMillis();
+        if (verifyServed) {
+            key.interestOps(SelectionKey.OP_READ);
+        } else {
+            probe.verified = true;
+            key.cancel();
+        }
+    }
+
+    private static boolean hasUnresolved(Map<SocketChannel, Probe> probes, long now) {
+        for (Probe probe : probes.values()) {
+            if (!probe.isResolved(now)) {
+                return true;
             }
+        }
+        return false;
+    }
 
+    private static long nextTimeout(Map<SocketChannel, Probe> probes, long deadline) {
+        long next = deadline;
+        for (Probe probe : probes.values()) {
+            if (probe.connectedAt > 0 && !probe.verified && !probe.failed) {
+                next = Math.min(next, probe.connectedAt + VERIFY_TIMEOUT);
+            }
+        }
+        return next;
+    }
+
+    private static class Probe {
+
+        private final InetSocketAddress address;
+        private long connectedAt = 0;
+        private boolean verified = false;
+        private boolean failed = false;
+
+        Probe(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        boolean isServed(long now) {
+            return !failed && (verified || (connectedAt > 0 && now - connectedAt >= VERIFY_TIMEOUT));
+        }
+
+        boolean isResolved(long now) {
+            return failed || isServed(now);
         }
-        return pending.isEmpty();
     }
 
     @Override
     public String describe() {
-        return String.format("tcp port check '%s:%s'", host, Arrays.asList(ports));
+        return String.format("tcp port check%s '%s:%s'", verifyServed ? " (verified)" : "", host, Arrays.asList(ports));
     }
 
     @Override
@@ -0,0 +1,93 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@Category(test.category.Stable.class)
+public class ContainerEventsTest {
+
+    @Test
+    public void shouldUseFlightRecorderWhenAvailable() {
+        assertTrue(ContainerEvents.shared() instanceof JfrContainerEvents);
+    }
+
+    @Test
+    public void shouldReturnNoopSpanWhenNotRecording() {
+        assertSame(ContainerEvents.NOOP_SPAN, ContainerEvents.shared().lifecycle("before", null, "busybox:latest"));
+        assertSame(ContainerEvents.NOOP_SPAN, ContainerEvents.shared().check("container", "condition"));
+    }
+
+    @Test
+    public void shouldRecordEvents() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrContainerEvents.LifecycleEvent.class).withoutThreshold();
+            recording.enable(JfrContainerEvents.WaitForEvent.class).withoutThreshold();
+            recording.enable(JfrContainerEvents.ConditionCheckEvent.class).withoutThreshold();
+            recording.start();
+
+            ContainerEvents.shared().lifecycle("before", null, "busybox:latest").container("abc").end(true);
+            try {
+                new WaitForUnit(TimeUnit.MILLISECONDS, 50, 10, new WaitForUnit.WaitForCondition() {
+                    @Override
+                    public boolean isConditionMet() {
+                        return false;
+                    }
+                }).startWaiting();
+                fail("timeout expected");
+            } catch (TimeoutException e) {
+                // expected
+            }
+            ContainerEvents.shared().check("test container", "port 80").end(true);
+
+            recording.stop();
+            File dump = File.createTempFile("container-events", ".jfr");
+            try {
+                recording.dump(dump.toPath());
+                events = new ArrayList<>(RecordingFile.readAllEvents(dump.toPath()));
+            } finally {
+                dump.delete();
+            }
+        }
+
+        RecordedEvent lifecycle = single(events, "pl.domzal.junit.docker.rule.ContainerLifecycle");
+        assertEquals("before", lifecycle.getString("phase"));
+        assertEquals("abc", lifecycle.getString("containerId"));
+        assertEquals("busybox:latest", lifecycle.getString("image"));
+        assertTrue(lifecycle.getBoolean("success"));
+
+        RecordedEvent waitFor = single(events, "pl.domzal.junit.docker.rule.WaitFor");
+        assertFalse(waitFor.getBoolean("met"));
+        assertTrue(waitFor.getDuration().toMillis() >= 50);
+
+        RecordedEvent check = single(events, "pl.domzal.junit.docker.rule.ConditionCheck");
+        assertEquals("test container", check.getString("container"));
+        assertEquals("port 80", check.getString("condition"));
+        assertTrue(check.getBoolean("met"));
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        RecordedEvent found = null;
+        for (RecordedEvent event : events) {
+            if (name.equals(event.getEventType().getName())) {
+                assertNull("single " + name + " event expected", found);
+                found = event;
+            }
+        }
+        assertNotNull(name + " event not recorded", found);
+        return found;
+    }
+
+}
@@ -0,0 +1,89 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.LogsParam;
+import org.mandas.docker.client.LogStream;
+import org.mandas.docker.client.messages.ContainerExit;
+import org.mandas.docker.client.messages.ContainerInfo;
+import org.mandas.docker.client.messages.ContainerState;
+import org.mockito.ArgumentMatchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import pl.domzal.junit.docker.rule.ex.ContainerExitedException;
+
+@Category(test.category.Stable.class)
+public class ContainerExitWatcherTest {
+
+    private static final String CONTAINER_ID = "0123456789abcdef";
+
+    private final DockerClient dockerClient = mock(DockerClient.class);
+
+    @Test
+    public void shouldReportExit() throws Exception {
+        when(dockerClient.waitContainer(CONTAINER_ID)).thenReturn(mock(ContainerExit.class));
+        ContainerState state = mock(ContainerState.class);
+        when(state.exitCode()).thenReturn(3L);
+        when(state.oomKilled()).thenReturn(true);
+        ContainerInfo containerInfo = mock(ContainerInfo.class);
+        when(containerInfo.state()).thenReturn(state);
+        when(dockerClient.inspectContainer(CONTAINER_ID)).thenReturn(containerInfo);
+        LogStream logStream = mock(LogStream.class);
+        when(logStream.readFully()).thenReturn("out of memory\n");
+        when(dockerClient.logs(eq(CONTAINER_ID), ArgumentMatchers.<LogsParam>any())).thenReturn(logStream);
+        ContainerExitWatcher testee = new ContainerExitWatcher(dockerClient, CONTAINER_ID, "test container", null);
+
+        testee.start();
+        try {
+            assertTrue(testee.await(5000));
+            testee.check();
+            fail("exit should be reported");
+        } catch (ContainerExitedException e) {
+            assertEquals(Long.valueOf(3), e.getExitCode());
+            assertTrue(e.isOomKilled());
+            assertEquals("out of memory\n", e.getLogTail());
+        } finally {
+            testee.close();
+        }
+    }
+
+    @Test
+    public void shouldIgnoreExitAfterClose() throws Exception {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        when(dockerClient.waitContainer(CONTAINER_ID)).thenAnswer(new Answer<ContainerExit>() {
+            @Override
+            public ContainerExit answer(InvocationOnMock invocation) {
+                // blocking http read does not react to interrupt
+                while (true) {
+                    try {
+                        stopped.await();
+                        return mock(ContainerExit.class);
+                    } catch (InterruptedException e) {
+                        // ignored
+                    }
+                }
+            }
+        });
+        ContainerExitWatcher testee = new ContainerExitWatcher(dockerClient, CONTAINER_ID, "test container", null);
+
+        testee.start();
+        verify(dockerClient, timeout(5000)).waitContainer(CONTAINER_ID);
+        testee.close();
+        // container stopped by rule after waiting ended
+        stopped.countDown();
+
+        assertFalse(testee.await(200));
+        testee.check();
+        verify(dockerClient, after(200).never()).inspectContainer(anyString());
+        verify(dockerClient, never()).logs(anyString(), ArgumentMatchers.<LogsParam>any());
+    }
+
+}
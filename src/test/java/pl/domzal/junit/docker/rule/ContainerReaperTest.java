@@ -0,0 +1,125 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.messages.ContainerInfo;
+import org.mandas.docker.client.messages.ContainerState;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@Category(test.category.Stable.class)
+public class ContainerReaperTest {
+
+    private static final Set<String> NO_RESOURCES = Collections.emptySet();
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+    private ContainerInfo containerInfo = mock(ContainerInfo.class);
+    private ContainerState containerState = mock(ContainerState.class);
+
+    private ContainerReaper testee = new ContainerReaper(2);
+
+    @Before
+    public void setup() throws Exception {
+        when(dockerClient.inspectContainer(anyString())).thenReturn(containerInfo);
+        when(containerInfo.state()).thenReturn(containerState);
+        when(containerState.running()).thenReturn(true);
+    }
+
+    @Test
+    public void shouldStopAndRemoveInBackground() throws Exception {
+        final AtomicBoolean logsClosed = new AtomicBoolean(false);
+
+        testee.submit(new ContainerReaper.Teardown(dockerClient, "c1", false, 5, true, NO_RESOURCES, new Runnable() {
+            @Override
+            public void run() {
+                logsClosed.set(true);
+            }
+        }));
+
+        assertTrue(testee.awaitAll(5000));
+        verify(dockerClient).stopContainer("c1", 5);
+        verify(dockerClient, never()).killContainer("c1");
+        verify(dockerClient).removeContainer("c1", DockerClient.RemoveContainerParam.removeVolumes());
+        assertTrue(logsClosed.get());
+        assertEquals(0, testee.pendingCount());
+    }
+
+    @Test
+    public void shouldKillAndKeep() throws Exception {
+        testee.submit(new ContainerReaper.Teardown(dockerClient, "c1", true, 5, false, NO_RESOURCES, null));
+
+        assertTrue(testee.awaitAll(5000));
+        verify(dockerClient).killContainer("c1");
+        verify(dockerClient, never()).stopContainer(anyString(), anyInt());
+        verify(dockerClient, never()).removeContainer(anyString(), any(DockerClient.RemoveContainerParam.class));
+    }
+
+    @Test
+    public void shouldRemoveAlreadyStoppedContainer() throws Exception {
+        when(containerState.running()).thenReturn(false);
+
+        testee.submit(new ContainerReaper.Teardown(dockerClient, "c1", false, 5, true, NO_RESOURCES, null));
+
+        assertTrue(testee.awaitAll(5000));
+        verify(dockerClient, never()).stopContainer(anyString(), anyInt());
+        verify(dockerClient).removeContainer("c1", DockerClient.RemoveContainerParam.removeVolumes());
+    }
+
+    @Test
+    public void shouldWaitOnlyForTeardownHoldingResource() throws Exception {
+        final CountDownLatch stopStarted = new CountDownLatch(1);
+        final CountDownLatch stopReleased = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                stopStarted.countDown();
+                stopReleased.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(dockerClient).stopContainer("c1", 5);
+
+        Set<String> held = ContainerReaper.heldResources("db", Arrays.asList("8080"));
+        testee.submit(new ContainerReaper.Teardown(dockerClient, "c1", false, 5, true, held, null));
+        assertTrue(stopStarted.await(5, TimeUnit.SECONDS));
+
+        assertTrue(testee.awaitReleased(ContainerReaper.heldResources("other", Arrays.asList("8081")), 0));
+        assertFalse(testee.awaitReleased(ContainerReaper.heldResources(null, Arrays.asList("8080")), 100));
+        assertFalse(testee.awaitReleased(ContainerReaper.heldResources("db", Collections.<String>emptyList()), 100));
+
+        stopReleased.countDown();
+        assertTrue(testee.awaitReleased(held, 5000));
+        verify(dockerClient).removeContainer("c1", DockerClient.RemoveContainerParam.removeVolumes());
+    }
+
+    @Test
+    public void shouldContinueAfterFailedTeardown() throws Exception {
+        doThrow(new IllegalStateException("boom")).when(dockerClient).stopContainer("c1", 5);
+        final AtomicBoolean logsClosed = new AtomicBoolean(false);
+
+        testee.submit(new ContainerReaper.Teardown(dockerClient, "c1", false, 5, true, NO_RESOURCES, new Runnable() {
+            @Override
+            public void run() {
+                logsClosed.set(true);
+            }
+        }));
+        testee.submit(new ContainerReaper.Teardown(dockerClient, "c2", false, 5, true, NO_RESOURCES, null));
+
+        assertTrue(testee.awaitAll(5000));
+        assertTrue(logsClosed.get());
+        verify(dockerClient, never()).removeContainer("c1", DockerClient.RemoveContainerParam.removeVolumes());
+        verify(dockerClient).removeContainer("c2", DockerClient.RemoveContainerParam.removeVolumes());
+    }
+
+}
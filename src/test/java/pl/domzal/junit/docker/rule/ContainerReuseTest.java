@@ -0,0 +1,62 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.ListContainersParam;
+import org.mandas.docker.client.messages.Container;
+import org.mandas.docker.client.messages.ContainerConfig;
+import org.mandas.docker.client.messages.HostConfig;
+
+@Category(test.category.Stable.class)
+public class ContainerReuseTest {
+
+    @Test
+    public void shouldComputeStableHashOfEqualConfigs() {
+        String hash1 = ContainerReuse.configHash(config("A=1", "B=2", 1024L), "sha256:1");
+        String hash2 = ContainerReuse.configHash(config("A=1", "B=2", 1024L), "sha256:1");
+
+        assertEquals(hash1, hash2);
+        assertEquals(64, hash1.length());
+    }
+
+    @Test
+    public void shouldComputeDifferentHashOnConfigOrImageChange() {
+        String hash = ContainerReuse.configHash(config("A=1", "B=2", 1024L), "sha256:1");
+
+        assertNotEquals(hash, ContainerReuse.configHash(config("A=1", "B=3", 1024L), "sha256:1"));
+        assertNotEquals(hash, ContainerReuse.configHash(config("A=1", "B=2", 2048L), "sha256:1"));
+        assertNotEquals(hash, ContainerReuse.configHash(config("A=1", "B=2", 1024L), "sha256:2"));
+    }
+
+    @Test
+    public void shouldFindRunningContainerByHashLabel() throws Exception {
+        DockerClient dockerClient = mock(DockerClient.class);
+        Container container = mock(Container.class);
+        when(container.id()).thenReturn("abc");
+        when(dockerClient.listContainers(any(ListContainersParam.class), any(ListContainersParam.class)))
+                .thenReturn(Collections.<Container>emptyList())
+                .thenReturn(Arrays.asList(container));
+
+        assertNull(ContainerReuse.findRunningContainer(dockerClient, "hash"));
+        assertEquals("abc", ContainerReuse.findRunningContainer(dockerClient, "hash"));
+        verify(dockerClient, times(2)).listContainers(
+                ListContainersParam.withLabel(ContainerReuse.REUSE_HASH_LABEL, "hash"),
+                ListContainersParam.withStatusRunning());
+    }
+
+    private static ContainerConfig config(String env1, String env2, long memory) {
+        return ContainerConfig.builder()
+                .image("alpine:3.13")
+                .env(env1, env2)
+                .hostConfig(HostConfig.builder().memory(memory).publishAllPorts(true).build())
+                .build();
+    }
+
+}
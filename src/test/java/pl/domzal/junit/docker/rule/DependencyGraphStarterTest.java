@@ -0,0 +1,99 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+@Category(test.category.Stable.class)
+public class DependencyGraphStarterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, List<String>> graph = new LinkedHashMap<>();
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldStartIndependentNodesConcurrently() throws Throwable {
+        graph.put("web", Arrays.asList("db", "cache"));
+        graph.put("db", Collections.<String>emptyList());
+        graph.put("cache", Collections.<String>emptyList());
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        new DependencyGraphStarter<>(graph).start(new DependencyGraphStarter.StartAction<String>() {
+            @Override
+            public void start(String node) throws Throwable {
+                if (!node.equals("web")) {
+                    bothRunning.countDown();
+                    // would time out if db and cache were started one after another
+                    assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+                }
+            }
+        }, executor, started);
+
+        assertEquals(3, started.size());
+        assertEquals("web", started.get(2));
+    }
+
+    @Test
+    public void shouldOrderDependenciesFirst() {
+        graph.put("a", Arrays.asList("b"));
+        graph.put("b", Arrays.asList("c", "outside"));
+        graph.put("c", Collections.<String>emptyList());
+
+        assertEquals(Arrays.asList("c", "b", "a"), new DependencyGraphStarter<>(graph).startOrder());
+    }
+
+    @Test(expected = InvalidParameter.class)
+    public void shouldRejectCycle() {
+        graph.put("a", Arrays.asList("b"));
+        graph.put("b", Arrays.asList("c"));
+        graph.put("c", Arrays.asList("a"));
+
+        new DependencyGraphStarter<>(graph);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotStartDependentsOfFailedNode() throws Throwable {
+        graph.put("web", Arrays.asList("db"));
+        graph.put("db", Collections.<String>emptyList());
+        graph.put("cache", Collections.<String>emptyList());
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        try {
+            new DependencyGraphStarter<>(graph).start(new DependencyGraphStarter.StartAction<String>() {
+                @Override
+                public void start(String node) throws Throwable {
+                    if (node.equals("db")) {
+                        throw new IllegalStateException("db failed");
+                    }
+                }
+            }, executor, started);
+            fail("expected start failure");
+        } catch (IllegalStateException e) {
+            assertEquals("db failed", e.getMessage());
+        }
+
+        assertEquals(Arrays.asList("cache"), started);
+    }
+
+}
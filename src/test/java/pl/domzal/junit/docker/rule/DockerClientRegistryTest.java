@@ -0,0 +1,87 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.exceptions.DockerException;
+
+@Category(test.category.Stable.class)
+public class DockerClientRegistryTest {
+
+    private static final String KEY = "unix:///var/run/docker.sock|null";
+
+    private DockerClient client = mock(DockerClient.class);
+    private DockerClientRegistry.ClientFactory factory = mock(DockerClientRegistry.ClientFactory.class);
+
+    private DockerClientRegistry testee = new DockerClientRegistry(factory);
+
+    @Before
+    public void setup() throws Exception {
+        when(factory.key(null)).thenReturn(KEY);
+        when(factory.create(null)).thenReturn(client);
+        when(client.getHost()).thenReturn("localhost");
+    }
+
+    @Test
+    public void shouldShareClientAndProbeServerOnce() throws Exception {
+        DockerClient client1 = testee.client();
+        DockerClient client2 = testee.client();
+
+        assertEquals("localhost", client1.getHost());
+        assertEquals("localhost", client2.getHost());
+        assertTrue(testee.contains(KEY));
+        verify(factory, times(1)).create(null);
+        verify(client, times(1)).info();
+        verify(client, times(1)).version();
+    }
+
+    @Test
+    public void shouldIgnoreCloseOfSharedClient() throws Exception {
+        DockerClient client1 = testee.client();
+        DockerClient client2 = testee.client();
+
+        client1.close();
+        client2.close();
+
+        verify(client, never()).close();
+        assertTrue(testee.contains(KEY));
+        assertEquals("localhost", client1.getHost());
+        testee.client();
+        verify(factory, times(1)).create(null);
+    }
+
+    @Test
+    public void shouldKeepSeparateClientPerDockerUri() throws Exception {
+        URI otherUri = URI.create("http://127.0.0.1:2375");
+        DockerClient otherClient = mock(DockerClient.class);
+        when(factory.key(otherUri)).thenReturn("http://127.0.0.1:2375|null");
+        when(factory.create(otherUri)).thenReturn(otherClient);
+
+        testee.client();
+        testee.client(otherUri);
+
+        assertTrue(testee.contains(KEY));
+        assertTrue(testee.contains("http://127.0.0.1:2375|null"));
+        verify(otherClient, times(1)).info();
+    }
+
+    @Test
+    public void shouldDiscardClientWhenProbeFails() throws Exception {
+        when(client.info()).thenThrow(new DockerException("kaboom"));
+        try {
+            testee.client();
+            fail("expected probe failure");
+        } catch (DockerException e) {
+            // expected
+        }
+        assertFalse(testee.contains(KEY));
+        verify(client).close();
+    }
+
+}
@@ -0,0 +1,110 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.exceptions.ImageNotFoundException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@Category(test.category.Stable.class)
+public class DockerImagesTest {
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+
+    private DockerImages testee = new DockerImages();
+
+    @Before
+    public void setup() {
+        when(dockerClient.getHost()).thenReturn("localhost");
+    }
+
+    @Test
+    public void shouldInspectPresentImageOnce() throws Exception {
+        assertTrue(testee.isPresent(dockerClient, "busybox:1.33.0"));
+        assertTrue(testee.isPresent(dockerClient, "busybox:1.33.0"));
+
+        verify(dockerClient, times(1)).inspectImage("busybox:1.33.0");
+        verify(dockerClient, never()).listImages();
+    }
+
+    @Test
+    public void shouldCheckMissingImageAgainUntilMarkedPresent() throws Exception {
+        when(dockerClient.inspectImage("busybox:1.33.0")).thenThrow(new ImageNotFoundException("busybox:1.33.0"));
+
+        assertFalse(testee.isPresent(dockerClient, "busybox:1.33.0"));
+        assertFalse(testee.isPresent(dockerClient, "busybox:1.33.0"));
+        testee.markPresent(dockerClient, "busybox:1.33.0");
+        assertTrue(testee.isPresent(dockerClient, "busybox:1.33.0"));
+
+        verify(dockerClient, times(2)).inspectImage("busybox:1.33.0");
+    }
+
+    @Test
+    public void shouldKeepImagesOfDifferentServersApart() throws Exception {
+        DockerClient otherServer = mock(DockerClient.class);
+        when(otherServer.getHost()).thenReturn("remote");
+        when(otherServer.inspectImage("busybox:1.33.0")).thenThrow(new ImageNotFoundException("busybox:1.33.0"));
+
+        testee.markPresent(dockerClient, "busybox:1.33.0");
+
+        assertFalse(testee.isPresent(otherServer, "busybox:1.33.0"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldShareConcurrentPullOfSameImage() throws Exception {
+        when(dockerClient.inspectImage("busybox:1.33.0")).thenThrow(new ImageNotFoundException("busybox:1.33.0"));
+        final CountDownLatch pullStarted = new CountDownLatch(1);
+        final CountDownLatch finishPull = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                pullStarted.countDown();
+                finishPull.await();
+                return null;
+            }
+        }).when(dockerClient).pull("busybox:1.33.0");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Void> ensurePresent = new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    testee.ensurePresent(dockerClient, "busybox:1.33.0", false);
+                    return null;
+                }
+            };
+            Future<Void> first = executor.submit(ensurePresent);
+            assertTrue(pullStarted.await(5, TimeUnit.SECONDS));
+            Future<Void> second = executor.submit(ensurePresent);
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+
+            finishPull.countDown();
+            first.get();
+            second.get();
+
+            verify(dockerClient, times(1)).pull("busybox:1.33.0");
+            assertTrue(testee.isPresent(dockerClient, "busybox:1.33.0"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldAddDefaultTag() {
+        assertEquals("busybox:latest", DockerImages.withTag("busybox"));
+        assertEquals("busybox:1.33.0", DockerImages.withTag("busybox:1.33.0"));
+    }
+
+}
@@ -0,0 +1,116 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.LogsParam;
+import org.mandas.docker.client.LogStream;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import pl.domzal.junit.docker.rule.wait.LineListener;
+
+@Category(test.category.Stable.class)
+public class DockerLogsTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final DockerClient dockerClient = mock(DockerClient.class);
+    private final LogStream logStream = mock(LogStream.class);
+    private final LineListener lineListener = mock(LineListener.class);
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+
+    private final CountDownLatch logStreamClosed = new CountDownLatch(1);
+
+    private DockerLogs testee;
+
+    @Before
+    public void setup() throws Exception {
+        when(dockerClient.logs(anyString(), any(LogsParam.class), any(LogsParam.class), any(LogsParam.class))).thenReturn(logStream);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                logStreamClosed.countDown();
+                return null;
+            }
+        }).when(logStream).close();
+        testee = new DockerLogs(dockerClient, "0123456789abcdef", lineListener, executor);
+        testee.setStdoutWriter(new PrintStream(stdout, true));
+        testee.setStderrWriter(null);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldPrintLogsOfStoppedContainer() throws Exception {
+        givenContainerLog("one\n", false);
+
+        testee.start();
+        verify(lineListener, timeout(1000)).nextLine("one");
+        testee.close();
+
+        assertTrue(new String(stdout.toByteArray(), StandardCharsets.UTF_8).contains("0123456789ab-stdout> one"));
+        verify(logStream).close();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldCancelFollowingOfRunningContainerOnClose() throws Exception {
+        givenContainerLog("one\n", true);
+
+        testee.start();
+        verify(lineListener, timeout(1000)).nextLine("one");
+        long closeStart = System.currentTimeMillis();
+        testee.close();
+
+        assertTrue(System.currentTimeMillis() - closeStart < DockerLogs.CLOSE_GRACE_MS + 1000);
+        assertTrue(logStreamClosed.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldCreateThreadsOnDemandAndLimitThem() throws Exception {
+        ThreadPoolExecutor logExecutor = (ThreadPoolExecutor) LogExecutor.createPlatformThreadExecutor(16);
+        try {
+            assertEquals(0, logExecutor.getPoolSize());
+            assertEquals(16, logExecutor.getMaximumPoolSize());
+        } finally {
+            logExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Container writes given log and then either ends it (container stopped) or keeps it open
+     * (container running) until log stream is closed.
+     */
+    private void givenContainerLog(final String content, final boolean keepRunning) throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                OutputStream out = invocation.getArgument(0);
+                out.write(content.getBytes(StandardCharsets.UTF_8));
+                if (keepRunning) {
+                    logStreamClosed.await();
+                }
+                return null;
+            }
+        }).when(logStream).attach(any(OutputStream.class), any(OutputStream.class));
+    }
+
+}
@@ -0,0 +1,397 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.ex.ContainerExitedException;
+import pl.domzal.junit.docker.rule.ex.ImagePullException;
+import pl.domzal.junit.docker.rule.fake.FakeDockerEngine;
+import pl.domzal.junit.docker.rule.fake.FakeDockerEngine.Operation;
+import pl.domzal.junit.docker.rule.stats.ContainerStatsMonitor;
+import pl.domzal.junit.docker.rule.stats.StatsSample;
+import pl.domzal.junit.docker.rule.wait.LineListener;
+import pl.domzal.junit.docker.rule.wait.StartCondition;
+import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
+
+@Category(test.category.Stable.class)
+public class DockerRuleFakeEngineTest {
+
+    @Rule
+    public FakeDockerEngine engine = new FakeDockerEngine();
+
+    @Test
+    public void shouldPullStartAndRemoveContainer() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("starting").lineInterval(50).stdout("started");
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(WaitFor.logMessage("started"))
+                .build();
+
+        testee.before();
+        String containerId = testee.getContainerId();
+        assertTrue(engine.isRunning(containerId));
+        assertEquals("starting\nstarted\n", testee.getLog());
+        testee.after();
+
+        assertFalse(engine.containerIds().contains(containerId));
+        assertEquals(1, engine.requests(Operation.PULL));
+        assertEquals(1, engine.requests(Operation.START));
+        assertEquals(1, engine.requests(Operation.STOP));
+        assertEquals(1, engine.requests(Operation.REMOVE));
+    }
+
+    @Test
+    public void shouldSplitStdoutAndStderr() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("out line").stderr("err line").stdout("ready");
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .stdoutWriter(new PrintStream(stdout, true))
+                .stderrWriter(new PrintStream(stderr, true))
+                .waitFor(WaitFor.logMessage("ready"))
+                .build();
+
+        testee.before();
+        testee.after();
+
+        assertTrue(stdout.toString().contains("out line"));
+        assertFalse(stdout.toString().contains("err line"));
+        assertTrue(stderr.toString().contains("err line"));
+    }
+
+    @Test
+    public void shouldWaitForContainerExit() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdoutLines("line", 3).lineInterval(20).exit(3);
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .sharedDockerClient(false)
+                .build();
+
+        testee.before();
+        try {
+            testee.waitForExit();
+            assertFalse(engine.isRunning(testee.getContainerId()));
+            assertEquals(Long.valueOf(3), testee.getDockerClient().inspectContainer(testee.getContainerId()).state().exitCode());
+            assertEquals("line-1\nline-2\nline-3\n", testee.getLog());
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldExposeDynamicPort() throws Throwable {
+        String image = uniqueImage();
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .expose("8080")
+                .build();
+
+        testee.before();
+        try {
+            assertTrue(Integer.parseInt(testee.getExposedContainerPort("8080")) > 0);
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldSampleCgroupV2Stats() throws Throwable {
+        DockerRule testee = DockerRule.builder()
+                .imageName(uniqueImage())
+                .dockerUri(engine.getUri())
+                .build();
+
+        testee.before();
+        try {
+            ContainerStatsMonitor monitor = testee.startStatsMonitor(100);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (monitor.latest() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            StatsSample sample = monitor.latest();
+            assertNotNull("no stats sample", sample);
+            // half of single cpu, computed with online cpus reported by engine
+            assertEquals(50, sample.getCpuPercent(), 0.0001);
+            assertEquals(60 * 1024 * 1024, sample.getMemoryUsageBytes());
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldApplyLatency() throws Throwable {
+        engine.latency(Operation.START, 300);
+        DockerRule testee = DockerRule.builder()
+                .imageName(uniqueImage())
+                .dockerUri(engine.getUri())
+                .build();
+
+        long start = System.currentTimeMillis();
+        testee.before();
+        long took = System.currentTimeMillis() - start;
+        testee.after();
+
+        assertTrue("start took " + took + "ms", took >= 300);
+    }
+
+    @Test(expected = ImagePullException.class)
+    public void shouldFailOnUnavailableImage() {
+        String image = uniqueImage();
+        engine.unavailableImage(image);
+        DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .build();
+    }
+
+    @Test
+    public void shouldFailFastWhenContainerExitsDuringWait() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdoutLines("line", 30).stderr("fatal: config not found").exit(3);
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(WaitFor.logMessage("started"))
+                .waitForTimeout(30)
+                .build();
+
+        long start = System.currentTimeMillis();
+        try {
+            testee.before();
+            fail("container exit should abort waiting");
+        } catch (ContainerExitedException e) {
+            long took = System.currentTimeMillis() - start;
+            assertTrue("exit detected after " + took + "ms", took < 10000);
+            assertEquals(Long.valueOf(3), e.getExitCode());
+            assertFalse(e.isOomKilled());
+            assertTrue(e.getLogTail(), e.getLogTail().endsWith("line-30\nfatal: config not found\n"));
+            assertFalse(e.getLogTail(), e.getLogTail().contains("line-1\n"));
+            assertTrue(e.getMessage(), e.getMessage().contains("exited with code 3"));
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldReportOomKill() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("allocating").lineInterval(50).oomKill();
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(WaitFor.logMessage("started"))
+                .build();
+
+        try {
+            testee.before();
+            fail("container exit should abort waiting");
+        } catch (ContainerExitedException e) {
+            assertEquals(Long.valueOf(137), e.getExitCode());
+            assertTrue(e.isOomKilled());
+            assertTrue(e.getMessage(), e.getMessage().contains("OOM"));
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldMeetLogConditionLoggedJustBeforeExit() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdoutLines("line", 100).stdout("done").exit(0);
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(WaitFor.logMessage("done"))
+                .build();
+
+        testee.before();
+        testee.after();
+    }
+
+    @Test
+    public void shouldNotAbortWaitOnExitWithRestartPolicy() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("crashing").exit(1);
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .restartPolicy(RestartPolicy.onFailure(3))
+                .waitFor(WaitFor.logMessage("started"))
+                .waitForTimeout(1)
+                .build();
+
+        try {
+            testee.before();
+            fail("wait should time out");
+        } catch (TimeoutException e) {
+            // container may be restarted by docker, so wait is not aborted on exit
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldWaitForExecExitCode() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).execExitCodes(2, 2, 0);
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(WaitFor.exec("pg_isready", "-U", "postgres"))
+                .build();
+
+        testee.before();
+        testee.after();
+
+        assertEquals(3, engine.execCommands().size());
+        assertEquals(Arrays.asList("pg_isready", "-U", "postgres"), engine.execCommands().get(0));
+    }
+
+    @Test
+    public void shouldFindLogMessageFollowedByMoreLinesThanReplayHistory() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("started").stdoutLines("line", 2000);
+        // whole log is received before container is inspected
+        engine.latency(Operation.INSPECT, 300);
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(WaitFor.logMessage("started"))
+                .waitForTimeout(5)
+                .build();
+
+        testee.before();
+        testee.after();
+    }
+
+    @Test
+    public void shouldStopPassingLinesToConditionsWhenWaitingEnds() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("started").lineInterval(10).stdoutLines("line", 100);
+        final CountingLogCondition condition = new CountingLogCondition("started");
+        DockerRule testee = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .waitFor(new StartCondition() {
+                    @Override
+                    public StartConditionCheck build(DockerRule currentRule) {
+                        return condition;
+                    }
+                })
+                .build();
+
+        testee.before();
+        try {
+            int linesAtStart = condition.lines.get();
+            Thread.sleep(300);
+            assertEquals(linesAtStart, condition.lines.get());
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldLeaveReusedContainerRunningWithoutWaitingForLogEnd() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("started");
+        DockerRule first = reusingRule(image, "started");
+        first.before();
+        String containerId = first.getContainerId();
+
+        long start = System.currentTimeMillis();
+        first.after();
+        long took = System.currentTimeMillis() - start;
+
+        assertTrue(engine.isRunning(containerId));
+        assertTrue("after took " + took + "ms", took < DockerLogs.CLOSE_GRACE_MS);
+    }
+
+    @Test
+    public void shouldNotStopReusedContainerWhenStartFails() throws Throwable {
+        String image = uniqueImage();
+        engine.container(image).stdout("started");
+        DockerRule first = reusingRule(image, "started");
+        first.before();
+        String containerId = first.getContainerId();
+        first.after();
+
+        DockerRule second = reusingRule(image, "never logged");
+        try {
+            second.before();
+            fail("start condition should not be met");
+        } catch (TimeoutException e) {
+            // expected
+        } finally {
+            second.after();
+        }
+
+        assertTrue(engine.isRunning(containerId));
+        assertEquals(1, engine.requests(Operation.CREATE));
+        assertEquals(0, engine.requests(Operation.STOP));
+        assertEquals(0, engine.requests(Operation.KILL));
+        assertEquals(0, engine.requests(Operation.REMOVE));
+    }
+
+    private DockerRule reusingRule(String image, String message) {
+        return DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .reuseContainer(true)
+                .waitFor(WaitFor.logMessage(message))
+                .waitForTimeout(1)
+                .build();
+    }
+
+    private static class CountingLogCondition implements StartConditionCheck, LineListener {
+
+        private final String message;
+        private final AtomicInteger lines = new AtomicInteger();
+        private volatile boolean found = false;
+
+        CountingLogCondition(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public void nextLine(String line) {
+            lines.incrementAndGet();
+            found |= line.contains(message);
+        }
+
+        @Override
+        public boolean check() {
+            return found;
+        }
+
+        @Override
+        public String describe() {
+            return "counting log condition";
+        }
+
+        @Override
+        public void after() { }
+    }
+
+    private static String uniqueImage() {
+        // images known to be present are cached per docker host - fresh name for every test
+        return "fake/image-" + System.nanoTime() + ":1.0";
+    }
+
+}
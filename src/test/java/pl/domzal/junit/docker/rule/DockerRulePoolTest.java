@@ -0,0 +1,110 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.ex.InvalidParameter;
+
+@Category(test.category.Stable.class)
+public class DockerRulePoolTest {
+
+    private final CountingStarter starter = new CountingStarter();
+
+    private DockerRulePool testee = new DockerRulePool(starter, 2);
+
+    @After
+    public void after() {
+        testee.after();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldPrestartSpares() throws Exception {
+        testee.before();
+
+        waitForStarted(2);
+        assertEquals(2, testee.spareCount());
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReplaceTakenContainer() throws Exception {
+        testee.before();
+
+        DockerRule first = testee.take();
+        DockerRule second = testee.take();
+
+        assertNotSame(first, second);
+        assertEquals(2, testee.spareCount());
+        waitForStarted(4);
+
+        testee.release(first);
+        assertEquals(Collections.singletonList(first), starter.stopped);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldStopSparesAtEnd() throws Exception {
+        testee.before();
+        DockerRule taken = testee.take();
+
+        testee.after();
+
+        assertEquals(2, starter.stopped.size());
+        assertFalse(starter.stopped.contains(taken));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldPropagateStartFailure() throws Exception {
+        DockerRulePool failing = new DockerRulePool(new DockerRulePool.Starter() {
+            @Override
+            public DockerRule start() throws Throwable {
+                throw new IllegalStateException("start failed");
+            }
+            @Override
+            public void stop(DockerRule rule) {
+            }
+        }, 1);
+        try {
+            failing.take();
+        } finally {
+            failing.after();
+        }
+    }
+
+    @Test(expected = InvalidParameter.class)
+    public void shouldRejectNamedContainers() {
+        DockerRulePool.create(DockerRule.builder().imageName("busybox").name("fixed"), 1);
+    }
+
+    private void waitForStarted(int count) throws InterruptedException {
+        while (starter.startCount.get() < count) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class CountingStarter implements DockerRulePool.Starter {
+
+        private final AtomicInteger startCount = new AtomicInteger();
+        private final List<DockerRule> stopped = new CopyOnWriteArrayList<>();
+
+        @Override
+        public DockerRule start() {
+            DockerRule rule = mock(DockerRule.class);
+            startCount.incrementAndGet();
+            return rule;
+        }
+
+        @Override
+        public void stop(DockerRule rule) {
+            stopped.add(rule);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.exceptions.DockerException;
+import org.mandas.docker.client.exceptions.ImageNotFoundException;
+
+import pl.domzal.junit.docker.rule.ex.ImagePullException;
+
+@Category(test.category.Stable.class)
+public class ImagePrePullTest {
+
+    private DockerClient dockerClient = mock(DockerClient.class);
+    private DockerImages images = new DockerImages();
+
+    @Before
+    public void setup() throws Exception {
+        when(dockerClient.getHost()).thenReturn("localhost");
+        when(dockerClient.inspectImage(anyString())).thenThrow(new ImageNotFoundException("any"));
+    }
+
+    @Test
+    public void shouldPullDistinctImagesOnce() throws Exception {
+        ImagePrePull testee = new ImagePrePull(Arrays.asList("busybox", "busybox:latest", "alpine:3.13.1", " "), 2, dockerClient, images);
+        testee.await();
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("busybox:latest", "alpine:3.13.1")), testee.getImages());
+        verify(dockerClient, times(1)).pull("busybox:latest");
+        verify(dockerClient, times(1)).pull("alpine:3.13.1");
+        verify(dockerClient).close();
+        assertTrue(images.isPresent(dockerClient, "alpine:3.13.1"));
+    }
+
+    @Test
+    public void shouldReportFailedPull() throws Exception {
+        doThrow(new DockerException("pull failed")).when(dockerClient).pull("nonexisting:latest");
+        ImagePrePull testee = new ImagePrePull(Arrays.asList("nonexisting", "busybox"), 2, dockerClient, images);
+
+        try {
+            testee.await();
+            fail("expected pull failure");
+        } catch (ImagePullException e) {
+            assertTrue(e.getMessage().contains("nonexisting:latest"));
+        }
+        verify(dockerClient).pull("busybox:latest");
+    }
+
+}
@@ -0,0 +1,153 @@
+package pl.domzal.junit.docker.rule;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.ListContainersParam;
+import org.mandas.docker.client.messages.Container;
+
+@Category(test.category.Stable.class)
+public class OrphanReaperTest {
+
+    private static final long DEAD_PID = 1001;
+    private static final long ALIVE_PID = 1002;
+    private static final long UNKNOWN_PID = 1003;
+
+    private static final String PID_NAMESPACE = "boot-1/pid:[4026531836]";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OrphanReaper.Session currentSession = new OrphanReaper.Session("current", "ci-agent", PID_NAMESPACE, 1000, 5000);
+
+    private final OrphanReaper testee = new OrphanReaper(currentSession, new OrphanReaper.ProcessChecker() {
+        @Override
+        public Boolean isAlive(long pid, long startMillis) {
+            if (pid == DEAD_PID) {
+                return false;
+            } else if (pid == ALIVE_PID) {
+                return true;
+            }
+            return null;
+        }
+    });
+
+    @Test
+    public void shouldRecognizeDeadSessionOnTheSameHost() {
+        assertTrue(testee.isOrphan(labels("other", "ci-agent", DEAD_PID)));
+    }
+
+    @Test
+    public void shouldKeepContainersOfLiveOrUnknownSessions() {
+        assertFalse(testee.isOrphan(labels("current", "ci-agent", DEAD_PID)));
+        assertFalse(testee.isOrphan(labels("other", "ci-agent", ALIVE_PID)));
+        assertFalse(testee.isOrphan(labels("other", "ci-agent", UNKNOWN_PID)));
+        assertFalse(testee.isOrphan(labels("other", "another-agent", DEAD_PID)));
+        assertFalse(testee.isOrphan(new HashMap<String, String>()));
+    }
+
+    @Test
+    public void shouldKeepContainersOfSessionInOtherPidNamespace() {
+        // other job container sharing docker socket and host name - its pid is not visible here
+        assertFalse(testee.isOrphan(labels("other", "ci-agent", "boot-1/pid:[4026532000]", DEAD_PID)));
+        assertFalse(testee.isOrphan(labels("other", "ci-agent", "boot-2/pid:[4026531836]", DEAD_PID)));
+        assertFalse(testee.isOrphan(labels("other", "ci-agent", null, DEAD_PID)));
+    }
+
+    @Test
+    public void shouldTreatLivenessAsUnknownWithoutPidNamespace() {
+        OrphanReaper.ProcessChecker processChecker = mock(OrphanReaper.ProcessChecker.class);
+        when(processChecker.isAlive(anyLong(), anyLong())).thenReturn(false);
+        OrphanReaper withoutNamespace = new OrphanReaper(new OrphanReaper.Session("current", "ci-agent", null, 1000, 5000), processChecker);
+
+        assertFalse(withoutNamespace.isOrphan(labels("other", "ci-agent", null, DEAD_PID)));
+        assertFalse(withoutNamespace.isOrphan(labels("other", "ci-agent", PID_NAMESPACE, DEAD_PID)));
+        verify(processChecker, never()).isAlive(anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldReadPidNamespace() throws Exception {
+        File proc = temporaryFolder.newFolder("proc");
+        File random = new File(proc, "sys/kernel/random");
+        assertTrue(random.mkdirs());
+        Files.write(new File(random, "boot_id").toPath(), "13d81ac8-bf67\n".getBytes(StandardCharsets.US_ASCII));
+        File ns = new File(proc, "self/ns");
+        assertTrue(ns.mkdirs());
+        Files.createSymbolicLink(new File(ns, "pid").toPath(), Paths.get("pid:[4026531836]"));
+
+        assertEquals("13d81ac8-bf67/pid:[4026531836]", OrphanReaper.Session.pidNamespace(proc.toPath()));
+        assertNull(OrphanReaper.Session.pidNamespace(temporaryFolder.newFolder("empty").toPath()));
+    }
+
+    @Test
+    public void shouldKeepReusableContainers() {
+        Map<String, String> labels = labels("other", "ci-agent", DEAD_PID);
+        labels.put(ContainerReuse.REUSE_HASH_LABEL, "abc");
+        assertFalse(testee.isOrphan(labels));
+    }
+
+    @Test
+    public void shouldRemoveOnlyOrphanedContainers() throws Exception {
+        DockerClient dockerClient = mock(DockerClient.class);
+        Container orphan = container("orphan", labels("other", "ci-agent", DEAD_PID));
+        Container alive = container("alive", labels("other", "ci-agent", ALIVE_PID));
+        Container own = container("own", labels("current", "ci-agent", 1000));
+        when(dockerClient.listContainers(ListContainersParam.allContainers(), ListContainersParam.withLabel(OrphanReaper.SESSION_ID_LABEL)))
+                .thenReturn(Arrays.asList(orphan, alive, own));
+
+        assertEquals(1, testee.reapOrphans(dockerClient));
+
+        verify(dockerClient).removeContainer("orphan", DockerClient.RemoveContainerParam.forceKill(), DockerClient.RemoveContainerParam.removeVolumes());
+        verify(dockerClient, never()).removeContainer(eq("alive"), any(DockerClient.RemoveContainerParam.class), any(DockerClient.RemoveContainerParam.class));
+        verify(dockerClient, never()).removeContainer(eq("own"), any(DockerClient.RemoveContainerParam.class), any(DockerClient.RemoveContainerParam.class));
+    }
+
+    @Test
+    public void shouldLabelCurrentSession() {
+        Map<String, String> labels = currentSession.labels();
+        assertEquals("current", labels.get(OrphanReaper.SESSION_ID_LABEL));
+        assertEquals("ci-agent", labels.get(OrphanReaper.SESSION_HOST_LABEL));
+        assertEquals(PID_NAMESPACE, labels.get(OrphanReaper.SESSION_PID_NAMESPACE_LABEL));
+        assertEquals("1000", labels.get(OrphanReaper.SESSION_PID_LABEL));
+        assertEquals("5000", labels.get(OrphanReaper.SESSION_START_LABEL));
+    }
+
+    @Test
+    public void shouldSeeCurrentProcessAlive() {
+        OrphanReaper.Session session = OrphanReaper.Session.current();
+        Map<String, String> labels = session.labels();
+        Boolean alive = new OrphanReaper.ProcessHandleChecker().isAlive(
+                Long.parseLong(labels.get(OrphanReaper.SESSION_PID_LABEL)),
+                Long.parseLong(labels.get(OrphanReaper.SESSION_START_LABEL)));
+        assertNotEquals(Boolean.FALSE, alive);
+    }
+
+    private static Map<String, String> labels(String sessionId, String host, long pid) {
+        return labels(sessionId, host, PID_NAMESPACE, pid);
+    }
+
+    private static Map<String, String> labels(String sessionId, String host, String pidNamespace, long pid) {
+        return new HashMap<>(new OrphanReaper.Session(sessionId, host, pidNamespace, pid, 1000).labels());
+    }
+
+    private static Container container(String id, Map<String, String> labels) {
+        Container container = mock(Container.class);
+        when(container.id()).thenReturn(id);
+        when(container.labels()).thenReturn(labels);
+        return container;
+    }
+
+}
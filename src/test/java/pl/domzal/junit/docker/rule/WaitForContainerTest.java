@@ -1,7 +1,17 @@
 package pl.domzal.junit.docker.rule;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -12,10 +22,14 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import junit.framework.AssertionFailedError;
+import pl.domzal.junit.docker.rule.wait.LogChecker;
+import pl.domzal.junit.docker.rule.wait.PolledStartConditionCheck;
 import pl.domzal.junit.docker.rule.wait.StartConditionCheck;
 
 @Category(test.category.Stable.class)
@@ -79,6 +93,166 @@ public class WaitForContainerTest {
         WaitForContainer.waitForCondition(condition, WAIT_LOG_TIMEOUT_SEC, "test container");
     }
 
+    @Test(timeout = 10000)
+    public void shouldStopAsSoonAsConditionSignaled() throws Exception {
+        final LogChecker condition = new LogChecker("ready");
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                condition.nextLine("ready");
+            }
+        });
+        long start = System.currentTimeMillis();
+        // poll interval much longer than time needed to signal condition
+        WaitForContainer.waitForCondition(condition, WAIT_LOG_TIMEOUT_SEC, 3000, 3000, "test container");
+        assertTrue("waiting should end on signal, not on next poll", System.currentTimeMillis() - start < 2000);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldIncreasePollIntervalForNotSignalingCondition() throws Exception {
+        StartConditionCheck condition = mock(StartConditionCheck.class);
+        when(condition.check()).thenReturn(false);
+        try {
+            WaitForContainer.waitForCondition(condition, 1, 10, 400, "test container");
+            fail("timeout expected");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        // 10 + 20 + 40 + 80 + 160 + 400 + ... ms - far less checks than with fixed 10ms interval
+        verify(condition, atMost(10)).check();
+        verify(condition, atLeast(5)).check();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldUseFixedPollIntervalOfPolledCondition() throws Exception {
+        PolledStartConditionCheck condition = mock(PolledStartConditionCheck.class);
+        when(condition.check()).thenReturn(false);
+        when(condition.getPollIntervalMillis()).thenReturn(100);
+        try {
+            WaitForContainer.waitForCondition(condition, 1, 10, 400, "test container");
+            fail("timeout expected");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        // every 100ms instead of 10 + 20 + 40 + ...
+        verify(condition, atMost(12)).check();
+        verify(condition, atLeast(8)).check();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWaitForAllConditionsConcurrently() throws Exception {
+        StartConditionCheck first = conditionMetAfter(1000, "first");
+        StartConditionCheck second = conditionMetAfter(1000, "second");
+        long start = System.currentTimeMillis();
+        WaitForContainer.waitForConditions(Arrays.asList(first, second), WaitForMode.ALL, WAIT_LOG_TIMEOUT_SEC, 50, 50, "test container");
+        assertTrue("conditions should be checked concurrently", System.currentTimeMillis() - start < 1800);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWaitForAnyCondition() throws Exception {
+        StartConditionCheck never = conditionMetAfter(Long.MAX_VALUE, "never");
+        StartConditionCheck fast = conditionMetAfter(200, "fast");
+        WaitForContainer.waitForConditions(Arrays.asList(never, fast), WaitForMode.ANY, WAIT_LOG_TIMEOUT_SEC, 50, 50, "test container");
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReportPendingConditionsOnSharedTimeout() throws Exception {
+        StartConditionCheck never = conditionMetAfter(Long.MAX_VALUE, "never");
+        StartConditionCheck fast = conditionMetAfter(200, "fast");
+        try {
+            WaitForContainer.waitForConditions(Arrays.asList(never, fast), WaitForMode.ALL, 1, 50, 50, "test container");
+            fail("timeout expected");
+        } catch (TimeoutException e) {
+            assertThat(e.getMessage(), containsString("[never]"));
+            assertThat(e.getMessage(), containsString("conditions met: [fast]"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotifyListenerOfEachConditionTime() throws Exception {
+        StartConditionCheck never = conditionMetAfter(Long.MAX_VALUE, "never");
+        StartConditionCheck fast = conditionMetAfter(200, "fast");
+        final Map<String, Boolean> finished = new ConcurrentHashMap<>();
+        WaitForContainer.ConditionListener listener = new WaitForContainer.ConditionListener() {
+            @Override
+            public void conditionFinished(StartConditionCheck condition, long durationNanos, boolean met) {
+                assertTrue(durationNanos > 0);
+                finished.put(condition.describe(), met);
+            }
+        };
+        try {
+            WaitForContainer.waitForConditions(Arrays.asList(fast, never), WaitForMode.SEQUENTIAL, 1, 50, 50, "test container", listener);
+            fail("timeout expected");
+        } catch (TimeoutException e) {
+            assertEquals(Boolean.TRUE, finished.get("fast"));
+            assertEquals(Boolean.FALSE, finished.get("never"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldAbortWaitingAsSoonAsAbortConditionSignaled() throws Exception {
+        StartConditionCheck never = conditionMetAfter(Long.MAX_VALUE, "never");
+        final CountDownLatch aborted = new CountDownLatch(1);
+        WaitForContainer.AbortCondition abortCondition = new WaitForContainer.AbortCondition() {
+            @Override
+            public void check() {
+                if (aborted.getCount() == 0) {
+                    throw new IllegalStateException("container exited");
+                }
+            }
+            @Override
+            public boolean await(long waitMs) throws InterruptedException {
+                return aborted.await(waitMs, TimeUnit.MILLISECONDS);
+            }
+        };
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                TimeUnit.MILLISECONDS.sleep(300);
+                aborted.countDown();
+                return null;
+            }
+        });
+        long start = System.currentTimeMillis();
+        try {
+            // max poll interval longer than whole test
+            WaitForContainer.waitForConditions(Arrays.asList(never), WaitForMode.SEQUENTIAL, WAIT_LOG_TIMEOUT_SEC, 50, 20000, "test container", null, abortCondition);
+            fail("abort expected");
+        } catch (IllegalStateException e) {
+            assertEquals("container exited", e.getMessage());
+            assertTrue("waiting should end right after abort", System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotAbortWhenConditionMet() throws Exception {
+        StartConditionCheck met = conditionMetAfter(0, "met");
+        WaitForContainer.AbortCondition abortCondition = mock(WaitForContainer.AbortCondition.class);
+        doThrow(new IllegalStateException("container exited")).when(abortCondition).check();
+
+        WaitForContainer.waitForConditions(Arrays.asList(met), WaitForMode.ALL, WAIT_LOG_TIMEOUT_SEC, 50, 50, "test container", null, abortCondition);
+
+        verify(abortCondition, never()).check();
+    }
+
+    private StartConditionCheck conditionMetAfter(final long millis, String description) {
+        final long start = System.currentTimeMillis();
+        StartConditionCheck condition = mock(StartConditionCheck.class);
+        when(condition.describe()).thenReturn(description);
+        when(condition.check()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return System.currentTimeMillis() - start >= millis;
+            }
+        });
+        return condition;
+    }
+
     private void waitForDone() throws TimeoutException, InterruptedException {
         new WaitForUnit(TimeUnit.SECONDS, 5, new WaitForUnit.WaitForCondition() {
             @Override
@@ -0,0 +1,50 @@
+package pl.domzal.junit.docker.rule.examples;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.DockerRule;
+import pl.domzal.junit.docker.rule.DockerRuleGroup;
+
+/**
+ * Dynamically linked containers started as group - &quot;db&quot; and &quot;cache&quot; are started
+ * concurrently, &quot;web&quot; (linking to both) after them.
+ */
+@Category(test.category.Stable.class)
+public class ExampleDockerRuleGroupTest {
+
+    private static DockerRule db = DockerRule.builder()
+            .imageName("alpine:3.13.1")
+            .cmd("sh", "-c", "sleep 30")
+            .build();
+
+    private static DockerRule cache = DockerRule.builder()
+            .imageName("alpine:3.13.1")
+            .cmd("sh", "-c", "sleep 30")
+            .build();
+
+    private static DockerRule web = DockerRule.builder()
+            .imageName("alpine:3.13.1")
+            .link(db, "db")
+            .link(cache, "cache")
+            .cmd("sh", "-c", "ping -w 1 db; ping -w 1 cache")
+            .build();
+
+    /**
+     * Order of rules does not matter - it is derived from links.
+     */
+    @ClassRule
+    public static DockerRuleGroup containers = DockerRuleGroup.of(web, db, cache);
+
+    @Test
+    public void shouldPingViaLinks() throws Throwable {
+        web.waitForExit();
+        String output = web.getLog();
+        assertThat(output, containsString("1 packets received"));
+    }
+
+}
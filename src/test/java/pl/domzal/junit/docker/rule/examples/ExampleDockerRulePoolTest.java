@@ -0,0 +1,40 @@
+package pl.domzal.junit.docker.rule.examples;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.DockerRule;
+import pl.domzal.junit.docker.rule.DockerRulePool;
+import pl.domzal.junit.docker.rule.WaitFor;
+
+/**
+ * Every test gets its own, already started container from pool.
+ */
+@Category(test.category.Stable.class)
+public class ExampleDockerRulePoolTest {
+
+    @ClassRule
+    public static DockerRulePool pool = DockerRulePool.create(DockerRule.builder()//
+            .imageName("busybox:1.33.0")//
+            .cmd("sh", "-c", "echo started; sleep 60")//
+            .waitFor(WaitFor.logMessage("started")), 2);
+
+    @Rule
+    public DockerRulePool.PooledRule container = pool.rule();
+
+    @Test
+    public void shouldUseFirstContainer() {
+        assertThat(container.get().getLog(), containsString("started"));
+    }
+
+    @Test
+    public void shouldUseSecondContainer() {
+        assertThat(container.get().getLog(), containsString("started"));
+    }
+
+}
@@ -0,0 +1,1155 @@
+package pl.domzal.junit.docker.rule.fake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.rules.ExternalResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for docker daemon - implements subset of Docker Engine API used by
+ * {@link pl.domzal.junit.docker.rule.DockerRule} (ping, info, version, image inspect and pull,
+ * container create, start, inspect, list, logs with follow, stats, stop, kill, wait, remove and exec)
+ * over plain http on loopback interface.
+ * <p>
+ * There are no processes behind containers: started container plays log lines scripted for its image
+ * with {@link #container(String)} and runs until stopped, killed or (when scripted) exits on its own.
+ * Commands executed in container (exec) do nothing but exit with scripted exit codes.
+ * Every api operation may be slowed down with {@link #latency(Operation, long)}.
+ * <pre>
+ * &#64;Rule
+ * public FakeDockerEngine engine = new FakeDockerEngine();
+ *
+ * &#64;Test
+ * public void shouldStart() throws Throwable {
+ *     engine.container("alpine:3.4").stdout("starting", "started");
+ *     DockerRule rule = DockerRule.builder()
+ *             .imageName("alpine:3.4")
+ *             .dockerUri(engine.getUri())
+ *             .waitForMessage("started")
+ *             .build();
+ *     ...
+ * }
+ * </pre>
+ * Unlike real daemon it does not require image to be pulled before container is created.
+ */
+public class FakeDockerEngine extends ExternalResource implements Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(FakeDockerEngine.class);
+
+    static {
+        // without TCP_NODELAY responses written in parts (headers, body) wait for delayed ACK (~40ms) of client
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Api operations, for latency configuration and request counting.
+     */
+    public enum Operation {
+        PING, INFO, VERSION, LIST, CREATE, START, INSPECT, LOGS, STOP, KILL, WAIT, REMOVE, INSPECT_IMAGE, PULL,
+        EXEC_CREATE, EXEC_START, EXEC_INSPECT, STATS
+    }
+
+    private static final Pattern API_VERSION_PREFIX = Pattern.compile("^/v[0-9.]+(/.*)$");
+    private static final Pattern CONTAINER_ACTION = Pattern.compile("^/containers/([^/]+)/(start|stop|kill|wait|json|logs|stats)$");
+    private static final Pattern CONTAINER = Pattern.compile("^/containers/([^/]+)$");
+    private static final Pattern IMAGE_INSPECT = Pattern.compile("^/images/(.+)/json$");
+    private static final Pattern CONTAINER_EXEC = Pattern.compile("^/containers/([^/]+)/exec$");
+    private static final Pattern EXEC_ACTION = Pattern.compile("^/exec/([^/]+)/(start|json)$");
+
+    private static final int STDOUT = 1;
+    private static final int STDERR = 2;
+    private static final int FIRST_HOST_PORT = 32768;
+    private static final String ZERO_TIME = "0001-01-01T00:00:00Z";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<Operation, Long> latencies = Collections.synchronizedMap(new EnumMap<Operation, Long>(Operation.class));
+    private final Map<Operation, AtomicInteger> requests = new EnumMap<>(Operation.class);
+    private final Map<String, ContainerScript> scripts = new ConcurrentHashMap<>();
+    private final Set<String> images = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> unavailableImages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Map<String, FakeContainer> containers = new ConcurrentHashMap<>();
+    private final Map<String, FakeExec> execs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextHostPort = new AtomicInteger(FIRST_HOST_PORT);
+    private final AtomicInteger nextIp = new AtomicInteger(2);
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed = false;
+
+    public FakeDockerEngine() {
+        for (Operation operation : Operation.values()) {
+            requests.put(operation, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Delay every request of given operation.
+     */
+    public FakeDockerEngine latency(Operation operation, long millis) {
+        latencies.put(operation, millis);
+        return this;
+    }
+
+    /**
+     * Make image present as if it was already pulled.
+     */
+    public FakeDockerEngine image(String imageName) {
+        images.add(withTag(imageName));
+        return this;
+    }
+
+    /**
+     * Make image pull fail as if image did not exist in registry.
+     */
+    public FakeDockerEngine unavailableImage(String imageName) {
+        unavailableImages.add(withTag(imageName));
+        return this;
+    }
+
+    /**
+     * Behaviour of containers created from given image (replaces previous one).
+     * Containers of images without script log nothing and run until stopped.
+     */
+    public ContainerScript container(String imageName) {
+        ContainerScript script = new ContainerScript();
+        scripts.put(withTag(imageName), script);
+        return script;
+    }
+
+    /**
+     * Engine api uri to be given to {@link pl.domzal.junit.docker.rule.DockerRuleBuilder#dockerUri(String)}.
+     */
+    public String getUri() {
+        if (server == null) {
+            throw new IllegalStateException("fake docker engine not started");
+        }
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Number of requests of given operation served so far.
+     */
+    public int requests(Operation operation) {
+        return requests.get(operation).get();
+    }
+
+    /**
+     * Ids of all (running or not) containers.
+     */
+    public Set<String> containerIds() {
+        return new TreeSet<>(containers.keySet());
+    }
+
+    /**
+     * Commands executed (exec started) in containers so far.
+     */
+    public List<List<String>> execCommands() {
+        List<List<String>> commands = new ArrayList<>();
+        for (FakeExec exec : execs.values()) {
+            if (exec.isStarted()) {
+                commands.add(exec.cmd);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * @return <code>true</code> when container exists and is running.
+     */
+    public boolean isRunning(String containerId) {
+        FakeContainer container = containers.get(containerId);
+        return container != null && container.isRunning();
+    }
+
+    public synchronized FakeDockerEngine start() throws IOException {
+        if (server == null) {
+            executor = Executors.newCachedThreadPool(daemonThreadFactory("fakedocker-%d"));
+            scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("fakedockerlogs-%d"));
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+            server.setExecutor(executor);
+            server.createContext("/", new EngineHandler());
+            server.start();
+            log.debug("fake docker engine listening at {}", getUri());
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (FakeContainer container : containers.values()) {
+            container.wakeUp();
+        }
+        for (FakeExec exec : execs.values()) {
+            exec.wakeUp();
+        }
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        start();
+    }
+
+    @Override
+    protected void after() {
+        close();
+    }
+
+    /**
+     * Scripted log output and exit of container.
+     */
+    public static class ContainerScript {
+
+        private final List<LogLine> lines = new ArrayList<>();
+        private long lineIntervalMillis = 0;
+        private Integer exitCode;
+        private boolean oomKilled = false;
+        private final List<Integer> execExitCodes = new ArrayList<>();
+        private long execMillis = 0;
+
+        /**
+         * Lines printed on stdout.
+         */
+        public synchronized ContainerScript stdout(String... lines) {
+            for (String line : lines) {
+                this.lines.add(new LogLine(STDOUT, line));
+            }
+            return this;
+        }
+
+        /**
+         * Lines printed on stderr.
+         */
+        public synchronized ContainerScript stderr(String... lines) {
+            for (String line : lines) {
+                this.lines.add(new LogLine(STDERR, line));
+            }
+            return this;
+        }
+
+        /**
+         * Generated stdout lines (<code>prefix-1</code>, <code>prefix-2</code>, ...).
+         */
+        public synchronized ContainerScript stdoutLines(String prefix, int count) {
+            for (int i = 1; i <= count; i++) {
+                lines.add(new LogLine(STDOUT, prefix + "-" + i));
+            }
+            return this;
+        }
+
+        /**
+         * Time between log lines (all lines are logged at container start by default).
+         */
+        public synchronized ContainerScript lineInterval(long millis) {
+            this.lineIntervalMillis = millis;
+            return this;
+        }
+
+        /**
+         * Exit with given code after last line is logged (container runs until stopped by default).
+         */
+        public synchronized ContainerScript exit(int exitCode) {
+            this.exitCode = exitCode;
+            return this;
+        }
+
+        /**
+         * Get killed by OOM killer (exit code 137) after last line is logged.
+         */
+        public synchronized ContainerScript oomKill() {
+            this.exitCode = 137;
+            this.oomKilled = true;
+            return this;
+        }
+
+        /**
+         * Exit codes of consecutive commands executed in container, last one is repeated
+         * (commands exit with 0 by default).
+         */
+        public synchronized ContainerScript execExitCodes(int... exitCodes) {
+            execExitCodes.clear();
+            for (int code : exitCodes) {
+                execExitCodes.add(code);
+            }
+            return this;
+        }
+
+        /**
+         * Time every command executed in container runs (commands exit right away by default).
+         */
+        public synchronized ContainerScript execDuration(long millis) {
+            this.execMillis = millis;
+            return this;
+        }
+
+        synchronized int execExitCode(int execIndex) {
+            return execExitCodes.isEmpty() ? 0 : execExitCodes.get(Math.min(execIndex, execExitCodes.size() - 1));
+        }
+
+        synchronized long execMillis() {
+            return execMillis;
+        }
+
+        synchronized boolean oomKilled() {
+            return oomKilled;
+        }
+
+        synchronized List<LogLine> lines() {
+            return new ArrayList<>(lines);
+        }
+
+        synchronized long lineIntervalMillis() {
+            return lineIntervalMillis;
+        }
+
+        synchronized Integer exitCode() {
+            return exitCode;
+        }
+    }
+
+    private static class LogLine {
+
+        private final int stream;
+        private final String text;
+
+        LogLine(int stream, String text) {
+            this.stream = stream;
+            this.text = text;
+        }
+    }
+
+    private class FakeContainer {
+
+        private final String id;
+        private final String name;
+        private final String image;
+        private final ObjectNode config;
+        private final ObjectNode hostConfig;
+        private final ObjectNode ports;
+        private final String ip;
+        private final String created = now();
+        private final ContainerScript script;
+
+        private final List<byte[]> frames = new ArrayList<>();
+        private String status = "created";
+        private int exitCode = 0;
+        private boolean oomKilled = false;
+        private int execCount = 0;
+        private String startedAt = ZERO_TIME;
+        private String finishedAt = ZERO_TIME;
+
+        FakeContainer(String id, String name, String image, ObjectNode config, ObjectNode hostConfig, ContainerScript script) {
+            this.id = id;
+            this.name = name;
+            this.image = image;
+            this.config = config;
+            this.hostConfig = hostConfig;
+            this.script = script;
+            this.ports = bindPorts(config, hostConfig);
+            this.ip = "172.17." + (nextIp.get() / 250) + "." + (nextIp.getAndIncrement() % 250 + 2);
+        }
+
+        synchronized boolean isRunning() {
+            return "running".equals(status);
+        }
+
+        synchronized void start() {
+            if (isRunning()) {
+                return;
+            }
+            status = "running";
+            startedAt = now();
+            finishedAt = ZERO_TIME;
+            if (script != null) {
+                play(script.lines().iterator(), script.lineIntervalMillis(), script.exitCode());
+            }
+        }
+
+        private void play(final Iterator<LogLine> lines, final long intervalMillis, final Integer exitCode) {
+            if (intervalMillis <= 0) {
+                while (lines.hasNext()) {
+                    log(lines.next());
+                }
+                if (exitCode != null) {
+                    scriptedExit(exitCode);
+                }
+            } else if (lines.hasNext() || exitCode != null) {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (FakeContainer.this) {
+                            if (!isRunning()) {
+                                return;
+                            }
+                            if (lines.hasNext()) {
+                                log(lines.next());
+                                play(lines, intervalMillis, exitCode);
+                            } else {
+                                scriptedExit(exitCode);
+                            }
+                        }
+                    }
+                }, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void log(LogLine line) {
+            byte[] payload = (line.text + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+            frame.put(0, (byte) line.stream);
+            frame.putInt(4, payload.length);
+            System.arraycopy(payload, 0, frame.array(), 8, payload.length);
+            frames.add(frame.array());
+            notifyAll();
+        }
+
+        private synchronized void scriptedExit(int exitCode) {
+            oomKilled = script.oomKilled();
+            exit(exitCode);
+        }
+
+        synchronized void exit(int exitCode) {
+            if (isRunning()) {
+                this.status = "exited";
+                this.exitCode = exitCode;
+                this.finishedAt = now();
+                notifyAll();
+            }
+        }
+
+        synchronized int nextExecIndex() {
+            return execCount++;
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        /**
+         * Wait till there is frame with given index or container is not running.
+         *
+         * @return Frame or <code>null</code> if there will be no more frames.
+         */
+        synchronized byte[] awaitFrame(int index, boolean follow) throws InterruptedException {
+            while (frames.size() <= index && follow && isRunning() && !closed) {
+                wait();
+            }
+            return frames.size() > index ? frames.get(index) : null;
+        }
+
+        synchronized int awaitExit() throws InterruptedException {
+            while (isRunning() && !closed) {
+                wait();
+            }
+            return exitCode;
+        }
+
+        synchronized ObjectNode inspect() {
+            ObjectNode info = mapper.createObjectNode();
+            info.put("Id", id);
+            info.put("Created", created);
+            info.put("Path", "");
+            info.putArray("Args");
+            ObjectNode state = info.putObject("State");
+            state.put("Status", status);
+            state.put("Running", isRunning());
+            state.put("Paused", false);
+            state.put("Restarting", false);
+            state.put("OOMKilled", oomKilled);
+            state.put("Pid", isRunning() ? 1000 : 0);
+            state.put("ExitCode", exitCode);
+            state.put("Error", "");
+            state.put("StartedAt", startedAt);
+            state.put("FinishedAt", finishedAt);
+            info.put("Image", imageId(image));
+            info.put("ResolvConfPath", "");
+            info.put("HostnamePath", "");
+            info.put("HostsPath", "");
+            info.put("LogPath", "");
+            info.put("Name", "/" + name);
+            info.put("RestartCount", 0);
+            info.put("Driver", "fake");
+            info.put("MountLabel", "");
+            info.put("ProcessLabel", "");
+            info.put("AppArmorProfile", "");
+            info.set("HostConfig", hostConfig);
+            info.set("Config", config);
+            ObjectNode networkSettings = info.putObject("NetworkSettings");
+            networkSettings.put("IPAddress", isRunning() ? ip : "");
+            networkSettings.put("Gateway", isRunning() ? "172.17.0.1" : "");
+            networkSettings.set("Ports", isRunning() ? ports : mapper.createObjectNode());
+            return info;
+        }
+
+        synchronized ObjectNode summary() {
+            ObjectNode summary = mapper.createObjectNode();
+            summary.put("Id", id);
+            summary.putArray("Names").add("/" + name);
+            summary.put("Image", image);
+            summary.put("Command", "");
+            summary.put("Created", System.currentTimeMillis() / 1000);
+            summary.put("State", status);
+            summary.put("Status", isRunning() ? "Up" : "Exited (" + exitCode + ")");
+            summary.set("Labels", labels());
+            return summary;
+        }
+
+        synchronized JsonNode labels() {
+            return config.has("Labels") && !config.get("Labels").isNull() ? config.get("Labels") : mapper.createObjectNode();
+        }
+    }
+
+    private class FakeExec {
+
+        private final String id;
+        private final FakeContainer container;
+        private final List<String> cmd;
+
+        private boolean started = false;
+        private Integer exitCode;
+
+        FakeExec(String id, FakeContainer container, List<String> cmd) {
+            this.id = id;
+            this.container = container;
+            this.cmd = cmd;
+        }
+
+        synchronized boolean isStarted() {
+            return started;
+        }
+
+        synchronized boolean start() {
+            if (started) {
+                return false;
+            }
+            started = true;
+            final int code = container.script != null ? container.script.execExitCode(container.nextExecIndex()) : 0;
+            long millis = container.script != null ? container.script.execMillis() : 0;
+            if (millis <= 0) {
+                exit(code);
+            } else {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        exit(code);
+                    }
+                }, millis, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+
+        private synchronized void exit(int code) {
+            exitCode = code;
+            notifyAll();
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        synchronized void awaitExit() throws InterruptedException {
+            while (exitCode == null && !closed) {
+                wait();
+            }
+        }
+
+        synchronized ObjectNode inspect() {
+            ObjectNode info = mapper.createObjectNode();
+            info.put("ID", id);
+            info.put("Running", started && exitCode == null);
+            if (exitCode != null) {
+                info.put("ExitCode", exitCode);
+            } else {
+                info.putNull("ExitCode");
+            }
+            ObjectNode processConfig = info.putObject("ProcessConfig");
+            processConfig.put("privileged", false);
+            processConfig.put("user", "");
+            processConfig.put("tty", false);
+            processConfig.put("entrypoint", cmd.isEmpty() ? "" : cmd.get(0));
+            ArrayNode arguments = processConfig.putArray("arguments");
+            for (String arg : cmd.subList(Math.min(1, cmd.size()), cmd.size())) {
+                arguments.add(arg);
+            }
+            info.put("OpenStdin", false);
+            info.put("OpenStdout", false);
+            info.put("OpenStderr", false);
+            info.put("ContainerID", container.id);
+            info.put("Pid", started ? 2000 : 0);
+            return info;
+        }
+    }
+
+    private ObjectNode bindPorts(ObjectNode config, ObjectNode hostConfig) {
+        Map<String, String> hostPorts = new HashMap<>();
+        JsonNode portBindings = hostConfig.get("PortBindings");
+        if (portBindings != null && portBindings.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> bindings = portBindings.fields();
+            while (bindings.hasNext()) {
+                Map.Entry<String, JsonNode> binding = bindings.next();
+                JsonNode first = binding.getValue().path(0);
+                String hostPort = first.path("HostPort").asText("");
+                hostPorts.put(binding.getKey(), StringUtils.isNotEmpty(hostPort) ? hostPort : Integer.toString(nextHostPort.getAndIncrement()));
+            }
+        }
+        JsonNode exposedPorts = config.get("ExposedPorts");
+        if (hostConfig.path("PublishAllPorts").asBoolean(false) && exposedPorts != null && exposedPorts.isObject()) {
+            Iterator<String> exposed = exposedPorts.fieldNames();
+            while (exposed.hasNext()) {
+                String port = exposed.next();
+                if (!hostPorts.containsKey(port)) {
+                    hostPorts.put(port, Integer.toString(nextHostPort.getAndIncrement()));
+                }
+            }
+        }
+        ObjectNode ports = mapper.createObjectNode();
+        for (Map.Entry<String, String> hostPort : hostPorts.entrySet()) {
+            ObjectNode binding = ports.putArray(hostPort.getKey()).addObject();
+            binding.put("HostIp", "0.0.0.0");
+            binding.put("HostPort", hostPort.getValue());
+        }
+        return ports;
+    }
+
+    private class EngineHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                byte[] body = IOUtils.toByteArray(requestBody);
+                String path = exchange.getRequestURI().getRawPath();
+                Matcher versioned = API_VERSION_PREFIX.matcher(path);
+                if (versioned.matches()) {
+                    path = versioned.group(1);
+                }
+                handle(exchange, exchange.getRequestMethod(), path, query(exchange.getRequestURI().getRawQuery()), body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    log.debug("fake docker engine request {} failed", exchange.getRequestURI(), e);
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void handle(HttpExchange exchange, String method, String path, Map<String, String> query, byte[] body) throws IOException, InterruptedException {
+            Matcher containerAction = CONTAINER_ACTION.matcher(path);
+            Matcher container = CONTAINER.matcher(path);
+            Matcher imageInspect = IMAGE_INSPECT.matcher(path);
+            Matcher containerExec = CONTAINER_EXEC.matcher(path);
+            Matcher execAction = EXEC_ACTION.matcher(path);
+            if ("GET".equals(method) && "/_ping".equals(path)) {
+                delay(Operation.PING);
+                text(exchange, 200, "OK");
+            } else if ("GET".equals(method) && "/info".equals(path)) {
+                delay(Operation.INFO);
+                json(exchange, 200, info());
+            } else if ("GET".equals(method) && "/version".equals(path)) {
+                delay(Operation.VERSION);
+                json(exchange, 200, version());
+            } else if ("GET".equals(method) && "/containers/json".equals(path)) {
+                delay(Operation.LIST);
+                json(exchange, 200, list(query));
+            } else if ("POST".equals(method) && "/containers/create".equals(path)) {
+                delay(Operation.CREATE);
+                create(exchange, query.get("name"), body);
+            } else if ("POST".equals(method) && "/images/create".equals(path)) {
+                delay(Operation.PULL);
+                pull(exchange, query.get("fromImage"), query.get("tag"));
+            } else if ("GET".equals(method) && imageInspect.matches()) {
+                delay(Operation.INSPECT_IMAGE);
+                inspectImage(exchange, decode(imageInspect.group(1)));
+            } else if ("POST".equals(method) && containerExec.matches()) {
+                delay(Operation.EXEC_CREATE);
+                execCreate(exchange, decode(containerExec.group(1)), body);
+            } else if ("POST".equals(method) && execAction.matches() && "start".equals(execAction.group(2))) {
+                delay(Operation.EXEC_START);
+                execStart(exchange, decode(execAction.group(1)), body);
+            } else if ("GET".equals(method) && execAction.matches()) {
+                delay(Operation.EXEC_INSPECT);
+                execInspect(exchange, decode(execAction.group(1)));
+            } else if (containerAction.matches()) {
+                containerAction(exchange, method, decode(containerAction.group(1)), containerAction.group(2), query);
+            } else if ("DELETE".equals(method) && container.matches()) {
+                delay(Operation.REMOVE);
+                remove(exchange, decode(container.group(1)), "1".equals(query.get("force")) || "true".equals(query.get("force")));
+            } else {
+                error(exchange, 404, "page not found");
+            }
+        }
+
+        private void containerAction(HttpExchange exchange, String method, String idOrName, String action, Map<String, String> query) throws IOException, InterruptedException {
+            Operation operation = "json".equals(action) ? Operation.INSPECT : Operation.valueOf(action.toUpperCase());
+            delay(operation);
+            FakeContainer container = find(idOrName);
+            if (container == null) {
+                error(exchange, 404, "No such container: " + idOrName);
+                return;
+            }
+            switch (operation) {
+                case START:
+                    container.start();
+                    empty(exchange);
+                    break;
+                case STOP:
+                    container.exit(0);
+                    empty(exchange);
+                    break;
+                case KILL:
+                    if (!container.isRunning()) {
+                        error(exchange, 409, "Container " + idOrName + " is not running");
+                        return;
+                    }
+                    container.exit(137);
+                    empty(exchange);
+                    break;
+                case WAIT:
+                    ObjectNode exit = mapper.createObjectNode();
+                    exit.put("StatusCode", container.awaitExit());
+                    json(exchange, 200, exit);
+                    break;
+                case INSPECT:
+                    json(exchange, 200, container.inspect());
+                    break;
+                case STATS:
+                    json(exchange, 200, stats(container));
+                    break;
+                default:
+                    logs(exchange, container, isSet(query, "stdout"), isSet(query, "stderr"), isSet(query, "follow"), tail(query));
+            }
+        }
+    }
+
+    /**
+     * Stats as reported by daemons on cgroup v2 hosts - no per cpu usage and no cgroup v1 memory counters.
+     * Container uses half of single cpu (of 2 online) and 64MiB of memory (4MiB of which is inactive file cache).
+     */
+    private ObjectNode stats(FakeContainer container) {
+        long now = System.currentTimeMillis();
+        ObjectNode stats = mapper.createObjectNode();
+        stats.put("id", container.id);
+        stats.put("name", "/" + container.name);
+        stats.put("read", time(now));
+        stats.put("preread", time(now - 1000));
+        stats.set("cpu_stats", cpuStats(now * 500000, now * 1000000 * 2));
+        stats.set("precpu_stats", cpuStats((now - 1000) * 500000, (now - 1000) * 1000000 * 2));
+        ObjectNode memoryStats = stats.putObject("memory_stats");
+        memoryStats.put("usage", 64 * 1024 * 1024);
+        memoryStats.put("limit", 1024 * 1024 * 1024);
+        ObjectNode memoryCounters = memoryStats.putObject("stats");
+        memoryCounters.put("anon", 60 * 1024 * 1024);
+        memoryCounters.put("file", 4 * 1024 * 1024);
+        memoryCounters.put("inactive_file", 4 * 1024 * 1024);
+        memoryCounters.put("active_file", 0);
+        ObjectNode network = stats.putObject("networks").putObject("eth0");
+        for (String counter : new String[] {"bytes", "packets", "dropped", "errors"}) {
+            network.put("rx_" + counter, 0);
+            network.put("tx_" + counter, 0);
+        }
+        stats.putObject("blkio_stats").putArray("io_service_bytes_recursive");
+        return stats;
+    }
+
+    private ObjectNode cpuStats(long totalUsage, long systemUsage) {
+        ObjectNode cpuStats = mapper.createObjectNode();
+        ObjectNode cpuUsage = cpuStats.putObject("cpu_usage");
+        cpuUsage.put("total_usage", totalUsage);
+        cpuUsage.put("usage_in_kernelmode", 0);
+        cpuUsage.put("usage_in_usermode", totalUsage);
+        cpuStats.put("system_cpu_usage", systemUsage);
+        cpuStats.put("online_cpus", 2);
+        ObjectNode throttlingData = cpuStats.putObject("throttling_data");
+        throttlingData.put("periods", 0);
+        throttlingData.put("throttled_periods", 0);
+        throttlingData.put("throttled_time", 0);
+        return cpuStats;
+    }
+
+    private void create(HttpExchange exchange, String name, byte[] body) throws IOException {
+        ObjectNode config = (ObjectNode) mapper.readTree(body);
+        JsonNode hostConfig = config.remove("HostConfig");
+        String image = withTag(config.path("Image").asText());
+        String id = (UUID.randomUUID().toString() + UUID.randomUUID().toString()).replace("-", "");
+        String containerName = StringUtils.isNotEmpty(name) ? StringUtils.removeStart(name, "/") : "fake_" + id.substring(0, 12);
+        FakeContainer container = new FakeContainer(id, containerName, image, config,
+                hostConfig != null && hostConfig.isObject() ? (ObjectNode) hostConfig : mapper.createObjectNode(), scripts.get(image));
+        synchronized (containers) {
+            if (find(containerName) != null) {
+                error(exchange, 409, "Conflict. The container name \"/" + containerName + "\" is already in use");
+                return;
+            }
+            containers.put(id, container);
+        }
+        ObjectNode creation = mapper.createObjectNode();
+        creation.put("Id", id);
+        creation.putArray("Warnings");
+        json(exchange, 201, creation);
+    }
+
+    private void remove(HttpExchange exchange, String idOrName, boolean force) throws IOException {
+        FakeContainer container = find(idOrName);
+        if (container == null) {
+            error(exchange, 404, "No such container: " + idOrName);
+        } else if (container.isRunning() && !force) {
+            error(exchange, 409, "You cannot remove a running container " + container.id + ". Stop the container before attempting removal or force remove");
+        } else {
+            container.exit(137);
+            containers.remove(container.id);
+            empty(exchange);
+        }
+    }
+
+    /**
+     * Number of last log lines requested (<code>-1</code> for all).
+     */
+    private static int tail(Map<String, String> query) {
+        String tail = query.get("tail");
+        return tail == null || "all".equals(tail) ? -1 : Integer.parseInt(tail);
+    }
+
+    private void logs(HttpExchange exchange, FakeContainer container, boolean stdout, boolean stderr, boolean follow, int tail) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "application/vnd.docker.raw-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        List<byte[]> selected = new ArrayList<>();
+        byte[] frame;
+        for (int i = 0; (frame = container.awaitFrame(i, follow)) != null; i++) {
+            if ((frame[0] == STDOUT && stdout) || (frame[0] == STDERR && stderr)) {
+                if (tail < 0) {
+                    out.write(frame);
+                    out.flush();
+                } else {
+                    selected.add(frame);
+                }
+            }
+        }
+        if (tail >= 0) {
+            // every frame is single line
+            for (byte[] tailFrame : selected.subList(Math.max(0, selected.size() - tail), selected.size())) {
+                out.write(tailFrame);
+            }
+        }
+        out.close();
+    }
+
+    private void execCreate(HttpExchange exchange, String idOrName, byte[] body) throws IOException {
+        FakeContainer container = find(idOrName);
+        if (container == null) {
+            error(exchange, 404, "No such container: " + idOrName);
+            return;
+        } else if (!container.isRunning()) {
+            error(exchange, 409, "Container " + container.id + " is not running");
+            return;
+        }
+        List<String> cmd = new ArrayList<>();
+        for (JsonNode arg : mapper.readTree(body).path("Cmd")) {
+            cmd.add(arg.asText());
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        execs.put(id, new FakeExec(id, container, cmd));
+        ObjectNode creation = mapper.createObjectNode();
+        creation.put("Id", id);
+        creation.putArray("Warnings");
+        json(exchange, 201, creation);
+    }
+
+    private void execStart(HttpExchange exchange, String execId, byte[] body) throws IOException, InterruptedException {
+        FakeExec exec = execs.get(execId);
+        if (exec == null) {
+            error(exchange, 404, "No such exec instance: " + execId);
+            return;
+        } else if (!exec.container.isRunning()) {
+            error(exchange, 409, "Container " + exec.container.id + " is not running");
+            return;
+        } else if (!exec.start()) {
+            error(exchange, 409, "Exec " + execId + " has already run");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/vnd.docker.raw-stream");
+        exchange.sendResponseHeaders(200, 0);
+        if (!mapper.readTree(body).path("Detach").asBoolean(false)) {
+            // attached - output (none) ends with command
+            exec.awaitExit();
+        }
+        exchange.getResponseBody().close();
+    }
+
+    private void execInspect(HttpExchange exchange, String execId) throws IOException {
+        FakeExec exec = execs.get(execId);
+        if (exec == null) {
+            error(exchange, 404, "No such exec instance: " + execId);
+            return;
+        }
+        json(exchange, 200, exec.inspect());
+    }
+
+    private void pull(HttpExchange exchange, String fromImage, String tag) throws IOException {
+        String image = withTag(StringUtils.isNotEmpty(tag) && !hasTag(fromImage) ? fromImage + ":" + tag : fromImage);
+        if (unavailableImages.contains(image)) {
+            error(exchange, 404, "pull access denied for " + fromImage + ", repository does not exist or may require 'docker login'");
+            return;
+        }
+        images.add(image);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        ObjectNode pulling = mapper.createObjectNode();
+        pulling.put("status", "Pulling from " + StringUtils.substringBeforeLast(image, ":"));
+        pulling.put("id", StringUtils.substringAfterLast(image, ":"));
+        ObjectNode done = mapper.createObjectNode();
+        done.put("status", "Status: Downloaded newer image for " + image);
+        out.write(mapper.writeValueAsBytes(pulling));
+        out.write('\n');
+        out.write(mapper.writeValueAsBytes(done));
+        out.write('\n');
+        out.close();
+    }
+
+    private void inspectImage(HttpExchange exchange, String imageName) throws IOException {
+        String image = withTag(imageName);
+        if (!images.contains(image)) {
+            error(exchange, 404, "No such image: " + image);
+            return;
+        }
+        ObjectNode info = mapper.createObjectNode();
+        info.put("Id", imageId(image));
+        info.putArray("RepoTags").add(image);
+        info.put("Parent", "");
+        info.put("Comment", "");
+        info.put("Created", ZERO_TIME);
+        info.put("Container", "");
+        info.putObject("ContainerConfig");
+        info.put("DockerVersion", "");
+        info.put("Author", "");
+        info.putObject("Config");
+        info.put("Architecture", "amd64");
+        info.put("Os", "linux");
+        info.put("Size", 0);
+        info.put("VirtualSize", 0);
+        json(exchange, 200, info);
+    }
+
+    private ArrayNode list(Map<String, String> query) throws IOException {
+        boolean all = isSet(query, "all");
+        List<String> labelFilters = new ArrayList<>();
+        if (query.containsKey("filters")) {
+            for (JsonNode label : mapper.readTree(query.get("filters")).path("label")) {
+                labelFilters.add(label.asText());
+            }
+        }
+        ArrayNode list = mapper.createArrayNode();
+        for (FakeContainer container : containers.values()) {
+            if ((all || container.isRunning()) && hasLabels(container.labels(), labelFilters)) {
+                list.add(container.summary());
+            }
+        }
+        return list;
+    }
+
+    private static boolean hasLabels(JsonNode labels, List<String> labelFilters) {
+        for (String filter : labelFilters) {
+            String key = StringUtils.substringBefore(filter, "=");
+            if (!labels.has(key) || (filter.contains("=") && !StringUtils.substringAfter(filter, "=").equals(labels.get(key).asText()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ObjectNode info() {
+        ObjectNode info = mapper.createObjectNode();
+        info.put("ID", "FAKE:DOCKER:ENGINE");
+        info.put("Name", "fake-docker-engine");
+        info.put("Containers", containers.size());
+        info.put("Images", images.size());
+        info.put("Debug", false);
+        info.put("DockerRootDir", "/var/lib/docker");
+        info.put("Driver", "fake");
+        info.putArray("DriverStatus");
+        info.put("IPv4Forwarding", true);
+        info.put("IndexServerAddress", "https://index.docker.io/v1/");
+        info.put("KernelVersion", System.getProperty("os.version"));
+        info.put("OperatingSystem", "fake");
+        info.put("MemTotal", Runtime.getRuntime().maxMemory());
+        info.put("MemoryLimit", false);
+        info.put("SwapLimit", false);
+        info.put("NCPU", Runtime.getRuntime().availableProcessors());
+        info.put("NEventsListener", 0);
+        info.put("NFd", 0);
+        info.put("NGoroutines", 0);
+        info.put("SystemTime", now());
+        ObjectNode registryConfig = info.putObject("RegistryConfig");
+        registryConfig.putObject("IndexConfigs");
+        registryConfig.putArray("InsecureRegistryCIDRs");
+        return info;
+    }
+
+    private ObjectNode version() {
+        ObjectNode version = mapper.createObjectNode();
+        version.put("Version", "fake");
+        version.put("ApiVersion", "1.41");
+        version.put("GitCommit", "fake");
+        version.put("GoVersion", "none");
+        version.put("Os", "linux");
+        version.put("Arch", "amd64");
+        version.put("KernelVersion", System.getProperty("os.version"));
+        return version;
+    }
+
+    private FakeContainer find(String idOrName) {
+        FakeContainer container = containers.get(idOrName);
+        if (container != null) {
+            return container;
+        }
+        String name = StringUtils.removeStart(idOrName, "/");
+        for (FakeContainer candidate : containers.values()) {
+            if (candidate.name.equals(name) || candidate.id.startsWith(idOrName)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void delay(Operation operation) throws InterruptedException {
+        requests.get(operation).incrementAndGet();
+        Long millis = latencies.get(operation);
+        if (millis != null && millis > 0) {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+    }
+
+    private void json(HttpExchange exchange, int status, JsonNode json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, status, mapper.writeValueAsBytes(json));
+    }
+
+    private void text(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        send(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void error(HttpExchange exchange, int status, String message) throws IOException {
+        ObjectNode error = mapper.createObjectNode();
+        error.put("message", message);
+        json(exchange, status, error);
+    }
+
+    private static void empty(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                if (!param.isEmpty()) {
+                    query.put(decode(StringUtils.substringBefore(param, "=")), decode(StringUtils.substringAfter(param, "=")));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static boolean isSet(Map<String, String> query, String name) {
+        return "1".equals(query.get(name)) || "true".equals(query.get(name));
+    }
+
+    private static String decode(String value) throws UnsupportedEncodingException {
+        return URLDecoder.decode(value, "UTF-8");
+    }
+
+    private static boolean hasTag(String imageName) {
+        return StringUtils.substringAfterLast(imageName, "/").contains(":") || (!imageName.contains("/") && imageName.contains(":"));
+    }
+
+    private static String withTag(String imageName) {
+        return hasTag(imageName) ? imageName : imageName + ":latest";
+    }
+
+    private static String imageId(String image) {
+        return "sha256:" + UUID.nameUUIDFromBytes(image.getBytes(StandardCharsets.UTF_8)).toString().replace("-", "");
+    }
+
+    private static String now() {
+        return time(System.currentTimeMillis());
+    }
+
+    private static String time(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String nameFormat) {
+        return new ThreadFactory() {
+            private final AtomicInteger id = new AtomicInteger(0);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, String.format(nameFormat, id.incrementAndGet()));
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,72 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class LineSplitterTest {
+
+    @Test
+    public void shouldSplitOnAllLineTerminators() throws IOException {
+        assertEquals(Arrays.asList("one", "two", "three", "", "four"), split(stream("one\ntwo\r\nthree\r\rfour\n")));
+    }
+
+    @Test
+    public void shouldPassUnterminatedLastLine() throws IOException {
+        assertEquals(Arrays.asList("one", "two"), split(stream("one\ntwo")));
+    }
+
+    @Test
+    public void shouldJoinLineSpanningMultipleReads() throws IOException {
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < LineSplitter.READ_BUFFER_SIZE; i++) {
+            longLine.append('x');
+        }
+        assertEquals(Arrays.asList("żółć", "one", longLine.toString(), "two"),
+                split(new OneByteAtATimeInputStream(stream("żółć\r\none\n" + longLine + "\ntwo\n"))));
+    }
+
+    @Test
+    public void shouldHandleCrLfSplitBetweenReads() throws IOException {
+        assertEquals(Arrays.asList("one", "two"), split(new OneByteAtATimeInputStream(stream("one\r\ntwo\r\n"))));
+    }
+
+    private static List<String> split(InputStream input) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        new LineSplitter().split(input, new LineSplitter.LineConsumer() {
+            @Override
+            public void line(byte[] bytes, int offset, int length) {
+                lines.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            }
+        });
+        return lines;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class OneByteAtATimeInputStream extends FilterInputStream {
+
+        OneByteAtATimeInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(1, len));
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package pl.domzal.junit.docker.rule.logs;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class LogRingBufferTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldReadStreamsWithIndependentCursors() throws Exception {
+        LogRingBuffer testee = new LogRingBuffer();
+        InputStream stdoutReader = testee.newReader(true, false);
+        InputStream stderrReader = testee.newReader(false, true);
+        InputStream combinedReader = testee.newReader(true, true);
+
+        testee.newWriter(LogRingBuffer.STDOUT).write(bytes("out1\n"));
+        testee.newWriter(LogRingBuffer.STDERR).write(bytes("err1\n"));
+        testee.newWriter(LogRingBuffer.STDOUT).write(bytes("out2\n"));
+        testee.close();
+
+        assertEquals("out1\nerr1\nout2\n", readFully(combinedReader));
+        assertEquals("err1\n", readFully(stderrReader));
+        assertEquals("out1\nout2\n", readFully(stdoutReader));
+    }
+
+    @Test
+    public void shouldStartNewReaderAtCurrentPosition() throws Exception {
+        LogRingBuffer testee = new LogRingBuffer();
+        OutputStream stdout = testee.newWriter(LogRingBuffer.STDOUT);
+        stdout.write(bytes("before\n"));
+        InputStream reader = testee.newReader(true, true);
+        stdout.write(bytes("after\n"));
+        testee.close();
+
+        assertEquals("after\n", readFully(reader));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldPassDataLargerThanCapacityWithoutLoss() throws Exception {
+        final LogRingBuffer testee = new LogRingBuffer(64, false);
+        final InputStream reader = testee.newReader(true, true);
+        Future<String> read = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return readFully(reader);
+            }
+        });
+
+        StringBuilder expected = new StringBuilder();
+        OutputStream stdout = testee.newWriter(LogRingBuffer.STDOUT);
+        for (int i = 0; i < 500; i++) {
+            String line = "line " + i + "\n";
+            expected.append(line);
+            stdout.write(bytes(line));
+        }
+        testee.close();
+
+        assertEquals(expected.toString(), read.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotBlockProducerOnClosedReader() throws Exception {
+        LogRingBuffer testee = new LogRingBuffer(64, false);
+        InputStream abandoned = testee.newReader(true, true);
+        abandoned.close();
+
+        OutputStream stdout = testee.newWriter(LogRingBuffer.STDOUT);
+        for (int i = 0; i < 100; i++) {
+            stdout.write(bytes("0123456789\n"));
+        }
+        testee.close();
+
+        assertEquals(-1, abandoned.read());
+    }
+
+    @Test(timeout = 10000)
+    public void shouldEndReaderWaitingForDataOnClose() throws Exception {
+        final LogRingBuffer testee = new LogRingBuffer();
+        final InputStream reader = testee.newReader(true, true);
+        Future<String> read = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return readFully(reader);
+            }
+        });
+        testee.newWriter(LogRingBuffer.STDERR).write(bytes("last\n"));
+        testee.close();
+
+        assertEquals("last\n", read.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldWorkOffHeap() throws Exception {
+        LogRingBuffer testee = new LogRingBuffer(64, true);
+        InputStream reader = testee.newReader(true, true);
+        testee.newWriter(LogRingBuffer.STDOUT).write(bytes("off heap\n"));
+        testee.close();
+
+        assertEquals("off heap\n", readFully(reader));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int n;
+        while ((n = input.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+        }
+        return new String(result.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,167 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.ObjectMapperProvider;
+import org.mandas.docker.client.messages.ContainerStats;
+
+@Category(test.category.Stable.class)
+public class ContainerStatsMonitorTest {
+
+    private static final double DELTA = 0.0001;
+
+    private static final String THROTTLING_DATA = "{\"periods\": 0, \"throttled_periods\": 0, \"throttled_time\": 0}";
+
+    private static final String CGROUP_V1_MEMORY_STATS = "{\"total_inactive_file\": 4096, \"inactive_file\": 0, "
+            + "\"active_file\": 0, \"total_active_file\": 0, \"cache\": 8192, \"total_cache\": 8192, "
+            + "\"active_anon\": 0, \"total_active_anon\": 0, \"inactive_anon\": 0, \"total_inactive_anon\": 0, "
+            + "\"hierarchical_memory_limit\": 0, \"mapped_file\": 0, \"total_mapped_file\": 0, "
+            + "\"pgmajfault\": 0, \"total_pgmajfault\": 0, \"pgpgin\": 0, \"total_pgpgin\": 0, "
+            + "\"pgpgout\": 0, \"total_pgpgout\": 0, \"pgfault\": 0, \"total_pgfault\": 0, "
+            + "\"rss\": 0, \"total_rss\": 0, \"rss_huge\": 0, \"total_rss_huge\": 0, "
+            + "\"unevictable\": 0, \"total_unevictable\": 0}";
+
+    /**
+     * Stats response of cgroup v2 host - no hierarchical totals, no per cpu usage, different counters.
+     */
+    private static final String CGROUP_V2_STATS = "{"
+            + "\"read\": \"2021-03-01T10:00:00Z\", \"preread\": \"2021-03-01T09:59:59Z\","
+            + "\"pids_stats\": {\"current\": 3, \"limit\": 4915},"
+            + "\"blkio_stats\": {\"io_service_bytes_recursive\": ["
+            + "  {\"major\": 254, \"minor\": 0, \"op\": \"read\", \"value\": 8192},"
+            + "  {\"major\": 254, \"minor\": 0, \"op\": \"write\", \"value\": 4096}"
+            + "], \"io_serviced_recursive\": null, \"io_queue_recursive\": null},"
+            + "\"num_procs\": 0, \"storage_stats\": {},"
+            + "\"cpu_stats\": {\"cpu_usage\": {\"total_usage\": 2000000, \"usage_in_kernelmode\": 0, \"usage_in_usermode\": 0},"
+            + "  \"system_cpu_usage\": 8000000, \"online_cpus\": 2, \"throttling_data\": " + THROTTLING_DATA + "},"
+            + "\"precpu_stats\": {\"cpu_usage\": {\"total_usage\": 1000000, \"usage_in_kernelmode\": 0, \"usage_in_usermode\": 0},"
+            + "  \"system_cpu_usage\": 4000000, \"online_cpus\": 2, \"throttling_data\": " + THROTTLING_DATA + "},"
+            + "\"memory_stats\": {\"usage\": " + (100 * 1024 * 1024) + ", \"limit\": " + (1024 * 1024 * 1024) + ", \"stats\": {"
+            + "  \"active_anon\": 0, \"active_file\": 1024, \"anon\": 65536, \"anon_thp\": 0, \"file\": 12288,"
+            + "  \"file_dirty\": 0, \"file_mapped\": 0, \"file_writeback\": 0, \"inactive_anon\": 65536, \"inactive_file\": 4096,"
+            + "  \"kernel_stack\": 16384, \"pgactivate\": 0, \"pgfault\": 1200, \"pgmajfault\": 0, \"shmem\": 0, \"slab\": 0,"
+            + "  \"sock\": 0, \"unevictable\": 0, \"workingset_refault\": 0}},"
+            + "\"name\": \"/nginx\", \"id\": \"0123456789abcdef\","
+            + "\"networks\": {\"eth0\": {\"rx_bytes\": 1000, \"tx_bytes\": 500, \"rx_packets\": 0, \"rx_dropped\": 0, \"rx_errors\": 0, \"tx_packets\": 0, \"tx_dropped\": 0, \"tx_errors\": 0}}"
+            + "}";
+
+    private final ContainerStatsMonitor testee = new ContainerStatsMonitor(mock(DockerClient.class), "0123456789abcdef", 1000);
+
+    @Test
+    public void shouldComputeSampleFromDockerStats() throws Exception {
+        StatsSample sample = ContainerStatsMonitor.sample(stats("2021-03-01T10:00:00Z", 2_000_000, 1_000_000, 1000, 500, 8192, 4096));
+
+        // 1s of cpu time during 4s of system time (all 2 cpus) - half of single cpu
+        assertEquals(50, sample.getCpuPercent(), DELTA);
+        assertEquals(100 * 1024 * 1024 - 4096, sample.getMemoryUsageBytes());
+        assertEquals(1000 + 10, sample.getNetworkRxBytes());
+        assertEquals(500 + 20, sample.getNetworkTxBytes());
+        assertEquals(8192, sample.getBlockReadBytes());
+        assertEquals(4096, sample.getBlockWriteBytes());
+    }
+
+    @Test
+    public void shouldComputeSampleFromCgroupV2DockerStats() throws Exception {
+        ContainerStats stats = StatsObjectMapperProvider.objectMapper().readValue(CGROUP_V2_STATS, ContainerStats.class);
+
+        StatsSample sample = ContainerStatsMonitor.sample(stats);
+
+        assertNull(stats.memoryStats().stats());
+        assertEquals(100 * 1024 * 1024 - 4096, sample.getMemoryUsageBytes());
+        assertEquals(1024 * 1024 * 1024, sample.getMemoryLimitBytes());
+        // no per cpu usage - computed with 2 online cpus
+        assertEquals(50, sample.getCpuPercent(), DELTA);
+        assertEquals(1000, sample.getNetworkRxBytes());
+        assertEquals(8192, sample.getBlockReadBytes());
+        assertEquals(4096, sample.getBlockWriteBytes());
+    }
+
+    @Test
+    public void shouldLeaveDockerClientMapperIntact() throws Exception {
+        StatsObjectMapperProvider.objectMapper().readValue(CGROUP_V2_STATS, ContainerStats.class);
+
+        try {
+            ObjectMapperProvider.objectMapper().readValue(CGROUP_V2_STATS, ContainerStats.class);
+            fail("docker-client mapper should still accept cgroup v1 memory stats only");
+        } catch (JsonMappingException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldKeepCgroupV1MemoryStats() throws Exception {
+        ContainerStats stats = stats("2021-03-01T10:00:00Z", 2_000_000, 1_000_000, 1000, 500, 0, 0);
+
+        assertNotNull(stats.memoryStats().stats());
+        assertEquals(Long.valueOf(8192), stats.memoryStats().stats().cache());
+        assertEquals(Long.valueOf(4096), stats.memoryStats().stats().totalInactiveFile());
+    }
+
+    @Test
+    public void shouldAggregateRates() throws Exception {
+        final List<StatsSample> received = new ArrayList<>();
+        testee.addListener(new StatsListener() {
+            @Override
+            public void sample(StatsSample sample) {
+                received.add(sample);
+            }
+        });
+
+        testee.accept(stats("2021-03-01T10:00:00Z", 2_000_000, 1_000_000, 1000, 500, 8192, 4096));
+        testee.accept(stats("2021-03-01T10:00:02Z", 2_000_000, 1_000_000, 3000, 1500, 8192, 8192));
+
+        StatsSummary summary = testee.summary();
+        assertEquals(2, received.size());
+        assertEquals(2000, summary.getDurationMillis());
+        assertEquals(2000, summary.getNetworkRxBytes());
+        assertEquals(2, summary.get(Metric.CPU_PERCENT).getCount());
+        assertEquals(1, summary.get(Metric.NETWORK_RX_RATE).getCount());
+        assertEquals(1000, summary.get(Metric.NETWORK_RX_RATE).getMean(), DELTA);
+        assertEquals(500, summary.get(Metric.NETWORK_TX_RATE).getMean(), DELTA);
+        assertEquals(0, summary.get(Metric.BLOCK_READ_RATE).getMean(), DELTA);
+        assertEquals(2048, summary.get(Metric.BLOCK_WRITE_RATE).getMean(), DELTA);
+        assertSame(received.get(1), testee.latest());
+    }
+
+    @Test
+    public void shouldStartNewSummaryAfterReset() throws Exception {
+        testee.accept(stats("2021-03-01T10:00:00Z", 2_000_000, 1_000_000, 1000, 500, 0, 0));
+        testee.accept(stats("2021-03-01T10:00:01Z", 2_000_000, 1_000_000, 2000, 500, 0, 0));
+        testee.reset();
+        testee.accept(stats("2021-03-01T10:00:02Z", 2_000_000, 1_000_000, 5000, 500, 0, 0));
+
+        StatsSummary summary = testee.summary();
+        assertEquals(1000, summary.getDurationMillis());
+        assertEquals(3000, summary.getNetworkRxBytes());
+        assertEquals(1, summary.get(Metric.CPU_PERCENT).getCount());
+        assertEquals(3000, summary.get(Metric.NETWORK_RX_RATE).getMax(), DELTA);
+    }
+
+    private static ContainerStats stats(String read, long cpuTotal, long precpuTotal, long eth0Rx, long eth0Tx, long blockRead, long blockWrite) throws Exception {
+        String json = "{"
+                + "\"read\": \"" + read + "\","
+                + "\"networks\": {"
+                + "  \"eth0\": {\"rx_bytes\": " + eth0Rx + ", \"tx_bytes\": " + eth0Tx + ", \"rx_packets\": 0, \"rx_dropped\": 0, \"rx_errors\": 0, \"tx_packets\": 0, \"tx_dropped\": 0, \"tx_errors\": 0},"
+                + "  \"eth1\": {\"rx_bytes\": 10, \"tx_bytes\": 20, \"rx_packets\": 0, \"rx_dropped\": 0, \"rx_errors\": 0, \"tx_packets\": 0, \"tx_dropped\": 0, \"tx_errors\": 0}"
+                + "},"
+                + "\"memory_stats\": {\"usage\": " + (100 * 1024 * 1024) + ", \"limit\": " + (1024 * 1024 * 1024) + ", \"stats\": " + CGROUP_V1_MEMORY_STATS + "},"
+                + "\"blkio_stats\": {\"io_service_bytes_recursive\": ["
+                + "  {\"major\": 8, \"minor\": 0, \"op\": \"Read\", \"value\": " + blockRead + "},"
+                + "  {\"major\": 8, \"minor\": 0, \"op\": \"Write\", \"value\": " + blockWrite + "},"
+                + "  {\"major\": 8, \"minor\": 0, \"op\": \"Total\", \"value\": " + (blockRead + blockWrite) + "}"
+                + "]},"
+                + "\"cpu_stats\": {\"cpu_usage\": {\"total_usage\": " + cpuTotal + ", \"percpu_usage\": [1, 1], \"usage_in_kernelmode\": 0, \"usage_in_usermode\": 0}, \"system_cpu_usage\": 8000000, \"throttling_data\": " + THROTTLING_DATA + "},"
+                + "\"precpu_stats\": {\"cpu_usage\": {\"total_usage\": " + precpuTotal + ", \"usage_in_kernelmode\": 0, \"usage_in_usermode\": 0}, \"system_cpu_usage\": 4000000, \"throttling_data\": " + THROTTLING_DATA + "}"
+                + "}";
+        return StatsObjectMapperProvider.objectMapper().readValue(json, ContainerStats.class);
+    }
+
+}
@@ -0,0 +1,56 @@
+package pl.domzal.junit.docker.rule.stats;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class RollingStatisticsTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void shouldAggregateValues() {
+        RollingStatistics statistics = new RollingStatistics(100);
+        for (int i = 1; i <= 100; i++) {
+            statistics.add(i);
+        }
+
+        MetricSummary summary = statistics.summary();
+
+        assertEquals(100, summary.getCount());
+        assertEquals(1, summary.getMin(), DELTA);
+        assertEquals(100, summary.getMax(), DELTA);
+        assertEquals(50.5, summary.getMean(), DELTA);
+        assertEquals(50, summary.getP50(), DELTA);
+        assertEquals(90, summary.getP90(), DELTA);
+        assertEquals(99, summary.getP99(), DELTA);
+    }
+
+    @Test
+    public void shouldComputePercentilesFromRecentValuesOnly() {
+        RollingStatistics statistics = new RollingStatistics(10);
+        for (int i = 0; i < 1000; i++) {
+            statistics.add(1000);
+        }
+        for (int i = 0; i < 10; i++) {
+            statistics.add(1);
+        }
+
+        MetricSummary summary = statistics.summary();
+
+        assertEquals(1010, summary.getCount());
+        assertEquals(1000, summary.getMax(), DELTA);
+        assertEquals(1, summary.getP99(), DELTA);
+    }
+
+    @Test
+    public void shouldReportNoValues() {
+        MetricSummary summary = new RollingStatistics(10).summary();
+
+        assertEquals(0, summary.getCount());
+        assertTrue(Double.isNaN(summary.getMean()));
+    }
+
+}
@@ -0,0 +1,52 @@
+package pl.domzal.junit.docker.rule.timing;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class TimingSummaryTest {
+
+    private TimingSummary testee = new TimingSummary();
+
+    @Test
+    public void shouldAggregateByImageAndPhase() {
+        testee.phaseFinished(timing("nginx:latest", "c1", Phase.START, null, 100, false));
+        testee.phaseFinished(timing("nginx:latest", "c2", Phase.START, null, 300, false));
+
+        String[] lines = testee.report().split(System.lineSeparator());
+
+        assertEquals(2, lines.length);
+        assertThat(lines[1].trim(), containsString("400      2        200        300  nginx:latest START"));
+    }
+
+    @Test
+    public void shouldSortByTotalTime() {
+        testee.phaseFinished(timing("nginx:latest", "c1", Phase.START, null, 100, false));
+        testee.phaseFinished(timing("postgres:13", "c2", Phase.WAIT, "log message 'ready'", 5000, true));
+        testee.phaseFinished(timing("busybox:latest", "c3", Phase.PULL, null, 1000, false));
+
+        String[] lines = testee.report().split(System.lineSeparator());
+
+        assertEquals(4, lines.length);
+        assertThat(lines[1], containsString("postgres:13 WAIT log message 'ready' (1 failed)"));
+        assertThat(lines[2], containsString("busybox:latest PULL"));
+        assertThat(lines[3], containsString("nginx:latest START"));
+    }
+
+    @Test
+    public void shouldDescribeTiming() {
+        assertEquals("nginx:latest c1 WAIT port 80 150ms (failed)", timing("nginx:latest", "c1", Phase.WAIT, "port 80", 150, true).toString());
+        assertEquals("nginx:latest PULL 20ms", timing("nginx:latest", null, Phase.PULL, null, 20, false).toString());
+    }
+
+    private static PhaseTiming timing(String image, String container, Phase phase, String detail, long millis, boolean failed) {
+        return new PhaseTiming(image, container, phase, detail, TimeUnit.MILLISECONDS.toNanos(millis), failed);
+    }
+
+}
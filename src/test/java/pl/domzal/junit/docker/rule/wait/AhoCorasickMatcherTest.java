@@ -0,0 +1,52 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class AhoCorasickMatcherTest {
+
+    @Test
+    public void shouldFindOverlappingAndNestedPatterns() {
+        AhoCorasickMatcher testee = new AhoCorasickMatcher(Arrays.asList("he", "she", "his", "hers", "xyz"));
+        boolean[] found = new boolean[5];
+
+        assertEquals(3, testee.match("ushers", found));
+
+        assertArrayEquals(new boolean[] { true, true, false, true, false }, found);
+    }
+
+    @Test
+    public void shouldFindPatternReachedThroughFailureLink() {
+        AhoCorasickMatcher testee = new AhoCorasickMatcher(Arrays.asList("abcd", "bc"));
+        boolean[] found = new boolean[2];
+
+        testee.match("xabcx", found);
+
+        assertArrayEquals(new boolean[] { false, true }, found);
+    }
+
+    @Test
+    public void shouldMatchEmptyPatternAndNonAsciiText() {
+        AhoCorasickMatcher testee = new AhoCorasickMatcher(Arrays.asList("", "żółć"));
+        boolean[] found = new boolean[2];
+
+        testee.match("gęś żółć", found);
+
+        assertArrayEquals(new boolean[] { true, true }, found);
+    }
+
+    @Test
+    public void shouldNotMatchAbsentPatterns() {
+        AhoCorasickMatcher testee = new AhoCorasickMatcher(Arrays.asList("started", "ready"));
+        boolean[] found = new boolean[2];
+
+        assertEquals(0, testee.match("starting, almost rea", found));
+
+        assertArrayEquals(new boolean[] { false, false }, found);
+    }
+}
@@ -0,0 +1,102 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.DockerRule;
+import pl.domzal.junit.docker.rule.fake.FakeDockerEngine;
+import pl.domzal.junit.docker.rule.fake.FakeDockerEngine.ContainerScript;
+
+@Category(test.category.Stable.class)
+public class ExecCheckerTest {
+
+    @Rule
+    public FakeDockerEngine engine = new FakeDockerEngine();
+
+    private DockerRule container;
+
+    @After
+    public void tearDown() {
+        if (container != null) {
+            container.after();
+        }
+    }
+
+    @Test
+    public void shouldBeMetOnlyWithExitCodeZero() throws Throwable {
+        startContainer().execExitCodes(3, 0);
+        ExecChecker testee = new ExecChecker(container.getDockerClient(), container.getContainerId(), "redis-cli", "ping");
+
+        assertNull(testee.getLastExitCode());
+        assertFalse(testee.check());
+        assertEquals(Long.valueOf(3), testee.getLastExitCode());
+        assertTrue(testee.check());
+        assertEquals(Long.valueOf(0), testee.getLastExitCode());
+    }
+
+    @Test
+    public void shouldWaitForCommandToComplete() throws Throwable {
+        startContainer().execDuration(300);
+        ExecChecker testee = new ExecChecker(container.getDockerClient(), container.getContainerId(), "sleep", "0.3");
+
+        assertTrue(testee.check());
+    }
+
+    @Test
+    public void shouldFailAttemptRunningTooLong() throws Throwable {
+        startContainer().execDuration(5000);
+        ExecChecker testee = new ExecChecker(container.getDockerClient(), container.getContainerId(), 200, "sleep", "5");
+
+        long start = System.currentTimeMillis();
+        assertFalse(testee.check());
+        long took = System.currentTimeMillis() - start;
+        assertTrue("attempt took " + took + "ms", took < 1000);
+        assertNull(testee.getLastExitCode());
+    }
+
+    @Test
+    public void shouldFollowCommandStillRunningInsteadOfStartingAnother() throws Throwable {
+        startContainer().execDuration(600).execExitCodes(0);
+        ExecChecker testee = new ExecChecker(container.getDockerClient(), container.getContainerId(), 200, "sleep", "0.6");
+
+        int checks = 1;
+        while (!testee.check()) {
+            checks++;
+            assertTrue("not met after " + checks + " checks", checks < 20);
+        }
+
+        assertTrue(checks > 1);
+        assertEquals(1, engine.execCommands().size());
+        assertEquals(Long.valueOf(0), testee.getLastExitCode());
+    }
+
+    @Test
+    public void shouldNotBeMetWhenContainerIsNotRunning() throws Throwable {
+        startContainer();
+        ExecChecker testee = new ExecChecker(container.getDockerClient(), container.getContainerId(), "true");
+        container.getDockerClient().stopContainer(container.getContainerId(), 1);
+
+        assertFalse(testee.check());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireCommand() {
+        new ExecChecker(null, "id");
+    }
+
+    private ContainerScript startContainer() throws Throwable {
+        String image = "fake/exec-" + System.nanoTime() + ":1.0";
+        ContainerScript script = engine.container(image);
+        container = DockerRule.builder()
+                .imageName(image)
+                .dockerUri(engine.getUri())
+                .build();
+        container.before();
+        return script;
+    }
+
+}
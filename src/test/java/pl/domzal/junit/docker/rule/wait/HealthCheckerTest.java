@@ -0,0 +1,239 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mandas.docker.client.DockerClient;
+import org.mandas.docker.client.DockerClient.EventsParam;
+import org.mandas.docker.client.EventStream;
+import org.mandas.docker.client.exceptions.DockerRequestException;
+import org.mandas.docker.client.messages.ContainerInfo;
+import org.mandas.docker.client.messages.ContainerState;
+import org.mandas.docker.client.messages.Event;
+import org.mockito.ArgumentMatchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import pl.domzal.junit.docker.rule.ex.ContainerUnhealthyException;
+
+@Category(test.category.Stable.class)
+public class HealthCheckerTest {
+
+    private static final String CONTAINER_ID = "0123456789abcdef";
+    private static final String END = "";
+
+    private final DockerClient dockerClient = mock(DockerClient.class);
+    private final BlockingQueue<String> actions = new LinkedBlockingQueue<>();
+
+    private HealthChecker testee;
+
+    @After
+    public void tearDown() {
+        if (testee != null) {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldBeHealthyOnHealthStatusEvent() throws Exception {
+        givenEvents();
+        givenInspect(state(true, "starting"));
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        assertFalse(testee.check());
+        assertFalse(testee.await(50, TimeUnit.MILLISECONDS));
+        actions.add("health_status: healthy");
+
+        assertTrue(testee.await(5, TimeUnit.SECONDS));
+        assertTrue(testee.check());
+        verify(dockerClient, times(1)).inspectContainer(CONTAINER_ID);
+    }
+
+    @Test
+    public void shouldBeHealthyWhenAlreadyHealthyAtStart() throws Exception {
+        givenEvents();
+        givenInspect(state(true, "healthy"));
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        assertTrue(testee.check());
+    }
+
+    @Test
+    public void shouldFailOnUnhealthyEventWithLastCheckOutput() throws Exception {
+        givenEvents();
+        ContainerState unhealthy = state(true, "unhealthy");
+        ContainerState.HealthLog healthLog = mock(ContainerState.HealthLog.class);
+        when(healthLog.output()).thenReturn("curl: (7) Failed to connect\n");
+        when(unhealthy.health().log()).thenReturn(Collections.singletonList(healthLog));
+        when(unhealthy.health().failingStreak()).thenReturn(3);
+        givenInspect(state(true, "starting"), unhealthy);
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        assertFalse(testee.check());
+        actions.add("health_status: unhealthy");
+        assertTrue(testee.await(5, TimeUnit.SECONDS));
+
+        try {
+            testee.check();
+            fail("unhealthy container should fail check");
+        } catch (ContainerUnhealthyException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("after 3 failed checks"));
+            assertTrue(e.getMessage(), e.getMessage().contains("curl: (7) Failed to connect"));
+        }
+    }
+
+    @Test
+    public void shouldFailWhenContainerDies() throws Exception {
+        givenEvents();
+        ContainerState exited = state(false, "unhealthy");
+        when(exited.exitCode()).thenReturn(2L);
+        givenInspect(state(true, "starting"), exited);
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        assertFalse(testee.check());
+        actions.add("die");
+        assertTrue(testee.await(5, TimeUnit.SECONDS));
+
+        try {
+            testee.check();
+            fail("exited container should fail check");
+        } catch (ContainerUnhealthyException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("exited with code 2"));
+        }
+    }
+
+    @Test(expected = ContainerUnhealthyException.class)
+    public void shouldFailWithoutHealthcheck() throws Exception {
+        givenEvents();
+        givenInspect(state(true, null));
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        testee.check();
+    }
+
+    @Test
+    public void shouldInspectWhenEventsNotAvailable() throws Exception {
+        when(dockerClient.events(ArgumentMatchers.<EventsParam>any())).thenThrow(new DockerRequestException("GET", null, 500, "events not supported", null));
+        givenInspect(state(true, "starting"), state(true, "starting"), state(true, "healthy"));
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        assertFalse(testee.check());
+        assertFalse(testee.check());
+        assertTrue(testee.check());
+        verify(dockerClient, times(3)).inspectContainer(CONTAINER_ID);
+    }
+
+    @Test
+    public void shouldCloseEventsOnAfter() throws Exception {
+        EventStream events = givenEvents();
+        givenInspect(state(true, "starting"));
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+
+        testee.check();
+        testee.after();
+
+        verify(events, atLeastOnce()).close();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotHoldLockWhileOpeningEvents() throws Exception {
+        final EventStream events = mock(EventStream.class);
+        final CountDownLatch opening = new CountDownLatch(1);
+        final CountDownLatch opened = new CountDownLatch(1);
+        when(dockerClient.events(ArgumentMatchers.<EventsParam>any())).thenAnswer(new Answer<EventStream>() {
+            @Override
+            public EventStream answer(InvocationOnMock invocation) throws Throwable {
+                opening.countDown();
+                opened.await();
+                return events;
+            }
+        });
+        givenInspect(state(true, "starting"));
+        testee = new HealthChecker(dockerClient, CONTAINER_ID);
+        Thread checking = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                testee.check();
+            }
+        });
+        checking.start();
+        assertTrue(opening.await(5, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        assertFalse(testee.await(50, TimeUnit.MILLISECONDS));
+        testee.after();
+        long took = System.currentTimeMillis() - start;
+        opened.countDown();
+        checking.join(5000);
+
+        assertTrue("await and after took " + took + "ms", took < 1000);
+        // stream opened after close is closed right away
+        verify(events).close();
+        verify(events, never()).hasNext();
+    }
+
+    private EventStream givenEvents() throws Exception {
+        EventStream events = mock(EventStream.class);
+        final String[] next = new String[1];
+        when(events.hasNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                next[0] = actions.take();
+                return !END.equals(next[0]);
+            }
+        });
+        when(events.next()).thenAnswer(new Answer<Event>() {
+            @Override
+            public Event answer(InvocationOnMock invocation) throws Throwable {
+                Event event = mock(Event.class);
+                when(event.action()).thenReturn(next[0]);
+                return event;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                actions.add(END);
+                return null;
+            }
+        }).when(events).close();
+        when(dockerClient.events(ArgumentMatchers.<EventsParam>any())).thenReturn(events);
+        return events;
+    }
+
+    private void givenInspect(ContainerState first, ContainerState... next) throws Exception {
+        ContainerInfo firstInfo = info(first);
+        ContainerInfo[] nextInfo = new ContainerInfo[next.length];
+        for (int i = 0; i < next.length; i++) {
+            nextInfo[i] = info(next[i]);
+        }
+        when(dockerClient.inspectContainer(CONTAINER_ID)).thenReturn(firstInfo, nextInfo);
+    }
+
+    private static ContainerInfo info(ContainerState state) {
+        ContainerInfo info = mock(ContainerInfo.class);
+        when(info.state()).thenReturn(state);
+        return info;
+    }
+
+    private static ContainerState state(boolean running, String healthStatus) {
+        ContainerState state = mock(ContainerState.class);
+        when(state.running()).thenReturn(running);
+        if (healthStatus != null) {
+            ContainerState.Health health = mock(ContainerState.Health.class);
+            when(health.status()).thenReturn(healthStatus);
+            when(state.health()).thenReturn(health);
+        }
+        return state;
+    }
+
+}
@@ -50,4 +50,50 @@ public class HttpPingCheckerTest extends HttpServer {
         assertFalse("should fail on error code 500", testee.check());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldReuseConnection() {
+        HttpPingChecker testee = new HttpPingChecker(getHttpAddress(), "GET", null);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(testee.check());
+            }
+        } finally {
+            testee.after();
+        }
+        assertEquals(1, getClientAddresses().size());
+    }
+
+    @Test
+    public void shouldSendHeaders() {
+        HttpPingChecker testee = new HttpPingChecker(getHttpAddress()).header("Authorization", "Bearer token");
+        try {
+            assertTrue(testee.check());
+            assertEquals("Bearer token", getLastRequestHeaders().getFirst("Authorization"));
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldCheckExpectedBody() {
+        HttpPingChecker testee = new HttpPingChecker(getHttpAddress(), "GET", null).expectedBody("\"status\":\"UP\"");
+        try {
+            serverResponse.setResponseContent("{\"status\":\"STARTING\"}");
+            assertFalse(testee.check());
+            serverResponse.setResponseContent("{\"status\":\"UP\"}");
+            assertTrue(testee.check());
+        } finally {
+            testee.after();
+        }
+    }
+
+    @Test
+    public void shouldCreateNewClientAfterRelease() {
+        HttpPingChecker testee = new HttpPingChecker(getHttpAddress());
+        assertTrue(testee.check());
+        testee.after();
+        assertTrue(testee.check());
+        testee.after();
+    }
+
+}
@@ -3,12 +3,16 @@ package pl.domzal.junit.docker.rule.wait;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.After;
 import org.junit.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
@@ -24,6 +28,10 @@ public class HttpServer {
 
     private String httpAddress;
 
+    private volatile Headers lastRequestHeaders;
+
+    private final Set<InetSocketAddress> clientAddresses = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+
     /**
      * Allows to set served response code and content.
      */
@@ -70,6 +78,20 @@ public class HttpServer {
         return serverAddress;
     }
 
+    /**
+     * Headers of last received request.
+     */
+    public Headers getLastRequestHeaders() {
+        return lastRequestHeaders;
+    }
+
+    /**
+     * Distinct client addresses (one per client connection) requests came from.
+     */
+    public Set<InetSocketAddress> getClientAddresses() {
+        return clientAddresses;
+    }
+
     private class ConfigurableHttpHandler implements HttpHandler {
 
         private final ServerResponse serverResponse;
@@ -80,6 +102,8 @@ public class HttpServer {
 
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            lastRequestHeaders = exchange.getRequestHeaders();
+            clientAddresses.add(exchange.getRemoteAddress());
             byte[] responseBytes = serverResponse.responseContent.getBytes();
             exchange.sendResponseHeaders(serverResponse.errorCode, responseBytes.length);
             exchange.getResponseBody().write(responseBytes);
@@ -1,5 +1,7 @@
 package pl.domzal.junit.docker.rule.wait;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -72,4 +74,32 @@ public class LineListenerProxyTest {
         verify(l2).nextLine(eq("four"));
         verify(l2).nextLine(eq("five"));
     }
+
+    @Test
+    public void shouldReportTruncatedHistory() {
+        // given
+        LineListenerProxy testee = new LineListenerProxy(2);
+        // when
+        testee.nextLine("one");
+        testee.nextLine("two");
+        // then
+        assertFalse(testee.isHistoryTruncated());
+        testee.nextLine("three");
+        assertTrue(testee.isHistoryTruncated());
+    }
+
+    @Test
+    public void shouldNotProxyToRemovedListener() {
+        // given
+        LineListenerProxy testee = new LineListenerProxy();
+        LineListener l1 = mock(LineListener.class);
+        testee.add(l1);
+        // when
+        testee.nextLine("one");
+        testee.remove(l1);
+        testee.nextLine("two");
+        // then
+        verify(l1).nextLine(eq("one"));
+        verify(l1, never()).nextLine(eq("two"));
+    }
 }
@@ -0,0 +1,43 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import pl.domzal.junit.docker.rule.DockerRule;
+
+@Category(test.category.Stable.class)
+public class LogCheckerTest {
+
+    @Test
+    public void shouldDetectMessageInLines() {
+        LogChecker testee = new LogChecker("ready");
+
+        assertFalse(testee.check());
+        testee.nextLine("starting");
+        assertFalse(testee.check());
+        testee.nextLine("server is ready to accept connections");
+        assertTrue(testee.check());
+        testee.nextLine("next line");
+        assertTrue(testee.check());
+    }
+
+    @Test
+    public void shouldFallbackToFullLogUntilFirstLine() {
+        DockerRule rule = mock(DockerRule.class);
+        when(rule.getLog()).thenReturn("starting\n");
+        LogChecker testee = new LogChecker(rule, "ready");
+
+        assertFalse(testee.check());
+        verify(rule).getLog();
+
+        testee.nextLine("starting");
+        assertFalse(testee.check());
+        testee.nextLine("ready");
+        assertTrue(testee.check());
+        verify(rule).getLog();
+    }
+
+}
@@ -0,0 +1,53 @@
+package pl.domzal.junit.docker.rule.wait;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(test.category.Stable.class)
+public class LogMatcherTest {
+
+    @Test
+    public void shouldDriveAllLogConditionsWithSingleMatcher() {
+        LogChecker logChecker = new LogChecker("ready");
+        LogSequenceChecker sequenceChecker = new LogSequenceChecker(Arrays.asList("starting", "ready"));
+        LogPatternChecker patternChecker = new LogPatternChecker(Arrays.asList(
+                LogPattern.substring("ready"), LogPattern.regex("port \\d+")));
+        LogMatcher testee = new LogMatcher(Arrays.asList(logChecker, sequenceChecker, patternChecker));
+
+        testee.nextLine("starting");
+        testee.nextLine("listening on port 8080");
+        assertFalse(logChecker.check());
+        assertFalse(sequenceChecker.check());
+        assertFalse(patternChecker.check());
+
+        testee.nextLine("ready");
+        assertTrue(logChecker.check());
+        assertTrue(sequenceChecker.check());
+        assertTrue(patternChecker.check());
+    }
+
+    @Test
+    public void shouldMatchPatternsWithoutMatcher() {
+        LogPatternChecker testee = new LogPatternChecker(Arrays.asList(
+                LogPattern.regex("^Server \\w+ started$"), LogPattern.substring("db")));
+
+        testee.nextLine("Server web started");
+        assertFalse(testee.check());
+        testee.nextLine("db connected");
+        assertTrue(testee.check());
+    }
+
+    @Test
+    public void shouldNotConfuseSubstringAndRegexWithSameText() {
+        LogPatternChecker testee = new LogPatternChecker(Arrays.asList(LogPattern.regex("a.c")));
+        LogMatcher matcher = new LogMatcher(Arrays.asList(new LogChecker("a.c"), testee));
+
+        matcher.nextLine("abc");
+        assertTrue(testee.check());
+    }
+
+}
@@ -1,10 +1,18 @@
 package pl.domzal.junit.docker.rule.wait;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import org.junit.After;
 import org.junit.Test;
 
 public class TcpPortCheckerTest {
@@ -26,4 +34,100 @@ public class TcpPortCheckerTest {
         TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(new Integer(11111)));
         assertFalse(testee.check());
     }
-}
\ No newline at end of file
+
+    private final List<ServerSocket> servers = new ArrayList<>();
+
+    @After
+    public void closeServers() throws IOException {
+        for (ServerSocket server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldCheckAllPortsAtOnce() throws Exception {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ports.add(closedPort());
+        }
+        int open = server(Behaviour.SILENT);
+        ports.add(open);
+        TcpPortChecker testee = new TcpPortChecker("localhost", ports);
+
+        long start = System.currentTimeMillis();
+        assertFalse(testee.check());
+        long took = System.currentTimeMillis() - start;
+
+        assertTrue("check took " + took + "ms", took < 1000);
+        assertEquals(6, testee.getPending().size());
+        for (InetSocketAddress pending : testee.getPending()) {
+            assertNotEquals(open, pending.getPort());
+        }
+    }
+
+    @Test
+    public void shouldAcceptPortClosedRightAfterConnectWhenNotVerified() throws Exception {
+        TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(server(Behaviour.CLOSE)));
+        assertTrue(testee.check());
+    }
+
+    @Test
+    public void shouldRejectPortClosedRightAfterConnectWhenVerified() throws Exception {
+        TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(server(Behaviour.CLOSE)), true);
+        assertFalse(testee.check());
+        assertEquals(1, testee.getPending().size());
+    }
+
+    @Test
+    public void shouldVerifyServerWaitingForRequest() throws Exception {
+        TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(server(Behaviour.SILENT)), true);
+        long start = System.currentTimeMillis();
+        assertTrue(testee.check());
+        assertTrue(System.currentTimeMillis() - start >= TcpPortChecker.VERIFY_TIMEOUT);
+    }
+
+    @Test
+    public void shouldVerifyServerSendingBanner() throws Exception {
+        TcpPortChecker testee = new TcpPortChecker("localhost", Arrays.asList(server(Behaviour.BANNER), server(Behaviour.SILENT)), true);
+        assertTrue(testee.check());
+    }
+
+    private enum Behaviour { SILENT, CLOSE, BANNER }
+
+    private int server(final Behaviour behaviour) throws IOException {
+        final ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+        servers.add(server);
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                List<Socket> connections = new ArrayList<>();
+                try {
+                    while (true) {
+                        Socket connection = server.accept();
+                        if (behaviour == Behaviour.CLOSE) {
+                            connection.close();
+                        } else {
+                            if (behaviour == Behaviour.BANNER) {
+                                OutputStream out = connection.getOutputStream();
+                                out.write("SSH-2.0-test\r\n".getBytes("UTF-8"));
+                                out.flush();
+                            }
+                            connections.add(connection);
+                        }
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server.getLocalPort();
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getByName("localhost"))) {
+            return socket.getLocalPort();
+        }
+    }
+}